@@ -0,0 +1,65 @@
+package com.berry.hotelbooking.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks once per thread count with the gc profiler, and writes one JSON result per run.
+ * <pre>
+ * java -jar target/benchmarks.jar [threads=1,4,8] [results=results] [include=regexp] [param=value ...]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    // Prevent default initialization
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    String threads = "1,4";
+    String results = "results";
+    String include = "com.berry.hotelbooking.benchmark.*";
+    ChainedOptionsBuilder params = new OptionsBuilder();
+
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Arguments are expected as key=value, got: " + arg);
+      }
+
+      String key = arg.substring(0, separator);
+      String value = arg.substring(separator + 1);
+      if ("threads".equals(key)) {
+        threads = value;
+      } else if ("results".equals(key)) {
+        results = value;
+      } else if ("include".equals(key)) {
+        include = value;
+      } else {
+        params.param(key, value.split(","));
+      }
+    }
+
+    new File(results).mkdirs();
+
+    for (String threadCount : threads.split(",")) {
+      new Runner(
+          new OptionsBuilder()
+              .parent(params.build())
+              .include(include)
+              .threads(Integer.parseInt(threadCount.trim()))
+              .addProfiler(GCProfiler.class)
+              .resultFormat(ResultFormatType.JSON)
+              .result(new File(results, "threads-" + threadCount.trim() + ".json").getPath())
+              .build()
+      ).run();
+    }
+  }
+
+}
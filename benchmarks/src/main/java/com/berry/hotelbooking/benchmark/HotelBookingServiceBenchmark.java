@@ -0,0 +1,34 @@
+package com.berry.hotelbooking.benchmark;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HotelBookingServiceBenchmark {
+
+  @Benchmark
+  public GenericResponse<Booking> reserveRoom(HotelState state) {
+    return state.service.reserveRoom(state.randomBooking());
+  }
+
+  @Benchmark
+  public GenericResponse<Set<Room>> findAvailableRooms(HotelState state) {
+    return state.service.findAvailableRooms(state.randomDate());
+  }
+
+  @Benchmark
+  public GenericResponse<Set<BookingRoom>> findExistedBookings(HotelState state) {
+    return state.service.findExistedBookings(state.randomUser());
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.berry.hotelbooking.benchmark;
+
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.service.HotelBookingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * A hotel with a number of rooms, whose rooms are booked by a pool of users
+ * with the giving density over a window of dates.
+ */
+@State(Scope.Benchmark)
+public class HotelState {
+
+  static final int NUMBER_OF_DATES = 7;
+  static final int NUMBER_OF_USERS = 1000;
+
+  private static final Logger SERVICE_LOGGER = Logger.getLogger("com.berry.hotelbooking");
+
+  @Param({"1000", "100000", "1000000"})
+  public int numberOfRooms;
+
+  @Param({"0.1", "0.5", "0.9"})
+  public double bookingDensity;
+
+  HotelBookingService service;
+  Room[] rooms;
+  User[] users;
+  LocalDate firstDate;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    // Console logging would dominate every measurement.
+    SERVICE_LOGGER.setLevel(java.util.logging.Level.OFF);
+
+    rooms = new Room[numberOfRooms];
+    for (int i = 0; i < numberOfRooms; i++) {
+      rooms[i] = Room.NewBuilder().withRoomNumber(i + 1).build();
+    }
+
+    users = new User[NUMBER_OF_USERS];
+    for (int i = 0; i < NUMBER_OF_USERS; i++) {
+      users[i] = User.NewBuilder().withName("Guest " + i).build();
+    }
+
+    firstDate = LocalDate.now().plusDays(1);
+  }
+
+  /**
+   * The hotel is rebuilt for every iteration, so reservations of an iteration
+   * don't change the density seen by the next one.
+   */
+  @Setup(Level.Iteration)
+  public void setUpIteration() {
+    Set<Room> roomSet = new HashSet<>();
+    for (Room room : rooms) {
+      roomSet.add(room);
+    }
+
+    Hotel hotel = Hotel.NewBuilder().withRooms(roomSet).build();
+    SplittableRandom random = new SplittableRandom(42);
+
+    for (int day = 0; day < NUMBER_OF_DATES; day++) {
+      LocalDate date = firstDate.plusDays(day);
+      for (Room room : rooms) {
+        if (random.nextDouble() < bookingDensity) {
+          BookingRoom bookingRoom = BookingRoom.NewBuilder().withRoom(room).withBookingDate(date).build();
+          hotel.getBookings().put(bookingRoom, users[random.nextInt(NUMBER_OF_USERS)]);
+        }
+      }
+    }
+
+    service = new HotelBookingService(hotel);
+    // The bookings of the users load in the background, they're awaited so they don't overlap the measurements.
+    service.findExistedBookings(users[0]);
+  }
+
+  Booking randomBooking() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return Booking
+        .NewBuilder()
+        .withUser(users[random.nextInt(NUMBER_OF_USERS)])
+        .withBookingRoom(
+            BookingRoom
+                .NewBuilder()
+                .withRoom(rooms[random.nextInt(rooms.length)])
+                .withBookingDate(randomDate())
+                .build()
+        )
+        .build();
+  }
+
+  LocalDate randomDate() {
+    return firstDate.plusDays(ThreadLocalRandom.current().nextInt(NUMBER_OF_DATES));
+  }
+
+  User randomUser() {
+    return users[ThreadLocalRandom.current().nextInt(NUMBER_OF_USERS)];
+  }
+
+}
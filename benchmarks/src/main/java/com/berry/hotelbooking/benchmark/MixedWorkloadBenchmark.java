@@ -0,0 +1,39 @@
+package com.berry.hotelbooking.benchmark;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every operation is a read with the giving ratio, split evenly between the two queries,
+ * otherwise a reservation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class MixedWorkloadBenchmark {
+
+  @Param({"0.5", "0.9", "0.99"})
+  public double readRatio;
+
+  @Benchmark
+  public GenericResponse<?> mixedWorkload(HotelState state) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    if (random.nextDouble() >= readRatio) {
+      return state.service.reserveRoom(state.randomBooking());
+    }
+
+    if (random.nextBoolean()) {
+      return state.service.findAvailableRooms(state.randomDate());
+    }
+
+    return state.service.findExistedBookings(state.randomUser());
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.berry.hotelbooking.benchmark;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.persistence.HotelRecovery;
+import com.berry.hotelbooking.persistence.HotelSnapshot;
+import com.berry.hotelbooking.persistence.WriteAheadLog;
+import com.berry.hotelbooking.service.HotelBookingService;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * The time from a snapshot on disk to the first answer of the recovered service, for a hotel of 100k rooms
+ * holding the given number of bookings. Every thread recovers its own hotel, so run it with threads=1.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+  private static final int NUMBER_OF_ROOMS = 100000;
+  private static final int NUMBER_OF_USERS = 1000;
+
+  private static final Logger SERVICE_LOGGER = Logger.getLogger("com.berry.hotelbooking");
+
+  @Param({"10000000"})
+  public int numberOfBookings;
+
+  private Path snapshotDirectory;
+  private Path walPath;
+  private LocalDate firstDate;
+  private User firstUser;
+  private WriteAheadLog writeAheadLog;
+  private HotelBookingService service;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() throws IOException {
+    // Console logging would dominate every measurement.
+    SERVICE_LOGGER.setLevel(java.util.logging.Level.OFF);
+
+    snapshotDirectory = Files.createTempDirectory("hotel-snapshots");
+    walPath = Files.createTempFile("hotel-wal", ".log");
+    firstDate = LocalDate.now().plusDays(1);
+
+    Set<Room> rooms = new HashSet<>();
+    Room[] roomArray = new Room[NUMBER_OF_ROOMS];
+    for (int i = 0; i < NUMBER_OF_ROOMS; i++) {
+      roomArray[i] = Room.NewBuilder().withRoomNumber(i + 1).build();
+      rooms.add(roomArray[i]);
+    }
+
+    User[] users = new User[NUMBER_OF_USERS];
+    for (int i = 0; i < NUMBER_OF_USERS; i++) {
+      users[i] = User.NewBuilder().withName("Guest " + i).build();
+    }
+    firstUser = users[0];
+
+    PrimitiveBookingStore bookingStore =
+        new PrimitiveBookingStore(PrimitiveBookingStore.DEFAULT_CONCURRENCY_LEVEL, numberOfBookings);
+    LocalDate date = firstDate;
+    for (int i = 0; i < numberOfBookings; i++) {
+      if (i > 0 && i % NUMBER_OF_ROOMS == 0) {
+        date = date.plusDays(1);
+      }
+
+      BookingRoom bookingRoom = BookingRoom.NewBuilder().withRoom(roomArray[i % NUMBER_OF_ROOMS]).withBookingDate(date).build();
+      bookingStore.reserve(bookingRoom, users[i % NUMBER_OF_USERS], null);
+    }
+
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(bookingStore).build();
+    try (WriteAheadLog snapshotLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      HotelSnapshot.write(snapshotDirectory, hotel, snapshotLog);
+    }
+  }
+
+  /**
+   * The bookings of the users keep loading in the background after the first search,
+   * they're awaited here so they don't overlap the next recovery.
+   */
+  @TearDown(Level.Invocation)
+  public void tearDownInvocation() {
+    service.findExistedBookings(firstUser);
+    writeAheadLog.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() throws IOException {
+    try (Stream<Path> paths = Files.walk(snapshotDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+    Files.deleteIfExists(walPath);
+  }
+
+  @Benchmark
+  public GenericResponse<Set<Room>> recoverUntilFirstSearch() {
+    return recover().findAvailableRooms(firstDate);
+  }
+
+  @Benchmark
+  public GenericResponse<Set<BookingRoom>> recoverUntilFirstBookingsSearch() {
+    return recover().findExistedBookings(firstUser);
+  }
+
+  private HotelBookingService recover() {
+    writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build();
+    Hotel hotel = HotelRecovery.recover(snapshotDirectory, writeAheadLog, null);
+    service = HotelBookingService.NewBuilder().withHotel(hotel).withWriteAheadLog(writeAheadLog).build();
+    return service;
+  }
+
+}
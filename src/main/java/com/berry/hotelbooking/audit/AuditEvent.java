@@ -0,0 +1,109 @@
+package com.berry.hotelbooking.audit;
+
+import java.time.LocalDate;
+import java.util.logging.Logger;
+
+/**
+ * A slot of the audit ring buffer. Slots are allocated once and reused, producers only
+ * copy references and primitives into them, the writer thread does all the formatting.
+ */
+public class AuditEvent {
+
+  static final int NO_ROOM = 0;
+  static final int NO_COUNT = -1;
+
+  volatile long sequence = -1L;
+
+  Logger logger;
+  AuditEventType type;
+  long timestamp;
+  String message;
+  String userName;
+  int roomNumber;
+  LocalDate date;
+  LocalDate endDate;
+  int count;
+
+  public Logger getLogger() {
+    return logger;
+  }
+
+  public AuditEventType getType() {
+    return type;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public int getRoomNumber() {
+    return roomNumber;
+  }
+
+  public LocalDate getDate() {
+    return date;
+  }
+
+  public LocalDate getEndDate() {
+    return endDate;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * This method writes the fields of the event which are set, as key=value pairs.
+   * @param builder The builder to write into
+   * @return The giving builder
+   */
+  public StringBuilder appendTo(StringBuilder builder) {
+    builder.append(type);
+
+    if (message != null) {
+      builder.append(" message=\"").append(message).append('"');
+    }
+    if (userName != null) {
+      builder.append(" user=").append(userName);
+    }
+    if (roomNumber != NO_ROOM) {
+      builder.append(" room=").append(roomNumber);
+    }
+    if (date != null) {
+      builder.append(" date=").append(date);
+    }
+    if (endDate != null) {
+      builder.append(" endDate=").append(endDate);
+    }
+    if (count != NO_COUNT) {
+      builder.append(" count=").append(count);
+    }
+
+    return builder;
+  }
+
+  @Override
+  public String toString() {
+    return appendTo(new StringBuilder()).toString();
+  }
+
+  void clear() {
+    logger = null;
+    type = null;
+    message = null;
+    userName = null;
+    roomNumber = NO_ROOM;
+    date = null;
+    endDate = null;
+    count = NO_COUNT;
+  }
+
+}
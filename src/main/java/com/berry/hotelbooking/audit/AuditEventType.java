@@ -0,0 +1,39 @@
+package com.berry.hotelbooking.audit;
+
+import java.util.logging.Level;
+
+public enum AuditEventType {
+
+  RESERVATION_REQUESTED(Level.INFO),
+  RESERVATION_LOST_RACE(Level.INFO),
+  ROOM_TYPE_REQUESTED(Level.INFO),
+  ROOM_REASSIGNED(Level.INFO),
+  STAY_REQUESTED(Level.INFO),
+  BATCH_REQUESTED(Level.INFO),
+  CANCELLATION_REQUESTED(Level.INFO),
+  HOLD_REQUESTED(Level.INFO),
+  HOLD_CONFIRMED(Level.INFO),
+  HOLD_RELEASED(Level.INFO),
+  HOLD_EXPIRED(Level.INFO),
+  WAITLIST_JOINED(Level.INFO),
+  WAITLIST_LEFT(Level.INFO),
+  WAITLIST_PROMOTED(Level.INFO),
+  AVAILABILITY_SEARCHED(Level.INFO),
+  BOOKINGS_SEARCHED(Level.INFO),
+  CALENDAR_SEARCHED(Level.INFO),
+  BOOKINGS_COMPACTED(Level.INFO),
+  ROOM_UNAVAILABLE(Level.INFO),
+  VALIDATION_FAILED(Level.SEVERE),
+  PERSISTENCE_FAILED(Level.SEVERE);
+
+  private final Level level;
+
+  AuditEventType(Level level) {
+    this.level = level;
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+}
@@ -0,0 +1,298 @@
+package com.berry.hotelbooking.audit;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * An asynchronous audit log. Producers claim a preallocated slot of a ring buffer with a single
+ * atomic operation and copy the fields of the event into it. A background writer thread hands
+ * the events over to a sink in order, so formatting and logger locks stay off the calling threads.
+ * An idle writer parks until a producer wakes it up, so a quiet log costs no CPU.
+ */
+public class AuditLog implements AutoCloseable {
+
+  public static final String CAPACITY_PROPERTY = "hotelbooking.audit.capacity";
+  public static final String OVERFLOW_POLICY_PROPERTY = "hotelbooking.audit.overflowPolicy";
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+  // Set in the claim counter once closed, so a claim and the closed check are one atomic step.
+  private static final long CLOSED = 1L << 62;
+  private static volatile AuditLog defaultAuditLog;
+
+  private final AuditEvent[] ring;
+  private final int mask;
+  private final OverflowPolicy overflowPolicy;
+  private final AuditSink sink;
+  private final AtomicLong nextSequence = new AtomicLong();
+  private final LongAdder droppedEvents = new LongAdder();
+  private final Thread writer;
+  private volatile long consumedSequence;
+  private volatile boolean writerParked;
+
+  private AuditLog(Builder builder) {
+    this.ring = new AuditEvent[builder.capacity];
+    for (int i = 0; i < ring.length; i++) {
+      ring[i] = new AuditEvent();
+      ring[i].clear();
+    }
+
+    this.mask = builder.capacity - 1;
+    this.overflowPolicy = builder.overflowPolicy;
+    this.sink = builder.sink;
+    this.writer = new Thread(this::drain, "hotel-booking-audit");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method returns the audit log shared by the services which aren't given one.
+   * Its capacity and overflow policy can be set with the system properties
+   * {@value #CAPACITY_PROPERTY} and {@value #OVERFLOW_POLICY_PROPERTY}.
+   * @return The default audit log
+   */
+  public static AuditLog getDefault() {
+    AuditLog auditLog = defaultAuditLog;
+    if (auditLog != null) {
+      return auditLog;
+    }
+
+    synchronized (AuditLog.class) {
+      if (defaultAuditLog == null) {
+        AuditLog newAuditLog = NewBuilder()
+            .withCapacity(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY))
+            .withOverflowPolicy(OverflowPolicy.valueOf(System.getProperty(OVERFLOW_POLICY_PROPERTY, OverflowPolicy.DROP.name())))
+            .build();
+        Runtime.getRuntime().addShutdownHook(new Thread(newAuditLog::close, "hotel-booking-audit-shutdown"));
+        defaultAuditLog = newAuditLog;
+      }
+
+      return defaultAuditLog;
+    }
+  }
+
+  public void publish(Logger logger, AuditEventType type, String message) {
+    publish(logger, type, message, null, AuditEvent.NO_ROOM, null, null, AuditEvent.NO_COUNT);
+  }
+
+  public void publish(Logger logger, AuditEventType type, User user) {
+    publish(logger, type, null, user == null ? null : user.getName(), AuditEvent.NO_ROOM, null, null, AuditEvent.NO_COUNT);
+  }
+
+  public void publish(Logger logger, AuditEventType type, LocalDate date) {
+    publish(logger, type, null, null, AuditEvent.NO_ROOM, date, null, AuditEvent.NO_COUNT);
+  }
+
+  public void publish(Logger logger, AuditEventType type, User user, LocalDate date) {
+    publish(logger, type, null, user == null ? null : user.getName(), AuditEvent.NO_ROOM, date, null, AuditEvent.NO_COUNT);
+  }
+
+  public void publish(Logger logger, AuditEventType type, LocalDate date, LocalDate endDate) {
+    publish(logger, type, null, null, AuditEvent.NO_ROOM, date, endDate, AuditEvent.NO_COUNT);
+  }
+
+  public void publish(Logger logger, AuditEventType type, int count) {
+    publish(logger, type, null, null, AuditEvent.NO_ROOM, null, null, count);
+  }
+
+  public void publish(Logger logger, AuditEventType type, Booking booking) {
+    publish(logger, type, booking, null);
+  }
+
+  public void publish(Logger logger, AuditEventType type, Booking booking, LocalDate endDate) {
+    publish(
+        logger, type, null,
+        booking.getUser().getName(),
+        booking.getBookingRoom().getRoom().getRoomNumber(),
+        booking.getBookingRoom().getBookingDate(),
+        endDate,
+        AuditEvent.NO_COUNT
+    );
+  }
+
+  /**
+   * This method waits until the events published so far are written, or the writer is stopped.
+   */
+  public void flush() {
+    long publishedSequence = nextSequence.get() & ~CLOSED;
+    while (writer.isAlive() && consumedSequence < publishedSequence) {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  public long getDroppedEvents() {
+    return droppedEvents.sum();
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public int getCapacity() {
+    return ring.length;
+  }
+
+  /**
+   * This method writes the events which are already claimed, then stops the writer thread.
+   * Events published after closing are dropped.
+   */
+  @Override
+  public void close() {
+    long sequence;
+    do {
+      sequence = nextSequence.get();
+    } while ((sequence & CLOSED) == 0 && !nextSequence.compareAndSet(sequence, sequence | CLOSED));
+    LockSupport.unpark(writer);
+
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void publish(
+      Logger logger, AuditEventType type, String message,
+      String userName, int roomNumber, LocalDate date, LocalDate endDate, int count
+  ) {
+    long sequence = overflowPolicy == OverflowPolicy.DROP ? tryClaim() : claim();
+    if (sequence < 0) {
+      droppedEvents.increment();
+      return;
+    }
+
+    AuditEvent event = ring[(int) sequence & mask];
+    event.logger = logger;
+    event.type = type;
+    event.timestamp = System.currentTimeMillis();
+    event.message = message;
+    event.userName = userName;
+    event.roomNumber = roomNumber;
+    event.date = date;
+    event.endDate = endDate;
+    event.count = count;
+    event.sequence = sequence;
+
+    // Read after the sequence is written, the writer reads them the other way round, so one of both sees the other.
+    if (writerParked) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  private long tryClaim() {
+    long sequence;
+
+    do {
+      sequence = nextSequence.get();
+      if ((sequence & CLOSED) != 0 || sequence - ring.length >= consumedSequence) {
+        return -1L;
+      }
+    } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+
+    return sequence;
+  }
+
+  /**
+   * This method claims the next slot, then waits for the writer to free it. A claimed slot is always filled,
+   * the writer of a closed log keeps going until every slot claimed before closing is written.
+   */
+  private long claim() {
+    long sequence;
+
+    do {
+      sequence = nextSequence.get();
+      if ((sequence & CLOSED) != 0) {
+        return -1L;
+      }
+    } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+
+    while (sequence - ring.length >= consumedSequence) {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+
+    return sequence;
+  }
+
+  private void drain() {
+    long sequence = consumedSequence;
+
+    while (true) {
+      AuditEvent event = ring[(int) sequence & mask];
+
+      if (event.sequence == sequence) {
+        try {
+          sink.write(event);
+        } catch (RuntimeException e) {
+          // A broken sink must not stop the writer, the event is skipped.
+        }
+
+        event.clear();
+        consumedSequence = ++sequence;
+        continue;
+      }
+
+      long claimedSequence = nextSequence.get();
+      if ((claimedSequence & CLOSED) != 0 && sequence >= (claimedSequence & ~CLOSED)) {
+        return;
+      }
+
+      writerParked = true;
+      if (event.sequence != sequence && (nextSequence.get() & CLOSED) == 0) {
+        LockSupport.park(this);
+      }
+      writerParked = false;
+    }
+  }
+
+  public static final class Builder {
+    private int capacity = DEFAULT_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private AuditSink sink = new LoggerAuditSink();
+
+    /**
+     * @param capacity The number of slots of the ring buffer, rounded up to a power of two
+     */
+    public Builder withCapacity(int capacity) {
+      if (capacity <= 0 || capacity > (1 << 30)) {
+        throw new IllegalArgumentException("Invalid capacity.");
+      }
+
+      this.capacity = Integer.highestOneBit(capacity * 2 - 1);
+      return this;
+    }
+
+    public Builder withOverflowPolicy(OverflowPolicy overflowPolicy) {
+      if (overflowPolicy == null) {
+        throw new NullPointerException("Overflow policy is required.");
+      }
+
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    public Builder withSink(AuditSink sink) {
+      if (sink == null) {
+        throw new NullPointerException("Sink is required.");
+      }
+
+      this.sink = sink;
+      return this;
+    }
+
+    public AuditLog build() {
+      return new AuditLog(this);
+    }
+  }
+
+}
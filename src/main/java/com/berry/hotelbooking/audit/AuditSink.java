@@ -0,0 +1,12 @@
+package com.berry.hotelbooking.audit;
+
+public interface AuditSink {
+
+  /**
+   * This method is only invoked by the writer thread of an audit log, one event at a time.
+   * The event is reused once this method returns, so it must not be kept.
+   * @param event The event to write
+   */
+  void write(AuditEvent event);
+
+}
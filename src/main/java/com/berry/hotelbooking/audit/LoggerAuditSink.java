@@ -0,0 +1,25 @@
+package com.berry.hotelbooking.audit;
+
+import java.util.logging.Logger;
+
+/**
+ * Writes events into the logger they were published for, at the level of their type.
+ */
+public class LoggerAuditSink implements AuditSink {
+
+  private static final Logger DEFAULT_LOGGER = Logger.getLogger(AuditLog.class.getName());
+
+  private final StringBuilder builder = new StringBuilder(128);
+
+  @Override
+  public void write(AuditEvent event) {
+    Logger logger = event.getLogger() != null ? event.getLogger() : DEFAULT_LOGGER;
+    if (!logger.isLoggable(event.getType().getLevel())) {
+      return;
+    }
+
+    builder.setLength(0);
+    logger.log(event.getType().getLevel(), event.appendTo(builder).toString());
+  }
+
+}
@@ -0,0 +1,15 @@
+package com.berry.hotelbooking.audit;
+
+public enum OverflowPolicy {
+
+  /**
+   * The event is dropped and counted when the ring buffer is full, the caller never waits.
+   */
+  DROP,
+
+  /**
+   * The caller waits for the writer to free a slot when the ring buffer is full, no event is lost.
+   */
+  BLOCK
+
+}
@@ -0,0 +1,191 @@
+package com.berry.hotelbooking.cache;
+
+import com.berry.hotelbooking.index.OccupancyIndex;
+import com.berry.hotelbooking.model.Room;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A read-through cache of the available rooms per date, in front of an {@link OccupancyIndex}.
+ * Each result is stamped with the version of its date, and a lookup only returns a result whose stamp
+ * still matches, so a booking or a release invalidates exactly its own date and nothing stale is served.
+ * The dates are split over segments, each evicting its least recently used date once full.
+ */
+public class AvailabilityCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+  private static final int SEGMENT_COUNT = 16;
+
+  private final OccupancyIndex occupancyIndex;
+  private final Segment[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private AvailabilityCache(Builder builder) {
+    this.occupancyIndex = builder.occupancyIndex;
+
+    int segmentCount = Math.min(SEGMENT_COUNT, builder.maximumSize);
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      int capacity = builder.maximumSize / segmentCount + (i < builder.maximumSize % segmentCount ? 1 : 0);
+      segments[i] = new Segment(capacity, evictions);
+    }
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method returns the available rooms of a date, from the cache while the date hasn't changed.
+   * A missed result is only cached if the date didn't change while it was read.
+   * @param bookingDate The giving date
+   * @return The available rooms, an immutable set shared by the callers
+   */
+  public Set<Room> findAvailableRooms(LocalDate bookingDate) {
+    long version = occupancyIndex.versionOf(bookingDate);
+    Segment segment = segmentFor(bookingDate);
+
+    Entry entry;
+    synchronized (segment) {
+      entry = segment.get(bookingDate);
+    }
+    if (entry != null && entry.version == version) {
+      hits.increment();
+      return entry.rooms;
+    }
+
+    misses.increment();
+    Set<Room> rooms = occupancyIndex.findAvailableRooms(bookingDate);
+    if (occupancyIndex.versionOf(bookingDate) == version) {
+      synchronized (segment) {
+        segment.put(bookingDate, new Entry(version, rooms));
+      }
+    }
+
+    return rooms;
+  }
+
+  /**
+   * This method forgets the dates before a giving date, e.g. once their occupancy is dropped from the index.
+   * @param date The first date to keep
+   */
+  public void removeBefore(LocalDate date) {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        Iterator<LocalDate> iterator = segment.keySet().iterator();
+        while (iterator.hasNext()) {
+          if (iterator.next().isBefore(date)) {
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return The number of cached dates
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  private Segment segmentFor(LocalDate bookingDate) {
+    long epochDay = bookingDate.toEpochDay();
+    return segments[(int) Math.floorMod(epochDay ^ (epochDay >>> 16), (long) segments.length)];
+  }
+
+  private static final class Entry {
+    private final long version;
+    private final Set<Room> rooms;
+
+    private Entry(long version, Set<Room> rooms) {
+      this.version = version;
+      this.rooms = rooms;
+    }
+  }
+
+  /**
+   * The dates of one segment in access order, guarded by the segment itself.
+   */
+  private static final class Segment extends LinkedHashMap<LocalDate, Entry> {
+    private static final long serialVersionUID = 1L;
+    private final int capacity;
+    private final LongAdder evictions;
+
+    private Segment(int capacity, LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<LocalDate, Entry> eldest) {
+      if (size() <= capacity) {
+        return false;
+      }
+
+      evictions.increment();
+      return true;
+    }
+  }
+
+  public static final class Builder {
+    private OccupancyIndex occupancyIndex;
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    public Builder withOccupancyIndex(OccupancyIndex occupancyIndex) {
+      if (occupancyIndex == null) {
+        throw new NullPointerException("Occupancy index is required.");
+      }
+
+      this.occupancyIndex = occupancyIndex;
+      return this;
+    }
+
+    /**
+     * @param maximumSize The maximum number of cached dates
+     */
+    public Builder withMaximumSize(int maximumSize) {
+      if (maximumSize <= 0) {
+        throw new IllegalArgumentException("Invalid maximum size.");
+      }
+
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    public AvailabilityCache build() {
+      if (occupancyIndex == null) {
+        throw new NullPointerException("Occupancy index is required.");
+      }
+
+      return new AvailabilityCache(this);
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.berry.hotelbooking.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * What a compaction of past bookings removed, and an estimate of the memory it gave back.
+ */
+public class CompactionReport {
+
+  private final LocalDate beforeDate;
+  private final int removedBookings;
+  private final int removedDates;
+  private final long reclaimedBytes;
+
+  public CompactionReport(Builder builder) {
+    this.beforeDate = builder.beforeDate;
+    this.removedBookings = builder.removedBookings;
+    this.removedDates = builder.removedDates;
+    this.reclaimedBytes = builder.reclaimedBytes;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The first date which was kept
+   */
+  public LocalDate getBeforeDate() {
+    return beforeDate;
+  }
+
+  public int getRemovedBookings() {
+    return removedBookings;
+  }
+
+  /**
+   * @return The number of dates whose occupancy was dropped
+   */
+  public int getRemovedDates() {
+    return removedDates;
+  }
+
+  /**
+   * @return An estimate of the heap given back by the booking store and the indexes, in bytes
+   */
+  public long getReclaimedBytes() {
+    return reclaimedBytes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CompactionReport that = (CompactionReport) o;
+    return removedBookings == that.removedBookings
+        && removedDates == that.removedDates
+        && reclaimedBytes == that.reclaimedBytes
+        && beforeDate.equals(that.beforeDate);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(beforeDate, removedBookings, removedDates, reclaimedBytes);
+  }
+
+  @Override
+  public String toString() {
+    return "CompactionReport{" +
+        "beforeDate=" + beforeDate +
+        ", removedBookings=" + removedBookings +
+        ", removedDates=" + removedDates +
+        ", reclaimedBytes=" + reclaimedBytes +
+        '}';
+  }
+
+  public static final class Builder {
+    private LocalDate beforeDate;
+    private int removedBookings;
+    private int removedDates;
+    private long reclaimedBytes;
+
+    public Builder withBeforeDate(LocalDate beforeDate) {
+      if (beforeDate == null) {
+        throw new NullPointerException("Before date is required.");
+      }
+
+      this.beforeDate = beforeDate;
+      return this;
+    }
+
+    public Builder withRemovedBookings(int removedBookings) {
+      if (removedBookings < 0) {
+        throw new IllegalArgumentException("Invalid removed bookings.");
+      }
+
+      this.removedBookings = removedBookings;
+      return this;
+    }
+
+    public Builder withRemovedDates(int removedDates) {
+      if (removedDates < 0) {
+        throw new IllegalArgumentException("Invalid removed dates.");
+      }
+
+      this.removedDates = removedDates;
+      return this;
+    }
+
+    public Builder withReclaimedBytes(long reclaimedBytes) {
+      if (reclaimedBytes < 0) {
+        throw new IllegalArgumentException("Invalid reclaimed bytes.");
+      }
+
+      this.reclaimedBytes = reclaimedBytes;
+      return this;
+    }
+
+    public CompactionReport build() {
+      if (beforeDate == null) {
+        throw new NullPointerException("Before date is required.");
+      }
+
+      return new CompactionReport(this);
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.berry.hotelbooking.dto;
+
+import java.util.Collections;
+
+/**
+ * The reasons a request can be rejected for. Each code holds its response, built once and never changed,
+ * so rejecting a request doesn't allocate anything.
+ */
+public enum HotelErrorCode {
+
+  INVALID_HOTEL(1, "Invalid hotel."),
+  BOOKING_REQUIRED(2, "Booking info is required."),
+  INVALID_USER(3, "Please give a valid user."),
+  INVALID_EXISTED_ROOMS(4, "Invalid existed rooms."),
+  INVALID_ROOM(5, "Please give a valid room."),
+  INVALID_BOOKING_DATE(6, "Please give a valid booking date."),
+  INVALID_CHECK_OUT_DATE(7, "Please give a valid check-out date."),
+  ROOM_UNAVAILABLE(8, "There's no available room at this time."),
+  RESERVATION_LOST_RACE(9, "Oops. Please try again."),
+  PERSISTENCE_FAILED(10, "Unable to save the booking. Please try again."),
+  BOOKING_NOT_FOUND(11, "There's no such booking."),
+  INVALID_HOLD_DURATION(12, "Please give a valid hold duration."),
+  HOLD_NOT_FOUND(13, "There's no such hold, it may have expired."),
+  SERVICE_BUSY(14, "The service is busy. Please try again."),
+  INVALID_PAGE(15, "Please give a valid page size and page token."),
+  INVALID_ROOM_CRITERIA(16, "Please give valid room criteria."),
+  WAITLIST_FULL(17, "The waitlist of this room is full."),
+  NOT_WAITLISTED(18, "You're not on the waitlist of this room."),
+  INVALID_CALENDAR_RANGE(19, "Please give a valid calendar range.");
+
+  private final int code;
+  private final String message;
+  private final GenericResponse<?> response;
+
+  HotelErrorCode(int code, String message) {
+    this.code = code;
+    this.message = message;
+    this.response = GenericResponse.NewBuilder()
+        .setSuccess(false)
+        .setErrors(Collections.singletonList(HotelError.NewBuilder().withMessage(message).build()))
+        .build();
+  }
+
+  public int getCode() {
+    return code;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * @param <T> The data type expected by the caller, a failed response never has data
+   * @return The shared failed response of this code
+   */
+  @SuppressWarnings("unchecked")
+  public <T> GenericResponse<T> getResponse() {
+    return (GenericResponse<T>) response;
+  }
+
+}
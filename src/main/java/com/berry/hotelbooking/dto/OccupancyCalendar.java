@@ -0,0 +1,146 @@
+package com.berry.hotelbooking.dto;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The number of booked rooms for each day of a range of dates.
+ */
+public class OccupancyCalendar {
+
+  private final LocalDate fromDate;
+  private final int totalRooms;
+  private final int[] bookedRooms;
+
+  public OccupancyCalendar(Builder builder) {
+    this.fromDate = builder.fromDate;
+    this.totalRooms = builder.totalRooms;
+    this.bookedRooms = builder.bookedRooms;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  public LocalDate getFromDate() {
+    return fromDate;
+  }
+
+  /**
+   * @return The date after the last day of the calendar
+   */
+  public LocalDate getToDate() {
+    return fromDate.plusDays(bookedRooms.length);
+  }
+
+  public int getTotalRooms() {
+    return totalRooms;
+  }
+
+  /**
+   * @return The number of days of the calendar
+   */
+  public int size() {
+    return bookedRooms.length;
+  }
+
+  /**
+   * @param dayIndex The index of the day, 0 for the first day
+   * @return The number of booked rooms in that day
+   */
+  public int getBookedRooms(int dayIndex) {
+    return bookedRooms[dayIndex];
+  }
+
+  /**
+   * @param date A date of the calendar
+   * @return The number of booked rooms in that date
+   * @throws IndexOutOfBoundsException if the date is outside of the calendar
+   */
+  public int getBookedRooms(LocalDate date) {
+    long dayIndex = date.toEpochDay() - fromDate.toEpochDay();
+    if (dayIndex < 0 || dayIndex >= bookedRooms.length) {
+      throw new IndexOutOfBoundsException("Date is outside of the calendar: " + date);
+    }
+
+    return bookedRooms[(int) dayIndex];
+  }
+
+  /**
+   * @param dayIndex The index of the day, 0 for the first day
+   * @return The number of available rooms in that day
+   */
+  public int getAvailableRooms(int dayIndex) {
+    return totalRooms - bookedRooms[dayIndex];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    OccupancyCalendar that = (OccupancyCalendar) o;
+    return totalRooms == that.totalRooms
+        && fromDate.equals(that.fromDate)
+        && Arrays.equals(bookedRooms, that.bookedRooms);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hash(fromDate, totalRooms) + Arrays.hashCode(bookedRooms);
+  }
+
+  @Override
+  public String toString() {
+    return "OccupancyCalendar{" +
+        "fromDate=" + fromDate +
+        ", totalRooms=" + totalRooms +
+        ", bookedRooms=" + Arrays.toString(bookedRooms) +
+        '}';
+  }
+
+  public static final class Builder {
+    private LocalDate fromDate;
+    private int totalRooms;
+    private int[] bookedRooms;
+
+    public Builder withFromDate(LocalDate fromDate) {
+      if (fromDate == null) {
+        throw new NullPointerException("From date is required.");
+      }
+
+      this.fromDate = fromDate;
+      return this;
+    }
+
+    public Builder withTotalRooms(int totalRooms) {
+      if (totalRooms < 0) {
+        throw new IllegalArgumentException("Invalid total rooms.");
+      }
+
+      this.totalRooms = totalRooms;
+      return this;
+    }
+
+    /**
+     * @param bookedRooms The number of booked rooms per day, owned by the calendar afterwards
+     */
+    public Builder withBookedRooms(int[] bookedRooms) {
+      if (bookedRooms == null) {
+        throw new NullPointerException("Booked rooms are required.");
+      }
+
+      this.bookedRooms = bookedRooms;
+      return this;
+    }
+
+    public OccupancyCalendar build() {
+      if (fromDate == null || bookedRooms == null) {
+        throw new NullPointerException("From date and booked rooms are required.");
+      }
+
+      return new OccupancyCalendar(this);
+    }
+  }
+
+}
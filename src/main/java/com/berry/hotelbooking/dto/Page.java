@@ -0,0 +1,91 @@
+package com.berry.hotelbooking.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of a result, with the token to resume from for the next page.
+ * @param <T> The type of the items
+ */
+public class Page<T> {
+
+  private final List<T> items;
+  private final String nextPageToken;
+
+  public Page(Builder<T> builder) {
+    this.items = Collections.unmodifiableList(builder.items);
+    this.nextPageToken = builder.nextPageToken;
+  }
+
+  public static <T> Builder<T> NewBuilder() {
+    return new Builder<>();
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * @return The token giving the next page, or null if this is the last one
+   */
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNextPage() {
+    return nextPageToken != null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Page<?> page = (Page<?>) o;
+    return items.equals(page.items) && Objects.equals(nextPageToken, page.nextPageToken);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(items, nextPageToken);
+  }
+
+  @Override
+  public String toString() {
+    return "Page{" +
+        "items=" + items +
+        ", nextPageToken='" + nextPageToken + '\'' +
+        '}';
+  }
+
+  public static final class Builder<T> {
+    private List<T> items;
+    private String nextPageToken;
+
+    /**
+     * @param items The items of the page, owned by the page afterwards
+     */
+    public Builder<T> withItems(List<T> items) {
+      if (items == null) {
+        throw new NullPointerException("Items are required.");
+      }
+
+      this.items = items;
+      return this;
+    }
+
+    public Builder<T> withNextPageToken(String nextPageToken) {
+      this.nextPageToken = nextPageToken;
+      return this;
+    }
+
+    public Page<T> build() {
+      if (items == null) {
+        throw new NullPointerException("Items are required.");
+      }
+
+      return new Page<>(this);
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package com.berry.hotelbooking.dto;
+
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+
+import java.util.Objects;
+
+/**
+ * The attributes a searched room must have. An attribute which isn't given matches any room.
+ */
+public class RoomCriteria {
+
+  public static final int ANY_FLOOR = -1;
+
+  private final RoomType roomType;
+  private final int minimumCapacity;
+  private final int floor;
+
+  public RoomCriteria(Builder builder) {
+    this.roomType = builder.roomType;
+    this.minimumCapacity = builder.minimumCapacity;
+    this.floor = builder.floor;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The type of the room, or null for any type
+   */
+  public RoomType getRoomType() {
+    return roomType;
+  }
+
+  /**
+   * @return The number of guests the room must sleep at least, 0 for any capacity
+   */
+  public int getMinimumCapacity() {
+    return minimumCapacity;
+  }
+
+  /**
+   * @return The floor of the room, or {@link #ANY_FLOOR}
+   */
+  public int getFloor() {
+    return floor;
+  }
+
+  /**
+   * This method checks a room one attribute at a time, e.g. for a room outside of any index.
+   * @param room The room
+   * @return true if the room has every given attribute
+   */
+  public boolean matches(Room room) {
+    return (roomType == null || room.getRoomType() == roomType)
+        && room.getCapacity() >= minimumCapacity
+        && (floor == ANY_FLOOR || room.getFloor() == floor);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RoomCriteria that = (RoomCriteria) o;
+    return minimumCapacity == that.minimumCapacity && floor == that.floor && roomType == that.roomType;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(roomType, minimumCapacity, floor);
+  }
+
+  @Override
+  public String toString() {
+    return "RoomCriteria{" +
+        "roomType=" + roomType +
+        ", minimumCapacity=" + minimumCapacity +
+        ", floor=" + floor +
+        '}';
+  }
+
+  public static final class Builder {
+    private RoomType roomType;
+    private int minimumCapacity;
+    private int floor = ANY_FLOOR;
+
+    public Builder withRoomType(RoomType roomType) {
+      if (roomType == null) {
+        throw new NullPointerException("Room type is required.");
+      }
+
+      this.roomType = roomType;
+      return this;
+    }
+
+    public Builder withMinimumCapacity(int minimumCapacity) {
+      if (minimumCapacity <= 0) {
+        throw new IllegalArgumentException("Invalid minimum capacity.");
+      }
+
+      this.minimumCapacity = minimumCapacity;
+      return this;
+    }
+
+    public Builder withFloor(int floor) {
+      if (floor < 0) {
+        throw new IllegalArgumentException("Invalid floor.");
+      }
+
+      this.floor = floor;
+      return this;
+    }
+
+    public RoomCriteria build() {
+      return new RoomCriteria(this);
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+package com.berry.hotelbooking.dto;
+
+import com.berry.hotelbooking.model.Booking;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A room and date claimed for a user until a deadline, then either confirmed as a booking or released.
+ */
+public class RoomHold {
+
+  private final Booking booking;
+  private final Instant expiresAt;
+
+  public RoomHold(Builder builder) {
+    this.booking = builder.booking;
+    this.expiresAt = builder.expiresAt;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  public Booking getBooking() {
+    return booking;
+  }
+
+  /**
+   * @return The time after which the hold is released, unless it's confirmed before
+   */
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RoomHold roomHold = (RoomHold) o;
+    return booking.getUser().equals(roomHold.booking.getUser())
+        && booking.getBookingRoom().equals(roomHold.booking.getBookingRoom())
+        && expiresAt.equals(roomHold.expiresAt);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(booking.getUser(), booking.getBookingRoom(), expiresAt);
+  }
+
+  @Override
+  public String toString() {
+    return "RoomHold{" +
+        "user=" + booking.getUser() +
+        ", bookingRoom=" + booking.getBookingRoom() +
+        ", expiresAt=" + expiresAt +
+        '}';
+  }
+
+  public static final class Builder {
+    private Booking booking;
+    private Instant expiresAt;
+
+    public Builder withBooking(Booking booking) {
+      if (booking == null) {
+        throw new NullPointerException("Booking is required.");
+      }
+
+      this.booking = booking;
+      return this;
+    }
+
+    public Builder withExpiresAt(Instant expiresAt) {
+      if (expiresAt == null) {
+        throw new NullPointerException("Expiry time is required.");
+      }
+
+      this.expiresAt = expiresAt;
+      return this;
+    }
+
+    public RoomHold build() {
+      if (booking == null || expiresAt == null) {
+        throw new NullPointerException("Booking and expiry time are required.");
+      }
+
+      return new RoomHold(this);
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.berry.hotelbooking.index;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The booked rooms of one date as a bitset indexed by room ordinal, with a counter of the set bits
+ * which is only touched by the call that actually flips a bit.
+ * The rooms left by type are counted down the other way: a booking takes one of them when its bit is set,
+ * unless the room was already reserved out of the count by {@link #reserve(int)}, and gives it back when cleared.
+ * The version is bumped after every flip, so a result computed between two equal reads of it is current.
+ */
+public class DateOccupancy {
+
+  private final AtomicLongArray words;
+  private final LongAdder bookedRooms = new LongAdder();
+  private final AtomicIntegerArray freeRoomsByType;
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * @param wordCount The number of 64-bit words holding one bit per room
+   * @param roomsByType The number of rooms of each type, by ordinal of the type
+   */
+  public DateOccupancy(int wordCount, int[] roomsByType) {
+    this.words = new AtomicLongArray(wordCount);
+    this.freeRoomsByType = new AtomicIntegerArray(roomsByType);
+  }
+
+  /**
+   * This method marks a room as booked, taking one of the rooms left of its type.
+   * @param ordinal The ordinal of the room
+   * @param roomType The ordinal of the type of the room
+   * @return True if the room was free
+   */
+  public boolean set(int ordinal, int roomType) {
+    return set(ordinal, roomType, false);
+  }
+
+  /**
+   * This method marks a room as booked.
+   * @param ordinal The ordinal of the room
+   * @param roomType The ordinal of the type of the room
+   * @param reserved True if the room was reserved out of the rooms left of its type already
+   * @return True if the room was free
+   */
+  public boolean set(int ordinal, int roomType, boolean reserved) {
+    int index = ordinal >>> 6;
+    long mask = 1L << ordinal;
+    long word;
+
+    do {
+      word = words.get(index);
+      if ((word & mask) != 0) {
+        return false;
+      }
+    } while (!words.compareAndSet(index, word, word | mask));
+
+    bookedRooms.increment();
+    if (!reserved) {
+      freeRoomsByType.decrementAndGet(roomType);
+    }
+    version.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * This method marks a room as free.
+   * @param ordinal The ordinal of the room
+   * @param roomType The ordinal of the type of the room
+   * @return True if the room was booked
+   */
+  public boolean clear(int ordinal, int roomType) {
+    int index = ordinal >>> 6;
+    long mask = 1L << ordinal;
+    long word;
+
+    do {
+      word = words.get(index);
+      if ((word & mask) == 0) {
+        return false;
+      }
+    } while (!words.compareAndSet(index, word, word & ~mask));
+
+    bookedRooms.decrement();
+    freeRoomsByType.incrementAndGet(roomType);
+    version.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * This method checks whether a room is booked.
+   * @param ordinal The ordinal of the room
+   * @return True if the room is booked
+   */
+  public boolean get(int ordinal) {
+    return (words.get(ordinal >>> 6) & (1L << ordinal)) != 0;
+  }
+
+  public long word(int index) {
+    return words.get(index);
+  }
+
+  /**
+   * @return The number of booked rooms, without scanning the bitset
+   */
+  public int bookedRooms() {
+    return bookedRooms.intValue();
+  }
+
+  /**
+   * @param roomType The ordinal of the room type
+   * @return The number of rooms of the type neither booked nor reserved, without scanning the bitset.
+   * It may be below zero for a moment, when a room reserved out of the count is booked by someone else
+   */
+  public int freeRooms(int roomType) {
+    return freeRoomsByType.get(roomType);
+  }
+
+  /**
+   * This method takes one of the rooms left of a type before any room is picked, with a compare-and-set
+   * which never goes below zero, so no more callers go looking for a room than there are rooms left.
+   * The reservation is used up by {@link #set(int, int, boolean)}, or given back by {@link #unreserve(int)}.
+   * @param roomType The ordinal of the room type
+   * @return True if a room of the type is reserved
+   */
+  public boolean reserve(int roomType) {
+    int freeRooms;
+    do {
+      freeRooms = freeRoomsByType.get(roomType);
+      if (freeRooms <= 0) {
+        return false;
+      }
+    } while (!freeRoomsByType.compareAndSet(roomType, freeRooms, freeRooms - 1));
+
+    return true;
+  }
+
+  /**
+   * This method gives back a room reserved by {@link #reserve(int)} which isn't booked.
+   * @param roomType The ordinal of the room type
+   */
+  public void unreserve(int roomType) {
+    freeRoomsByType.incrementAndGet(roomType);
+  }
+
+  /**
+   * @return The number of flips so far
+   */
+  public long version() {
+    return version.get();
+  }
+
+  public int wordCount() {
+    return words.length();
+  }
+
+}
@@ -0,0 +1,360 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class OccupancyIndex {
+
+  private static final int ROOM_TYPE_COUNT = RoomType.values().length;
+
+  private final RoomOrdinals roomOrdinals;
+  private final int[] roomTypeByOrdinal;
+  private final int[] roomsByType = new int[ROOM_TYPE_COUNT];
+  private final ConcurrentHashMap<LocalDate, DateOccupancy> occupancyByDate = new ConcurrentHashMap<>();
+
+  public OccupancyIndex(RoomOrdinals roomOrdinals) {
+    this.roomOrdinals = roomOrdinals;
+
+    // The canonical rooms tell the types, a booked room may be built from its number alone.
+    this.roomTypeByOrdinal = new int[roomOrdinals.size()];
+    for (int ordinal = 0; ordinal < roomTypeByOrdinal.length; ordinal++) {
+      roomTypeByOrdinal[ordinal] = roomOrdinals.roomAt(ordinal).getRoomType().ordinal();
+      roomsByType[roomTypeByOrdinal[ordinal]]++;
+    }
+  }
+
+  /**
+   * This method marks the room of a booking as booked in its date.
+   * @param bookingRoom The booked room and date
+   */
+  public void markBooked(BookingRoom bookingRoom) {
+    markBooked(bookingRoom, false);
+  }
+
+  /**
+   * This method marks the room of a booking as booked in its date.
+   * @param bookingRoom The booked room and date
+   * @param reserved True if a room of its type was reserved by {@link #reserveRoomOfType(LocalDate, RoomType)},
+   *                 which is used up by this booking
+   */
+  public void markBooked(BookingRoom bookingRoom, boolean reserved) {
+    int ordinal = roomOrdinals.ordinalOf(bookingRoom.getRoom());
+    if (ordinal < 0) {
+      return;
+    }
+
+    DateOccupancy occupancy = occupancyOf(bookingRoom.getBookingDate());
+    if (!occupancy.set(ordinal, roomTypeByOrdinal[ordinal], reserved) && reserved) {
+      occupancy.unreserve(roomTypeByOrdinal[ordinal]);
+    }
+  }
+
+  /**
+   * This method marks a room as booked in a date from its number alone, e.g. while the bookings
+   * of a recovered store are walked by their packed keys without building a booking room each.
+   * @param roomNumber The booked room number
+   * @param bookingDate The booked date
+   */
+  public void markBooked(int roomNumber, LocalDate bookingDate) {
+    int ordinal = roomOrdinals.ordinalOf(roomNumber);
+    if (ordinal >= 0) {
+      occupancyOf(bookingDate).set(ordinal, roomTypeByOrdinal[ordinal]);
+    }
+  }
+
+  /**
+   * This method marks the room of a booking as free in its date.
+   * @param bookingRoom The released room and date
+   */
+  public void markFree(BookingRoom bookingRoom) {
+    int ordinal = roomOrdinals.ordinalOf(bookingRoom.getRoom());
+    DateOccupancy occupancy = occupancyByDate.get(bookingRoom.getBookingDate());
+    if (ordinal < 0 || occupancy == null) {
+      return;
+    }
+
+    occupancy.clear(ordinal, roomTypeByOrdinal[ordinal]);
+  }
+
+  /**
+   * This method returns the rooms which are not booked in a giving date.
+   * Only the free bits are copied, rooms are resolved lazily from the returned set.
+   * @param bookingDate The giving date
+   * @return The available rooms
+   */
+  public Set<Room> findAvailableRooms(LocalDate bookingDate) {
+    int wordCount = roomOrdinals.wordCount();
+    long[] freeWords = new long[wordCount];
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+
+    for (int i = 0; i < wordCount; i++) {
+      long bookedWord = occupancy == null ? 0L : occupancy.word(i);
+      freeWords[i] = ~bookedWord & validMask(i);
+    }
+
+    return new RoomSet(roomOrdinals, freeWords);
+  }
+
+  /**
+   * This method returns the rooms of a mask which are not booked in a giving date,
+   * e.g. the rooms matching some attributes from a {@link RoomAttributeIndex}.
+   * @param bookingDate The giving date
+   * @param roomMask One bit per room ordinal to keep, as many words as the occupancy bitsets
+   * @return The available rooms of the mask
+   */
+  public Set<Room> findAvailableRooms(LocalDate bookingDate, long[] roomMask) {
+    int wordCount = roomOrdinals.wordCount();
+    long[] freeWords = new long[wordCount];
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+
+    for (int i = 0; i < wordCount; i++) {
+      long bookedWord = occupancy == null ? 0L : occupancy.word(i);
+      freeWords[i] = ~bookedWord & roomMask[i] & validMask(i);
+    }
+
+    return new RoomSet(roomOrdinals, freeWords);
+  }
+
+  /**
+   * This method reads the number of rooms of a type which are neither booked nor reserved in a giving date
+   * from the per-type counters. A counter is moved right after its bit flips, so a room being booked
+   * may still be counted for a moment.
+   * @param bookingDate The giving date
+   * @param roomType The room type
+   * @return The number of available rooms of the type
+   */
+  public int countAvailableRooms(LocalDate bookingDate, RoomType roomType) {
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+    return occupancy == null ? roomsByType[roomType.ordinal()] : Math.max(0, occupancy.freeRooms(roomType.ordinal()));
+  }
+
+  /**
+   * This method reserves one of the rooms of a type left in a giving date, before picking which one.
+   * The reservation is used up by {@link #markBooked(BookingRoom, boolean)}
+   * or given back by {@link #unreserveRoomOfType(LocalDate, RoomType)}.
+   * @param bookingDate The giving date
+   * @param roomType The room type
+   * @return True if a room is reserved, false if no room of the type is left
+   */
+  public boolean reserveRoomOfType(LocalDate bookingDate, RoomType roomType) {
+    return roomsByType[roomType.ordinal()] > 0 && occupancyOf(bookingDate).reserve(roomType.ordinal());
+  }
+
+  /**
+   * This method gives back a room reserved by {@link #reserveRoomOfType(LocalDate, RoomType)} which isn't booked.
+   * @param bookingDate The giving date
+   * @param roomType The room type
+   */
+  public void unreserveRoomOfType(LocalDate bookingDate, RoomType roomType) {
+    occupancyOf(bookingDate).unreserve(roomType.ordinal());
+  }
+
+  /**
+   * This method finds the first room of a mask which is not booked in a giving date, without any allocation.
+   * @param bookingDate The giving date
+   * @param roomMask One bit per room ordinal to look at
+   * @param fromOrdinal The ordinal to start from
+   * @return The ordinal of the room, or -1 if there's no room left from the giving ordinal
+   */
+  public int nextAvailableRoom(LocalDate bookingDate, long[] roomMask, int fromOrdinal) {
+    int wordCount = roomOrdinals.wordCount();
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+
+    for (int i = fromOrdinal >>> 6; i < wordCount; i++) {
+      long bookedWord = occupancy == null ? 0L : occupancy.word(i);
+      long freeWord = ~bookedWord & roomMask[i] & validMask(i);
+      if (i == fromOrdinal >>> 6) {
+        freeWord &= -1L << fromOrdinal;
+      }
+
+      if (freeWord != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(freeWord);
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * This method finds the room of a mask which is not booked in a giving date and whose ordinal is the nearest
+   * to a giving one, the lower ordinal winning a tie. Only the atomic words are read, without any allocation.
+   * @param bookingDate The giving date
+   * @param roomMask One bit per room ordinal to look at
+   * @param ordinal The ordinal to search around
+   * @return The ordinal of the room, or -1 if there's no room left in the mask
+   */
+  public int nearestAvailableRoom(LocalDate bookingDate, long[] roomMask, int ordinal) {
+    int next = nextAvailableRoom(bookingDate, roomMask, ordinal);
+    int previous = previousAvailableRoom(bookingDate, roomMask, ordinal - 1);
+    if (next < 0 || previous < 0) {
+      return Math.max(next, previous);
+    }
+
+    return ordinal - previous <= next - ordinal ? previous : next;
+  }
+
+  /**
+   * This method returns the version of the occupancy of a date. It changes whenever a room of that date
+   * is booked or freed, so a result read between two equal versions is still current.
+   * @param bookingDate The giving date
+   * @return The version, 0 for a date without any booking yet
+   */
+  public long versionOf(LocalDate bookingDate) {
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+    return occupancy == null ? 0L : occupancy.version();
+  }
+
+  /**
+   * This method collects a page of the rooms which are not booked in a giving date, in ordinal order.
+   * Only the words from the giving ordinal are read, nothing is built for the rest of the hotel.
+   * @param bookingDate The giving date
+   * @param fromOrdinal The ordinal to start from, 0 for the first page
+   * @param limit The maximum number of rooms to collect
+   * @param rooms The list receiving the rooms
+   * @return The ordinal to resume from for the next page, or -1 if there's no room left
+   */
+  public int collectAvailableRooms(LocalDate bookingDate, int fromOrdinal, int limit, List<Room> rooms) {
+    int wordCount = roomOrdinals.wordCount();
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+    int collected = 0;
+
+    for (int i = fromOrdinal >>> 6; i < wordCount; i++) {
+      long bookedWord = occupancy == null ? 0L : occupancy.word(i);
+      long freeWord = ~bookedWord & validMask(i);
+      if (i == fromOrdinal >>> 6) {
+        freeWord &= -1L << fromOrdinal;
+      }
+
+      while (freeWord != 0) {
+        int ordinal = (i << 6) + Long.numberOfTrailingZeros(freeWord);
+        if (collected == limit) {
+          return ordinal;
+        }
+
+        rooms.add(roomOrdinals.roomAt(ordinal));
+        collected++;
+        freeWord &= freeWord - 1;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * This method returns the rooms which are not booked in any date of a range.
+   * The booked words of every date are OR-ed into one bitset, no per-date set is built.
+   * @param fromDate The first date, inclusive
+   * @param toDate The last date, exclusive
+   * @return The rooms available for the whole range
+   */
+  public Set<Room> findAvailableRooms(LocalDate fromDate, LocalDate toDate) {
+    int wordCount = roomOrdinals.wordCount();
+    long[] words = new long[wordCount];
+
+    for (LocalDate date = fromDate; date.isBefore(toDate); date = date.plusDays(1)) {
+      DateOccupancy occupancy = occupancyByDate.get(date);
+      if (occupancy == null) {
+        continue;
+      }
+
+      for (int i = 0; i < wordCount; i++) {
+        words[i] |= occupancy.word(i);
+      }
+    }
+
+    for (int i = 0; i < wordCount; i++) {
+      words[i] = ~words[i] & validMask(i);
+    }
+
+    return new RoomSet(roomOrdinals, words);
+  }
+
+  /**
+   * This method reads the number of booked rooms of each date of a range from the per-date counters.
+   * @param fromDate The first date, inclusive
+   * @param toDate The last date, exclusive
+   * @return The number of booked rooms, one per date
+   */
+  public int[] countBookedRooms(LocalDate fromDate, LocalDate toDate) {
+    int[] bookedRooms = new int[(int) (toDate.toEpochDay() - fromDate.toEpochDay())];
+
+    LocalDate date = fromDate;
+    for (int i = 0; i < bookedRooms.length; i++, date = date.plusDays(1)) {
+      DateOccupancy occupancy = occupancyByDate.get(date);
+      bookedRooms[i] = occupancy == null ? 0 : occupancy.bookedRooms();
+    }
+
+    return bookedRooms;
+  }
+
+  /**
+   * This method drops the bitsets of the dates before a giving date once all their rooms are free,
+   * e.g. after their bookings are removed from the booking store.
+   * @param date The first date to keep
+   * @return The number of dropped dates
+   */
+  public int removeBefore(LocalDate date) {
+    int removed = 0;
+
+    for (LocalDate bookingDate : occupancyByDate.keySet()) {
+      if (bookingDate.isBefore(date)
+          && occupancyByDate.computeIfPresent(bookingDate, (key, occupancy) -> occupancy.bookedRooms() == 0 ? null : occupancy) == null) {
+        removed++;
+      }
+    }
+
+    return removed;
+  }
+
+  /**
+   * @return An estimate of the heap used by the bitset of one date, with its map entry and counters
+   */
+  public long bytesPerDate() {
+    return 32 + 24 + 16 + 16 + 16 + (long) roomOrdinals.wordCount() * Long.BYTES
+        + 16 + 16 + (long) ROOM_TYPE_COUNT * Integer.BYTES;
+  }
+
+  public RoomOrdinals getRoomOrdinals() {
+    return roomOrdinals;
+  }
+
+  private DateOccupancy occupancyOf(LocalDate bookingDate) {
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+    if (occupancy != null) {
+      return occupancy;
+    }
+
+    return occupancyByDate.computeIfAbsent(bookingDate, key -> new DateOccupancy(roomOrdinals.wordCount(), roomsByType));
+  }
+
+  private int previousAvailableRoom(LocalDate bookingDate, long[] roomMask, int ordinal) {
+    DateOccupancy occupancy = occupancyByDate.get(bookingDate);
+    int fromOrdinal = Math.min(ordinal, roomOrdinals.size() - 1);
+
+    for (int i = fromOrdinal >> 6; i >= 0; i--) {
+      long bookedWord = occupancy == null ? 0L : occupancy.word(i);
+      long freeWord = ~bookedWord & roomMask[i] & validMask(i);
+      if (i == fromOrdinal >>> 6) {
+        freeWord &= -1L >>> (63 - (fromOrdinal & 63));
+      }
+
+      if (freeWord != 0) {
+        return (i << 6) + 63 - Long.numberOfLeadingZeros(freeWord);
+      }
+    }
+
+    return -1;
+  }
+
+  private long validMask(int wordIndex) {
+    int remainingRooms = roomOrdinals.size() - (wordIndex << 6);
+    return remainingRooms >= 64 ? -1L : (1L << remainingRooms) - 1;
+  }
+
+}
@@ -0,0 +1,103 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.dto.RoomCriteria;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One bitmap per room attribute value, indexed by room ordinal like the occupancy bitsets.
+ * Rooms never change, so the bitmaps are built once and read without any lock.
+ */
+public class RoomAttributeIndex {
+
+  private final RoomOrdinals roomOrdinals;
+  private final long[][] roomsByType = new long[RoomType.values().length][];
+  private final int[] capacities;
+  private final long[][] roomsByMinimumCapacity;
+  private final Map<Integer, long[]> roomsByFloor = new HashMap<>();
+
+  public RoomAttributeIndex(RoomOrdinals roomOrdinals) {
+    this.roomOrdinals = roomOrdinals;
+    int wordCount = roomOrdinals.wordCount();
+
+    for (int i = 0; i < roomsByType.length; i++) {
+      roomsByType[i] = new long[wordCount];
+    }
+
+    int[] roomCapacities = new int[roomOrdinals.size()];
+    for (int ordinal = 0; ordinal < roomOrdinals.size(); ordinal++) {
+      Room room = roomOrdinals.roomAt(ordinal);
+      roomsByType[room.getRoomType().ordinal()][ordinal >>> 6] |= 1L << ordinal;
+      roomsByFloor.computeIfAbsent(room.getFloor(), key -> new long[wordCount])[ordinal >>> 6] |= 1L << ordinal;
+      roomCapacities[ordinal] = room.getCapacity();
+    }
+
+    // The rooms sleeping at least the k-th smallest capacity, so a minimum capacity is one lookup.
+    this.capacities = Arrays.stream(roomCapacities).distinct().sorted().toArray();
+    this.roomsByMinimumCapacity = new long[capacities.length][wordCount];
+    for (int ordinal = 0; ordinal < roomCapacities.length; ordinal++) {
+      int last = Arrays.binarySearch(capacities, roomCapacities[ordinal]);
+      for (int k = 0; k <= last; k++) {
+        roomsByMinimumCapacity[k][ordinal >>> 6] |= 1L << ordinal;
+      }
+    }
+  }
+
+  /**
+   * This method intersects the bitmaps of the given attributes.
+   * @param roomCriteria The criteria
+   * @return One bit per matching room ordinal, a new array the caller may change
+   */
+  public long[] findMatchingRooms(RoomCriteria roomCriteria) {
+    int wordCount = roomOrdinals.wordCount();
+    long[] words = new long[wordCount];
+    for (int i = 0; i < wordCount; i++) {
+      int remainingRooms = roomOrdinals.size() - (i << 6);
+      words[i] = remainingRooms >= 64 ? -1L : (1L << remainingRooms) - 1;
+    }
+
+    if (roomCriteria.getRoomType() != null) {
+      and(words, roomsByType[roomCriteria.getRoomType().ordinal()]);
+    }
+
+    if (roomCriteria.getMinimumCapacity() > 0) {
+      int k = Arrays.binarySearch(capacities, roomCriteria.getMinimumCapacity());
+      if (k < 0) {
+        k = -k - 1;
+      }
+      if (k == capacities.length) {
+        return new long[wordCount];
+      }
+      and(words, roomsByMinimumCapacity[k]);
+    }
+
+    if (roomCriteria.getFloor() != RoomCriteria.ANY_FLOOR) {
+      long[] roomsOfFloor = roomsByFloor.get(roomCriteria.getFloor());
+      if (roomsOfFloor == null) {
+        return new long[wordCount];
+      }
+      and(words, roomsOfFloor);
+    }
+
+    return words;
+  }
+
+  /**
+   * @param roomType The room type
+   * @return One bit per room ordinal of the type, shared by every caller so it must not be changed
+   */
+  public long[] roomsOfType(RoomType roomType) {
+    return roomsByType[roomType.ordinal()];
+  }
+
+  private static void and(long[] words, long[] mask) {
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= mask[i];
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.Room;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+public class RoomOrdinals {
+
+  private final Room[] rooms;
+  private final int[] roomNumbers;
+
+  /**
+   * The ordinal of a room is its position among the rooms sorted by room number.
+   * @param rooms The rooms of the hotel
+   */
+  public RoomOrdinals(Set<Room> rooms) {
+    this.rooms = rooms.toArray(new Room[0]);
+    Arrays.sort(this.rooms, Comparator.comparingInt(Room::getRoomNumber));
+
+    this.roomNumbers = new int[this.rooms.length];
+    for (int i = 0; i < this.rooms.length; i++) {
+      this.roomNumbers[i] = this.rooms[i].getRoomNumber();
+    }
+  }
+
+  /**
+   * This method finds the ordinal of a room without any allocation.
+   * @param room The room
+   * @return The ordinal of the room, or -1 if the room doesn't belong to the hotel
+   */
+  public int ordinalOf(Room room) {
+    if (room == null) {
+      return -1;
+    }
+
+    return ordinalOf(room.getRoomNumber());
+  }
+
+  public int ordinalOf(int roomNumber) {
+    int ordinal = Arrays.binarySearch(roomNumbers, roomNumber);
+    return ordinal < 0 ? -1 : ordinal;
+  }
+
+  /**
+   * This method returns the canonical room instance of an ordinal.
+   * @param ordinal The ordinal
+   * @return The room of the hotel
+   */
+  public Room roomAt(int ordinal) {
+    return rooms[ordinal];
+  }
+
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * This method returns the number of 64-bit words needed to hold one bit per room.
+   * @return The number of words
+   */
+  public int wordCount() {
+    return (rooms.length + 63) >>> 6;
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.Room;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of rooms backed by one bit per room ordinal.
+ * The canonical rooms are only looked up while iterating.
+ */
+public class RoomSet extends AbstractSet<Room> {
+
+  private final RoomOrdinals roomOrdinals;
+  private final long[] words;
+  private final int size;
+
+  public RoomSet(RoomOrdinals roomOrdinals, long[] words) {
+    this.roomOrdinals = roomOrdinals;
+    this.words = words;
+
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    this.size = count;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof Room)) {
+      return false;
+    }
+
+    int ordinal = roomOrdinals.ordinalOf((Room) o);
+    return ordinal >= 0 && (words[ordinal >>> 6] & (1L << ordinal)) != 0;
+  }
+
+  @Override
+  public Iterator<Room> iterator() {
+    return new Iterator<Room>() {
+      private int index = 0;
+      private long word = words.length > 0 ? words[0] : 0L;
+
+      @Override
+      public boolean hasNext() {
+        while (word == 0 && index < words.length - 1) {
+          word = words[++index];
+        }
+
+        return word != 0;
+      }
+
+      @Override
+      public Room next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        int ordinal = (index << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+        return roomOrdinals.roomAt(ordinal);
+      }
+    };
+  }
+
+}
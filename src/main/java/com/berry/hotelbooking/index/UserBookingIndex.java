@@ -0,0 +1,217 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The bookings of each user, by date then room. An index of bookings which already exist, e.g. recovered ones,
+ * is created loading: it's filled by {@link #load(Consumer)} off the caller's thread while bookings keep changing,
+ * and the searches wait for it. Changes made meanwhile are queued in the order the booking store made them
+ * and replayed once the walk is over, so whatever the walk saw of a booking, the latest change wins.
+ */
+public class UserBookingIndex {
+
+  /**
+   * A node of a user's skip list and its share of index nodes, the booking room itself is shared with the store.
+   */
+  public static final int ESTIMATED_BYTES_PER_BOOKING = 24 + 16;
+
+  private final ConcurrentHashMap<User, NavigableSet<BookingRoom>> bookingsByUser = new ConcurrentHashMap<>();
+  private final ReentrantReadWriteLock loadLock = new ReentrantReadWriteLock();
+  private final Queue<PendingChange> pendingChanges = new ConcurrentLinkedQueue<>();
+  private final CountDownLatch loaded = new CountDownLatch(1);
+  private volatile boolean loading;
+
+  public UserBookingIndex() {
+    this(false);
+  }
+
+  /**
+   * @param loading True to queue the changes until {@link #load(Consumer)} is over, false for an empty index ready to use
+   */
+  public UserBookingIndex(boolean loading) {
+    this.loading = loading;
+    if (!loading) {
+      loaded.countDown();
+    }
+  }
+
+  /**
+   * This method fills a loading index with the existing bookings, then replays the changes queued meanwhile.
+   * The searches are answered once it returns, even if the walk fails.
+   * @param bookings The walk of the existing bookings, e.g. {@code bookingStore::forEach}
+   */
+  public void load(Consumer<BiConsumer<BookingRoom, User>> bookings) {
+    try {
+      bookings.accept((bookingRoom, user) -> put(user, bookingRoom));
+    } finally {
+      loadLock.writeLock().lock();
+      try {
+        PendingChange pendingChange;
+        while ((pendingChange = pendingChanges.poll()) != null) {
+          if (pendingChange.added) {
+            put(pendingChange.user, pendingChange.bookingRoom);
+          } else {
+            delete(pendingChange.user, pendingChange.bookingRoom);
+          }
+        }
+        loading = false;
+      } finally {
+        loadLock.writeLock().unlock();
+      }
+      loaded.countDown();
+    }
+  }
+
+  /**
+   * This method adds a booking room into the bookings of a user.
+   * @param user The owner of the booking
+   * @param bookingRoom The booked room and date
+   */
+  public void add(User user, BookingRoom bookingRoom) {
+    if (!loading || !queue(new PendingChange(true, user, bookingRoom))) {
+      put(user, bookingRoom);
+    }
+  }
+
+  /**
+   * This method removes a booking room from the bookings of a user.
+   * @param user The owner of the booking
+   * @param bookingRoom The released room and date
+   */
+  public void remove(User user, BookingRoom bookingRoom) {
+    if (!loading || !queue(new PendingChange(false, user, bookingRoom))) {
+      delete(user, bookingRoom);
+    }
+  }
+
+  private void put(User user, BookingRoom bookingRoom) {
+    bookingsByUser.compute(user, (key, bookingRooms) -> {
+      if (bookingRooms == null) {
+        bookingRooms = new ConcurrentSkipListSet<>(BookingRoom.DATE_THEN_ROOM_ORDER);
+      }
+      bookingRooms.add(bookingRoom);
+      return bookingRooms;
+    });
+  }
+
+  private void delete(User user, BookingRoom bookingRoom) {
+    bookingsByUser.computeIfPresent(user, (key, bookingRooms) -> {
+      bookingRooms.remove(bookingRoom);
+      return bookingRooms.isEmpty() ? null : bookingRooms;
+    });
+  }
+
+  /**
+   * This method returns a copy of all booking rooms of a user.
+   * It only touches the bookings of that user, never the whole hotel.
+   * @param user The owner of the bookings
+   * @return The booking rooms of the user, or an empty set if there's none
+   */
+  public Set<BookingRoom> findBookings(User user) {
+    awaitLoaded();
+    Set<BookingRoom> bookingRooms = bookingsByUser.get(user);
+    if (bookingRooms == null) {
+      return new HashSet<>();
+    }
+
+    return new HashSet<>(bookingRooms);
+  }
+
+  /**
+   * This method collects a page of the bookings of a user, by date then room,
+   * walking the user's bookings from the giving one without copying the others.
+   * @param user The owner of the bookings
+   * @param after The last booking of the previous page, or null for the first page
+   * @param limit The maximum number of bookings to collect
+   * @param bookingRooms The list receiving the bookings
+   * @return True if there are more bookings after the collected ones
+   */
+  public boolean collectBookings(User user, BookingRoom after, int limit, List<BookingRoom> bookingRooms) {
+    awaitLoaded();
+    NavigableSet<BookingRoom> userBookings = bookingsByUser.get(user);
+    if (userBookings == null) {
+      return false;
+    }
+
+    Iterator<BookingRoom> iterator = (after == null ? userBookings : userBookings.tailSet(after, false)).iterator();
+    for (int i = 0; i < limit && iterator.hasNext(); i++) {
+      bookingRooms.add(iterator.next());
+    }
+    return iterator.hasNext();
+  }
+
+  /**
+   * This method returns the number of users having at least one booking.
+   * @return The number of indexed users
+   */
+  public int size() {
+    awaitLoaded();
+    return bookingsByUser.size();
+  }
+
+  /**
+   * @return True once the existing bookings are loaded
+   */
+  public boolean isLoaded() {
+    return !loading;
+  }
+
+  /**
+   * @return True if the change is queued, false if the index was loaded meanwhile
+   */
+  private boolean queue(PendingChange pendingChange) {
+    loadLock.readLock().lock();
+    try {
+      return loading && pendingChanges.add(pendingChange);
+    } finally {
+      loadLock.readLock().unlock();
+    }
+  }
+
+  private void awaitLoaded() {
+    if (!loading) {
+      return;
+    }
+
+    boolean interrupted = false;
+    while (true) {
+      try {
+        loaded.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class PendingChange {
+    private final boolean added;
+    private final User user;
+    private final BookingRoom bookingRoom;
+
+    private PendingChange(boolean added, User user, BookingRoom bookingRoom) {
+      this.added = added;
+      this.user = user;
+      this.bookingRoom = bookingRoom;
+    }
+  }
+
+}
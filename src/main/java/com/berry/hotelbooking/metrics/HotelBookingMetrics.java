@@ -0,0 +1,197 @@
+package com.berry.hotelbooking.metrics;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * The latencies and outcomes of the hot calls of a booking service.
+ * Failures are told apart by their shared error response, so recording a call only compares references
+ * and bumps counters, it never locks nor allocates. Exposing the metrics over JMX is opt-in.
+ */
+public class HotelBookingMetrics implements HotelBookingMetricsMXBean {
+
+  public static final String DOMAIN = "com.berry.hotelbooking";
+
+  private static final HotelErrorCode[] ERROR_CODES = HotelErrorCode.values();
+  private static final int OTHER_FAILURE = ERROR_CODES.length;
+
+  private final IntSupplier bookingCount;
+  private volatile Counters counters = new Counters();
+  private ObjectName objectName;
+
+  /**
+   * @param bookingCount The supplier of the number of bookings held by the hotel
+   */
+  public HotelBookingMetrics(IntSupplier bookingCount) {
+    if (bookingCount == null) {
+      throw new NullPointerException("Booking count is required.");
+    }
+
+    this.bookingCount = bookingCount;
+  }
+
+  /**
+   * This method records a finished call.
+   * @param operation The called operation
+   * @param startNanos The value of {@link System#nanoTime()} when the call started
+   * @param response The response of the call
+   */
+  public void record(Operation operation, long startNanos, GenericResponse<?> response) {
+    Counters current = counters;
+    current.latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+
+    if (response.isSuccess()) {
+      current.successes[operation.ordinal()].increment();
+    } else {
+      current.failures[errorCodeIndexOf(response)].increment();
+    }
+  }
+
+  public LatencyHistogram getLatencyHistogram(Operation operation) {
+    return counters.latencies[operation.ordinal()];
+  }
+
+  public long getSuccessCount(Operation operation) {
+    return counters.successes[operation.ordinal()].sum();
+  }
+
+  public long getFailureCount(HotelErrorCode errorCode) {
+    return counters.failures[errorCode.ordinal()].sum();
+  }
+
+  @Override
+  public LatencySnapshot getReserveRoomLatency() {
+    return getLatencyHistogram(Operation.RESERVE_ROOM).snapshot();
+  }
+
+  @Override
+  public LatencySnapshot getFindAvailableRoomsLatency() {
+    return getLatencyHistogram(Operation.FIND_AVAILABLE_ROOMS).snapshot();
+  }
+
+  @Override
+  public LatencySnapshot getFindExistedBookingsLatency() {
+    return getLatencyHistogram(Operation.FIND_EXISTED_BOOKINGS).snapshot();
+  }
+
+  @Override
+  public Map<String, Long> getSuccessCounts() {
+    Map<String, Long> successCounts = new LinkedHashMap<>();
+    for (Operation operation : Operation.values()) {
+      successCounts.put(operation.name(), getSuccessCount(operation));
+    }
+    return successCounts;
+  }
+
+  @Override
+  public Map<String, Long> getFailureCounts() {
+    Counters current = counters;
+    Map<String, Long> failureCounts = new LinkedHashMap<>();
+    for (HotelErrorCode errorCode : ERROR_CODES) {
+      failureCounts.put(errorCode.name(), current.failures[errorCode.ordinal()].sum());
+    }
+    failureCounts.put("OTHER", current.failures[OTHER_FAILURE].sum());
+    return failureCounts;
+  }
+
+  @Override
+  public long getLostRaceCount() {
+    return getFailureCount(HotelErrorCode.RESERVATION_LOST_RACE);
+  }
+
+  @Override
+  public int getBookingCount() {
+    return bookingCount.getAsInt();
+  }
+
+  @Override
+  public void reset() {
+    counters = new Counters();
+  }
+
+  /**
+   * This method exposes the metrics in the platform MBean server.
+   * @param name The name telling this service apart, e.g. the hotel id
+   * @return The name of the MBean
+   * @throws IllegalStateException if the metrics are already registered or the name is taken
+   */
+  public synchronized ObjectName registerMBean(String name) {
+    if (objectName != null) {
+      throw new IllegalStateException("Metrics are already registered as " + objectName);
+    }
+
+    try {
+      ObjectName newObjectName = new ObjectName(DOMAIN + ":type=HotelBookingMetrics,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+      objectName = newObjectName;
+      return newObjectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Unable to register the metrics.", e);
+    }
+  }
+
+  /**
+   * This method removes the metrics from the platform MBean server, if they're registered.
+   */
+  public synchronized void unregisterMBean() {
+    if (objectName == null) {
+      return;
+    }
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Unable to unregister the metrics.", e);
+    } finally {
+      objectName = null;
+    }
+  }
+
+  private static int errorCodeIndexOf(GenericResponse<?> response) {
+    for (int i = 0; i < ERROR_CODES.length; i++) {
+      if (ERROR_CODES[i].getResponse() == response) {
+        return i;
+      }
+    }
+
+    return OTHER_FAILURE;
+  }
+
+  public enum Operation {
+    RESERVE_ROOM,
+    FIND_AVAILABLE_ROOMS,
+    FIND_EXISTED_BOOKINGS
+  }
+
+  /**
+   * The recorded values, replaced as a whole on reset so recording never checks for one.
+   */
+  private static final class Counters {
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] successes = new LongAdder[Operation.values().length];
+    private final LongAdder[] failures = new LongAdder[ERROR_CODES.length + 1];
+
+    private Counters() {
+      for (int i = 0; i < latencies.length; i++) {
+        latencies[i] = new LatencyHistogram();
+        successes[i] = new LongAdder();
+      }
+      for (int i = 0; i < failures.length; i++) {
+        failures[i] = new LongAdder();
+      }
+    }
+  }
+
+}
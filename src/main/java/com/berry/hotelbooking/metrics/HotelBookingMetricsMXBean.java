@@ -0,0 +1,41 @@
+package com.berry.hotelbooking.metrics;
+
+import java.util.Map;
+
+/**
+ * The metrics of a booking service as seen over JMX.
+ */
+public interface HotelBookingMetricsMXBean {
+
+  LatencySnapshot getReserveRoomLatency();
+
+  LatencySnapshot getFindAvailableRoomsLatency();
+
+  LatencySnapshot getFindExistedBookingsLatency();
+
+  /**
+   * @return The number of successful calls by operation name
+   */
+  Map<String, Long> getSuccessCounts();
+
+  /**
+   * @return The number of failed calls by error code name, over all operations
+   */
+  Map<String, Long> getFailureCounts();
+
+  /**
+   * @return The number of reservations which lost the room to a concurrent one
+   */
+  long getLostRaceCount();
+
+  /**
+   * @return The number of bookings held by the hotel
+   */
+  int getBookingCount();
+
+  /**
+   * This method clears the latencies and counters, e.g. between two load tests.
+   */
+  void reset();
+
+}
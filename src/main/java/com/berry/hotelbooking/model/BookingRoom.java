@@ -1,10 +1,17 @@
 package com.berry.hotelbooking.model;
 
 import java.time.LocalDate;
-import java.util.Objects;
+import java.util.Comparator;
 
 public class BookingRoom {
 
+  /**
+   * Orders booking rooms by date, then by room number.
+   */
+  public static final Comparator<BookingRoom> DATE_THEN_ROOM_ORDER =
+      Comparator.comparing(BookingRoom::getBookingDate)
+          .thenComparingInt(bookingRoom -> bookingRoom.getRoom().getRoomNumber());
+
   private Room room;
   private LocalDate bookingDate;
 
@@ -35,7 +42,8 @@ public class BookingRoom {
 
   @Override
   public int hashCode() {
-    return Objects.hash(room, bookingDate);
+    // Same value as Objects.hash(room, bookingDate), without allocating a varargs array.
+    return 31 * (31 + room.hashCode()) + bookingDate.hashCode();
   }
 
   @Override
@@ -1,5 +1,9 @@
 package com.berry.hotelbooking.model;
 
+import com.berry.hotelbooking.store.BookingStore;
+import com.berry.hotelbooking.store.ConcurrentMapBookingStore;
+
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -9,19 +13,42 @@ public class Hotel {
 
   private Set<Room> rooms;
 
-  private ConcurrentHashMap<BookingRoom, User> bookings;
+  private BookingStore bookingStore;
 
+  /**
+   * The rooms are copied, so they're fixed once the hotel is built. A booking service orders and indexes them
+   * when it's created, a room added to the giving set afterwards would never show up in its searches.
+   * @param hotelBuilder The builder holding the rooms and bookings of the hotel
+   */
   public Hotel(Builder hotelBuilder) {
-    this.rooms = hotelBuilder.rooms;
-    this.bookings = hotelBuilder.bookings;
+    this.rooms = Collections.unmodifiableSet(new HashSet<>(hotelBuilder.rooms));
+    this.bookingStore = hotelBuilder.bookingStore != null
+        ? hotelBuilder.bookingStore
+        : new ConcurrentMapBookingStore(hotelBuilder.bookings);
   }
 
+  /**
+   * @return The rooms of the hotel, a read-only set
+   */
   public Set<Room> getRooms() {
     return this.rooms;
   }
 
+  /**
+   * This method returns the backing map of the default booking store.
+   * @return The bookings of the hotel
+   * @throws UnsupportedOperationException if the hotel is built with another booking store
+   */
   public ConcurrentHashMap<BookingRoom, User> getBookings() {
-    return this.bookings;
+    if (!(bookingStore instanceof ConcurrentMapBookingStore)) {
+      throw new UnsupportedOperationException("Bookings are not kept in a map.");
+    }
+
+    return ((ConcurrentMapBookingStore) bookingStore).getBookings();
+  }
+
+  public BookingStore getBookingStore() {
+    return this.bookingStore;
   }
 
   public static Builder NewBuilder() {
@@ -33,25 +60,26 @@ public class Hotel {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Hotel hotel = (Hotel) o;
-    return rooms.equals(hotel.rooms) && bookings.equals(hotel.bookings);
+    return rooms.equals(hotel.rooms) && bookingStore.equals(hotel.bookingStore);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(rooms, bookings);
+    return Objects.hash(rooms, bookingStore);
   }
 
   @Override
   public String toString() {
     return "Hotel{" +
         "rooms=" + rooms +
-        ", bookings=" + bookings +
+        ", bookings=" + bookingStore +
         '}';
   }
 
   public static final class Builder {
     private Set<Room> rooms = new HashSet<>();
     private ConcurrentHashMap<BookingRoom, User> bookings = new ConcurrentHashMap<>();
+    private BookingStore bookingStore;
 
     public Builder withRooms(Set<Room> rooms) {
       if (rooms == null) {
@@ -75,6 +103,15 @@ public class Hotel {
       return this;
     }
 
+    public Builder withBookingStore(BookingStore bookingStore) {
+      if (bookingStore == null) {
+        throw new NullPointerException("Booking store is required");
+      }
+
+      this.bookingStore = bookingStore;
+      return this;
+    }
+
     public Hotel build() {
       return new Hotel(this);
     }
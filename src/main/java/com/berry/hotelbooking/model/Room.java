@@ -1,19 +1,46 @@
 package com.berry.hotelbooking.model;
 
-import java.util.Objects;
-
+/**
+ * A room of the hotel, told apart by its number. The type, capacity and floor only describe it,
+ * so two rooms with the same number are the same room.
+ */
 public class Room {
 
+  public static final RoomType DEFAULT_ROOM_TYPE = RoomType.STANDARD;
+  public static final int DEFAULT_CAPACITY = 2;
+  public static final int DEFAULT_FLOOR = 0;
+
   private int roomNumber;
+  private RoomType roomType;
+  private int capacity;
+  private int floor;
 
   private Room(Builder roomBuilder) {
     this.roomNumber = roomBuilder.roomNumber;
+    this.roomType = roomBuilder.roomType;
+    this.capacity = roomBuilder.capacity;
+    this.floor = roomBuilder.floor;
   }
 
   public int getRoomNumber() {
     return this.roomNumber;
   }
 
+  public RoomType getRoomType() {
+    return this.roomType;
+  }
+
+  /**
+   * @return The number of guests the room sleeps
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  public int getFloor() {
+    return this.floor;
+  }
+
   public static Builder NewBuilder() {
     return new Builder();
   }
@@ -28,18 +55,25 @@ public class Room {
 
   @Override
   public int hashCode() {
-    return Objects.hash(roomNumber);
+    // Same value as Objects.hash(roomNumber), without boxing into a varargs array.
+    return 31 + roomNumber;
   }
 
   @Override
   public String toString() {
     return "Room{" +
         "roomNumber=" + roomNumber +
+        ", roomType=" + roomType +
+        ", capacity=" + capacity +
+        ", floor=" + floor +
         '}';
   }
 
   public static final class Builder {
     private int roomNumber;
+    private RoomType roomType = DEFAULT_ROOM_TYPE;
+    private int capacity = DEFAULT_CAPACITY;
+    private int floor = DEFAULT_FLOOR;
 
     public Builder withRoomNumber(int roomNumber) {
       if (roomNumber <= 0) {
@@ -50,6 +84,33 @@ public class Room {
       return this;
     }
 
+    public Builder withRoomType(RoomType roomType) {
+      if (roomType == null) {
+        throw new NullPointerException("Room type is required.");
+      }
+
+      this.roomType = roomType;
+      return this;
+    }
+
+    public Builder withCapacity(int capacity) {
+      if (capacity <= 0) {
+        throw new IllegalArgumentException("Invalid capacity.");
+      }
+
+      this.capacity = capacity;
+      return this;
+    }
+
+    public Builder withFloor(int floor) {
+      if (floor < 0) {
+        throw new IllegalArgumentException("Invalid floor.");
+      }
+
+      this.floor = floor;
+      return this;
+    }
+
     public Room build() {
       return new Room(this);
     }
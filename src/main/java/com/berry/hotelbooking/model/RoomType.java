@@ -0,0 +1,8 @@
+package com.berry.hotelbooking.model;
+
+public enum RoomType {
+  STANDARD,
+  SUPERIOR,
+  DELUXE,
+  SUITE
+}
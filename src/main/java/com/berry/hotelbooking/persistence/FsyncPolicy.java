@@ -0,0 +1,23 @@
+package com.berry.hotelbooking.persistence;
+
+public enum FsyncPolicy {
+
+  /**
+   * Every caller waiting for durability writes and syncs the log itself.
+   * Callers arriving while a sync is running are covered by the next one.
+   */
+  PER_OPERATION,
+
+  /**
+   * A background thread writes and syncs everything appended since its last sync,
+   * so one sync covers all the callers waiting at that time.
+   */
+  GROUP,
+
+  /**
+   * A background thread writes and syncs the log at a fixed interval and callers never wait.
+   * Records appended during the last interval can be lost on a crash.
+   */
+  INTERVAL
+
+}
@@ -0,0 +1,46 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.store.BookingStore;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+public class HotelRecovery {
+
+  private HotelRecovery() {
+    // Prevent default initialization
+  }
+
+  /**
+   * This method rebuilds a hotel from its latest snapshot, then replays the log written after it.
+   * Without any snapshot, the whole log is replayed on top of the giving rooms.
+   * @param snapshotDirectory The directory of the snapshots
+   * @param writeAheadLog The log of the hotel's mutations
+   * @param rooms The rooms of the hotel, used when there's no snapshot yet
+   * @return The recovered hotel, to give to the booking service together with the same log
+   * @throws UncheckedIOException if the log can't be read
+   */
+  public static Hotel recover(Path snapshotDirectory, WriteAheadLog writeAheadLog, Set<Room> rooms) {
+    HotelSnapshot snapshot = HotelSnapshot.loadLatest(snapshotDirectory);
+    Hotel hotel = snapshot != null
+        ? snapshot.getHotel()
+        : Hotel.NewBuilder().withRooms(rooms).withBookingStore(new PrimitiveBookingStore()).build();
+
+    BookingStore bookingStore = hotel.getBookingStore();
+    writeAheadLog.replay(snapshot != null ? snapshot.getWalPosition() : 0L, record -> {
+      // Records already held by the snapshot are skipped by the store itself.
+      if (record.getType() == WalRecordType.RESERVE) {
+        bookingStore.reserve(record.toBookingRoom(), record.toUser(), null);
+      } else {
+        bookingStore.release(record.toBookingRoom(), record.toUser(), null);
+      }
+    });
+
+    return hotel;
+  }
+
+}
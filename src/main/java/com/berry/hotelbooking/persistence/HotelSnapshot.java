@@ -0,0 +1,356 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.store.BookingStore;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * A point-in-time image of a hotel, with the log position to replay from after loading it.
+ * The file is laid out as
+ * <pre>
+ * int magic | int version | long log position | int room count | int user count | long booking count | int CRC32 of body
+ * room count * (int room number | int room type ordinal | int capacity | int floor)
+ * booking count * (long packed key | int user id)
+ * user count * (int name length | name (UTF-8))
+ * </pre>
+ * Snapshots of version 1 only hold the room numbers, their rooms are loaded with the default attributes.
+ * Snapshots are named after their log position, so the latest one sorts last.
+ */
+public class HotelSnapshot {
+
+  static final String FILE_PREFIX = "hotel-";
+  static final String FILE_SUFFIX = ".snapshot";
+  private static final int MAGIC = 0x48425331;
+  private static final int VERSION = 2;
+  private static final int ROOM_NUMBERS_VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 8 + 4;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Path path;
+  private final Hotel hotel;
+  private final long walPosition;
+
+  private HotelSnapshot(Path path, Hotel hotel, long walPosition) {
+    this.path = path;
+    this.hotel = hotel;
+    this.walPosition = walPosition;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * @return The hotel, with its bookings in a {@link PrimitiveBookingStore}
+   */
+  public Hotel getHotel() {
+    return hotel;
+  }
+
+  /**
+   * @return The position of the write-ahead log to replay from
+   */
+  public long getWalPosition() {
+    return walPosition;
+  }
+
+  /**
+   * This method writes the rooms and bookings of a hotel to a new snapshot in a directory.
+   * Every booking of the hotel must be in the log.
+   * @see #write(Path, Hotel, WriteAheadLog, Predicate)
+   */
+  public static Path write(Path directory, Hotel hotel, WriteAheadLog writeAheadLog) {
+    return write(directory, hotel, writeAheadLog, null);
+  }
+
+  /**
+   * This method writes the rooms and bookings of a hotel to a new snapshot in a directory.
+   * Bookings are read while the hotel keeps taking reservations, so the snapshot may already hold
+   * some records after its log position. Replaying them again leaves the same state.
+   * @param directory The directory of the snapshots
+   * @param hotel The hotel
+   * Bookings which aren't in the log, like holds, are left out: their end is logged as a cancellation
+   * or a reservation after the log position, so a replay settles them either way.
+   * @param writeAheadLog The log of the hotel's mutations
+   * @param unloggedBookings Tells the bookings to leave out, can be null
+   * @return The path of the snapshot, which only appears once completely written
+   * and once every booking it holds is durable in the log
+   * @throws UncheckedIOException if the snapshot or the log can't be written
+   */
+  public static Path write(Path directory, Hotel hotel, WriteAheadLog writeAheadLog, Predicate<BookingRoom> unloggedBookings) {
+    long walPosition = writeAheadLog.awaitAppliedPosition();
+    Path path = directory.resolve(fileNameOf(walPosition));
+    Path temporaryPath = directory.resolve(fileNameOf(walPosition) + ".tmp");
+
+    try (FileChannel channel = FileChannel.open(temporaryPath,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      BodyWriter writer = new BodyWriter(channel);
+
+      for (Room room : hotel.getRooms()) {
+        writer.putInt(room.getRoomNumber());
+        writer.putInt(room.getRoomType().ordinal());
+        writer.putInt(room.getCapacity());
+        writer.putInt(room.getFloor());
+      }
+
+      Map<User, Integer> userIds = new HashMap<>();
+      List<User> users = new ArrayList<>();
+      long[] bookingCount = new long[1];
+      BookingStore bookingStore = hotel.getBookingStore();
+      if (bookingStore instanceof PrimitiveBookingStore && unloggedBookings == null) {
+        ((PrimitiveBookingStore) bookingStore).forEachKey((user, key) -> {
+          writer.putBooking(key, idOf(user, userIds, users));
+          bookingCount[0]++;
+        });
+      } else {
+        bookingStore.forEach((bookingRoom, user) -> {
+          if (unloggedBookings != null && unloggedBookings.test(bookingRoom)) {
+            return;
+          }
+
+          long key = PrimitiveBookingStore.packKey(bookingRoom.getRoom().getRoomNumber(), bookingRoom.getBookingDate());
+          writer.putBooking(key, idOf(user, userIds, users));
+          bookingCount[0]++;
+        });
+      }
+
+      for (User user : users) {
+        byte[] name = user.getName().getBytes(StandardCharsets.UTF_8);
+        writer.putInt(name.length);
+        writer.putBytes(name);
+      }
+      writer.flush();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putLong(walPosition);
+      header.putInt(hotel.getRooms().size());
+      header.putInt(users.size());
+      header.putLong(bookingCount[0]);
+      header.putInt((int) writer.crc.getValue());
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    writeAheadLog.awaitDurable();
+    try {
+      Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return path;
+  }
+
+  /**
+   * This method maps a snapshot into memory and loads it.
+   * @param path The path of the snapshot
+   * @return The snapshot
+   * @throws UncheckedIOException if the snapshot can't be read or is corrupted
+   */
+  public static HotelSnapshot load(Path path) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid snapshot size: " + path);
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      int magic = buffer.getInt();
+      int version = buffer.getInt();
+      if (magic != MAGIC || (version != VERSION && version != ROOM_NUMBERS_VERSION)) {
+        throw new IOException("Unsupported snapshot: " + path);
+      }
+
+      long walPosition = buffer.getLong();
+      int roomCount = buffer.getInt();
+      int userCount = buffer.getInt();
+      long bookingCount = buffer.getLong();
+      int expectedCrc = buffer.getInt();
+
+      CRC32 crc = new CRC32();
+      crc.update(buffer.duplicate());
+      if ((int) crc.getValue() != expectedCrc) {
+        throw new IOException("Corrupted snapshot: " + path);
+      }
+      if (bookingCount > Integer.MAX_VALUE) {
+        throw new IOException("Invalid snapshot size: " + path);
+      }
+
+      Set<Room> rooms = new HashSet<>(roomCount * 2);
+      RoomType[] roomTypes = RoomType.values();
+      for (int i = 0; i < roomCount; i++) {
+        Room.Builder roomBuilder = Room.NewBuilder().withRoomNumber(buffer.getInt());
+        if (version != ROOM_NUMBERS_VERSION) {
+          roomBuilder.withRoomType(roomTypes[buffer.getInt()]).withCapacity(buffer.getInt()).withFloor(buffer.getInt());
+        }
+        rooms.add(roomBuilder.build());
+      }
+
+      int bookingsStart = buffer.position();
+      buffer.position(Math.toIntExact(bookingsStart + bookingCount * (8 + 4)));
+      User[] users = new User[userCount];
+      byte[] name = new byte[64];
+      for (int i = 0; i < userCount; i++) {
+        int length = buffer.getInt();
+        if (length > name.length) {
+          name = new byte[length];
+        }
+        buffer.get(name, 0, length);
+        users[i] = User.NewBuilder().withName(new String(name, 0, length, StandardCharsets.UTF_8)).build();
+      }
+
+      PrimitiveBookingStore bookingStore =
+          new PrimitiveBookingStore(PrimitiveBookingStore.DEFAULT_CONCURRENCY_LEVEL, (int) bookingCount);
+      buffer.position(bookingsStart);
+      for (int i = 0; i < bookingCount; i++) {
+        long key = buffer.getLong();
+        bookingStore.restore(key, users[buffer.getInt()]);
+      }
+
+      Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(bookingStore).build();
+      return new HotelSnapshot(path, hotel, walPosition);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      throw new UncheckedIOException(new IOException("Corrupted snapshot: " + path, e));
+    }
+  }
+
+  /**
+   * This method loads the latest readable snapshot of a directory, skipping the corrupted ones.
+   * @param directory The directory of the snapshots
+   * @return The snapshot, or null if there's none
+   */
+  public static HotelSnapshot loadLatest(Path directory) {
+    List<Path> paths = list(directory);
+    for (int i = paths.size() - 1; i >= 0; i--) {
+      try {
+        return load(paths.get(i));
+      } catch (UncheckedIOException e) {
+        // An older snapshot is still good, the log covers the difference.
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @param directory The directory of the snapshots
+   * @return The snapshots of the directory, oldest first
+   */
+  public static List<Path> list(Path directory) {
+    List<Path> paths = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return paths;
+    }
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+      stream.forEach(paths::add);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    paths.sort(null);
+    return paths;
+  }
+
+  private static String fileNameOf(long walPosition) {
+    return String.format("%s%020d%s", FILE_PREFIX, walPosition, FILE_SUFFIX);
+  }
+
+  private static int idOf(User user, Map<User, Integer> userIds, List<User> users) {
+    Integer id = userIds.get(user);
+    if (id == null) {
+      id = users.size();
+      userIds.put(user, id);
+      users.add(user);
+    }
+    return id;
+  }
+
+  /**
+   * Buffers the body after the header and keeps its checksum.
+   */
+  private static final class BodyWriter {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private long position = HEADER_SIZE;
+
+    private BodyWriter(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    private void putInt(int value) {
+      ensure(4);
+      buffer.putInt(value);
+    }
+
+    private void putBooking(long key, int userId) {
+      ensure(8 + 4);
+      buffer.putLong(key);
+      buffer.putInt(userId);
+    }
+
+    private void putBytes(byte[] bytes) {
+      int offset = 0;
+      while (offset < bytes.length) {
+        ensure(1);
+        int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.put(bytes, offset, length);
+        offset += length;
+      }
+    }
+
+    private void ensure(int size) {
+      if (buffer.remaining() < size) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      buffer.flip();
+      crc.update(buffer.array(), 0, buffer.limit());
+      try {
+        while (buffer.hasRemaining()) {
+          position += channel.write(buffer, position);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      buffer.clear();
+    }
+  }
+
+}
@@ -0,0 +1,181 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Takes snapshots of a hotel, on demand or periodically, and keeps only the latest ones.
+ * Reservations go on while a snapshot is written.
+ */
+public class HotelSnapshotter implements AutoCloseable {
+
+  private static Logger logger = Logger.getLogger(HotelSnapshotter.class.getName());
+
+  private final Hotel hotel;
+  private final WriteAheadLog writeAheadLog;
+  private final Path directory;
+  private final int retainedSnapshots;
+  private final Predicate<BookingRoom> unloggedBookings;
+  private ScheduledExecutorService scheduler;
+
+  private HotelSnapshotter(Builder builder) {
+    this.hotel = builder.hotel;
+    this.writeAheadLog = builder.writeAheadLog;
+    this.directory = builder.directory;
+    this.retainedSnapshots = builder.retainedSnapshots;
+    this.unloggedBookings = builder.unloggedBookings;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method writes a new snapshot, then deletes the ones beyond the retained count.
+   * @return The path of the new snapshot
+   * @throws UncheckedIOException if the snapshot can't be written
+   */
+  public synchronized Path snapshot() {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Path path = HotelSnapshot.write(directory, hotel, writeAheadLog, unloggedBookings);
+
+    List<Path> snapshots = HotelSnapshot.list(directory);
+    for (int i = 0; i < snapshots.size() - retainedSnapshots; i++) {
+      try {
+        Files.deleteIfExists(snapshots.get(i));
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to delete snapshot " + snapshots.get(i), e);
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * This method takes a snapshot periodically in a background thread, until closed.
+   * @param period The delay between the end of a snapshot and the start of the next one
+   * @param unit The unit of the period
+   */
+  public synchronized void start(long period, TimeUnit unit) {
+    if (scheduler != null) {
+      throw new IllegalStateException("Snapshotter is already started.");
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "hotel-booking-snapshotter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        snapshot();
+      } catch (RuntimeException e) {
+        logger.log(Level.SEVERE, "Unable to take a snapshot.", e);
+      }
+    }, period, period, unit);
+  }
+
+  @Override
+  public void close() {
+    ScheduledExecutorService current;
+    synchronized (this) {
+      current = scheduler;
+      scheduler = null;
+    }
+
+    if (current != null) {
+      current.shutdown();
+      try {
+        current.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public static final class Builder {
+    private Hotel hotel;
+    private WriteAheadLog writeAheadLog;
+    private Path directory;
+    private int retainedSnapshots = 2;
+    private Predicate<BookingRoom> unloggedBookings;
+
+    public Builder withHotel(Hotel hotel) {
+      if (hotel == null) {
+        throw new NullPointerException("Hotel is required.");
+      }
+
+      this.hotel = hotel;
+      return this;
+    }
+
+    public Builder withWriteAheadLog(WriteAheadLog writeAheadLog) {
+      if (writeAheadLog == null) {
+        throw new NullPointerException("Write-ahead log is required.");
+      }
+
+      this.writeAheadLog = writeAheadLog;
+      return this;
+    }
+
+    public Builder withDirectory(Path directory) {
+      if (directory == null) {
+        throw new NullPointerException("Directory is required.");
+      }
+
+      this.directory = directory;
+      return this;
+    }
+
+    /**
+     * @param retainedSnapshots The number of latest snapshots to keep, at least 1
+     */
+    public Builder withRetainedSnapshots(int retainedSnapshots) {
+      if (retainedSnapshots <= 0) {
+        throw new IllegalArgumentException("Invalid number of retained snapshots.");
+      }
+
+      this.retainedSnapshots = retainedSnapshots;
+      return this;
+    }
+
+    /**
+     * @param unloggedBookings Tells the bookings which aren't in the log and must not be saved,
+     * e.g. {@code service::isHeld} for the holds of a service
+     */
+    public Builder withUnloggedBookings(Predicate<BookingRoom> unloggedBookings) {
+      if (unloggedBookings == null) {
+        throw new NullPointerException("Unlogged bookings are required.");
+      }
+
+      this.unloggedBookings = unloggedBookings;
+      return this;
+    }
+
+    public HotelSnapshotter build() {
+      if (hotel == null || writeAheadLog == null || directory == null) {
+        throw new NullPointerException("Hotel, write-ahead log and directory are required.");
+      }
+
+      return new HotelSnapshotter(this);
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+
+public class WalRecord {
+
+  private final long position;
+  private final WalRecordType type;
+  private final int roomNumber;
+  private final LocalDate bookingDate;
+  private final String userName;
+
+  public WalRecord(long position, WalRecordType type, int roomNumber, LocalDate bookingDate, String userName) {
+    this.position = position;
+    this.type = type;
+    this.roomNumber = roomNumber;
+    this.bookingDate = bookingDate;
+    this.userName = userName;
+  }
+
+  /**
+   * @return The position of the record in the log, which orders the records
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public WalRecordType getType() {
+    return type;
+  }
+
+  public int getRoomNumber() {
+    return roomNumber;
+  }
+
+  public LocalDate getBookingDate() {
+    return bookingDate;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public BookingRoom toBookingRoom() {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  public User toUser() {
+    return User.NewBuilder().withName(userName).build();
+  }
+
+  @Override
+  public String toString() {
+    return "WalRecord{" +
+        "position=" + position +
+        ", type=" + type +
+        ", roomNumber=" + roomNumber +
+        ", bookingDate=" + bookingDate +
+        ", userName='" + userName + '\'' +
+        '}';
+  }
+
+}
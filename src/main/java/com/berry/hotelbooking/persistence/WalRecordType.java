@@ -0,0 +1,28 @@
+package com.berry.hotelbooking.persistence;
+
+public enum WalRecordType {
+
+  RESERVE((byte) 1),
+  CANCEL((byte) 2);
+
+  private final byte code;
+
+  WalRecordType(byte code) {
+    this.code = code;
+  }
+
+  public byte getCode() {
+    return code;
+  }
+
+  public static WalRecordType fromCode(byte code) {
+    for (WalRecordType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+
+    return null;
+  }
+
+}
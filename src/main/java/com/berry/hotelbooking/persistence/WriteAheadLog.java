@@ -0,0 +1,539 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of booking mutations. Each record is laid out as
+ * <pre>
+ * int payload length | int CRC32 of payload | byte type | int room number | long epoch day | int name length | name (UTF-8)
+ * </pre>
+ * Appending only copies the record into an in-memory buffer. Writing and syncing the buffer
+ * to the file is done according to the {@link FsyncPolicy}, so one sync can cover many records.
+ * <p>
+ * Writers wrap each mutation in {@link #beginMutation()} and {@link #endMutation(int)}, so a snapshot
+ * can find a position before which every record is already applied, without blocking the writers.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+  static final int HEADER_SIZE = 8;
+  private static final int FIXED_PAYLOAD_SIZE = 1 + 4 + 8 + 4;
+  private static final int MAX_PAYLOAD_SIZE = 1 << 16;
+  private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition recordsAppended = lock.newCondition();
+  private final Condition durabilityAdvanced = lock.newCondition();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final CRC32 crc = new CRC32();
+  private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  private long appendedPosition;
+  private long durablePosition;
+  private IOException failure;
+  private boolean open = true;
+
+  private final Thread flusher;
+
+  private final ReentrantLock snapshotLock = new ReentrantLock();
+  private final LongAdder[] activeMutations = {new LongAdder(), new LongAdder()};
+  private volatile int mutationEpoch;
+
+  private WriteAheadLog(Builder builder) throws IOException {
+    this.path = builder.path;
+    this.fsyncPolicy = builder.fsyncPolicy;
+    this.fsyncIntervalNanos = builder.fsyncIntervalNanos;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    // A torn record at the end of the file is the trace of a crash in the middle of a write.
+    long validEnd = scan(channel, 0L, null);
+    channel.truncate(validEnd);
+    channel.position(validEnd);
+    this.appendedPosition = validEnd;
+    this.durablePosition = validEnd;
+
+    if (fsyncPolicy == FsyncPolicy.PER_OPERATION) {
+      this.flusher = null;
+    } else {
+      this.flusher = new Thread(this::runFlusher, "hotel-booking-wal-flusher");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+    }
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method appends a record to the log buffer and returns right away.
+   * Use {@link #awaitDurable()} to wait until the record survives a crash.
+   * @param type The type of the mutation
+   * @param bookingRoom The room and date
+   * @param user The owner of the booking
+   * @return The position of the record in the log
+   * @throws UncheckedIOException if the log is closed or failed earlier
+   */
+  public long append(WalRecordType type, BookingRoom bookingRoom, User user) {
+    byte[] userName = encode(user);
+
+    lock.lock();
+    try {
+      checkUsable();
+      return put(type, bookingRoom, userName);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method appends the cancellation of a booking and its reservation for another user in one step,
+   * so no other record lands between them and a sync covers both or neither.
+   * @param bookingRoom The room and date
+   * @param user The owner giving the booking up
+   * @param successor The user the booking is handed over to
+   * @return The position of the cancellation record in the log
+   * @throws UncheckedIOException if the log is closed or failed earlier
+   */
+  public long appendHandOver(BookingRoom bookingRoom, User user, User successor) {
+    byte[] userName = encode(user);
+    byte[] successorName = encode(successor);
+
+    lock.lock();
+    try {
+      checkUsable();
+      long position = put(WalRecordType.CANCEL, bookingRoom, userName);
+      put(WalRecordType.RESERVE, bookingRoom, successorName);
+      return position;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method waits until every record appended so far is synced to the file.
+   * With the {@link FsyncPolicy#INTERVAL} policy it returns right away.
+   * @throws UncheckedIOException if the log can't be written
+   */
+  public void awaitDurable() {
+    long target;
+
+    lock.lock();
+    try {
+      checkUsable();
+      target = appendedPosition;
+
+      if (fsyncPolicy == FsyncPolicy.GROUP) {
+        while (durablePosition < target) {
+          if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed.", failure);
+          }
+          durabilityAdvanced.awaitUninterruptibly();
+        }
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (fsyncPolicy == FsyncPolicy.PER_OPERATION) {
+      try {
+        flush(target);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * This method marks the start of a mutation whose records are appended and applied together.
+   * @return The epoch to give back to {@link #endMutation(int)}
+   */
+  public int beginMutation() {
+    while (true) {
+      int epoch = mutationEpoch;
+      LongAdder active = activeMutations[epoch & 1];
+      active.increment();
+      if (epoch == mutationEpoch) {
+        return epoch;
+      }
+      active.decrement();
+    }
+  }
+
+  /**
+   * This method marks the end of a mutation, once its records are applied.
+   * @param epoch The epoch given by {@link #beginMutation()}
+   */
+  public void endMutation(int epoch) {
+    activeMutations[epoch & 1].decrement();
+  }
+
+  /**
+   * This method returns a position before which every record is already applied by its writer.
+   * It waits for the mutations in flight when called, new mutations are never blocked.
+   * @return The position to replay the log from, for a snapshot taken after this call
+   */
+  public long awaitAppliedPosition() {
+    snapshotLock.lock();
+    try {
+      long position;
+      lock.lock();
+      try {
+        position = appendedPosition;
+      } finally {
+        lock.unlock();
+      }
+
+      int epoch = mutationEpoch;
+      mutationEpoch = epoch + 1;
+      LongAdder active = activeMutations[epoch & 1];
+      while (active.sum() != 0) {
+        LockSupport.parkNanos(10_000L);
+      }
+
+      return position;
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  /**
+   * This method reads the records from a position of the log until its synced end.
+   * @param fromPosition The position to start from, 0 or a position given by {@link #getDurablePosition()}
+   * @param consumer The consumer of the records, in log order
+   * @return The position after the last record read
+   * @throws UncheckedIOException if the log can't be read
+   */
+  public long replay(long fromPosition, Consumer<WalRecord> consumer) {
+    try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return scan(readChannel, fromPosition, consumer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public long getDurablePosition() {
+    lock.lock();
+    try {
+      return durablePosition;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public FsyncPolicy getFsyncPolicy() {
+    return fsyncPolicy;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * This method syncs every record appended so far, then closes the file.
+   * Callers already waiting for durability are released once the final sync is done.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (!open) {
+        return;
+      }
+      open = false;
+      recordsAppended.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      if (flusher != null) {
+        flusher.join();
+      }
+      flush(Long.MAX_VALUE);
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runFlusher() {
+    while (true) {
+      lock.lock();
+      try {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+          long remainingNanos = fsyncIntervalNanos;
+          while (open && remainingNanos > 0) {
+            remainingNanos = recordsAppended.awaitNanos(remainingNanos);
+          }
+        } else {
+          while (open && pending.position() == 0) {
+            recordsAppended.await();
+          }
+        }
+
+        if (!open || failure != null) {
+          return;
+        }
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        flush(Long.MAX_VALUE);
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * This method writes and syncs the buffered records, unless the giving position is already durable.
+   * Only one flush runs at a time, appending goes on into the other buffer meanwhile.
+   */
+  private void flush(long target) throws IOException {
+    flushLock.lock();
+    try {
+      ByteBuffer buffer;
+      long end;
+
+      lock.lock();
+      try {
+        if (failure != null) {
+          throw failure;
+        }
+        if (durablePosition >= target || durablePosition == appendedPosition) {
+          return;
+        }
+
+        buffer = pending;
+        pending = flushing;
+        flushing = buffer;
+        end = appendedPosition;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        buffer.clear();
+        channel.force(false);
+      } catch (IOException e) {
+        lock.lock();
+        try {
+          failure = e;
+          durabilityAdvanced.signalAll();
+        } finally {
+          lock.unlock();
+        }
+        throw e;
+      }
+
+      lock.lock();
+      try {
+        durablePosition = end;
+        durabilityAdvanced.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void checkUsable() {
+    if (failure != null) {
+      throw new UncheckedIOException("Write-ahead log failed.", failure);
+    }
+    if (!open) {
+      throw new UncheckedIOException("Write-ahead log is closed.", new IOException("Write-ahead log is closed."));
+    }
+  }
+
+  private static ByteBuffer grow(ByteBuffer buffer, int required) {
+    int capacity = buffer.capacity();
+    while (capacity - buffer.position() < required) {
+      capacity <<= 1;
+    }
+
+    ByteBuffer grown = ByteBuffer.allocate(capacity);
+    buffer.flip();
+    grown.put(buffer);
+    return grown;
+  }
+
+  /**
+   * This method reads the valid records of a log from a position.
+   * @return The position after the last valid record
+   */
+  static long scan(FileChannel channel, long fromPosition, Consumer<WalRecord> consumer) throws IOException {
+    long size = channel.size();
+    long position = fromPosition;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    CRC32 checksum = new CRC32();
+
+    while (position + HEADER_SIZE <= size) {
+      header.clear();
+      readFully(channel, header, position);
+      int payloadSize = header.getInt(0);
+      int expectedCrc = header.getInt(4);
+
+      if (payloadSize < FIXED_PAYLOAD_SIZE || payloadSize > MAX_PAYLOAD_SIZE
+          || position + HEADER_SIZE + payloadSize > size) {
+        break;
+      }
+
+      ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+      readFully(channel, payload, position + HEADER_SIZE);
+      checksum.reset();
+      checksum.update(payload.array(), 0, payloadSize);
+      if ((int) checksum.getValue() != expectedCrc) {
+        break;
+      }
+
+      payload.flip();
+      WalRecordType type = WalRecordType.fromCode(payload.get());
+      int roomNumber = payload.getInt();
+      long epochDay = payload.getLong();
+      int nameLength = payload.getInt();
+      if (type == null || nameLength != payloadSize - FIXED_PAYLOAD_SIZE) {
+        break;
+      }
+
+      if (consumer != null) {
+        String userName = new String(payload.array(), FIXED_PAYLOAD_SIZE, nameLength, StandardCharsets.UTF_8);
+        consumer.accept(new WalRecord(position, type, roomNumber, LocalDate.ofEpochDay(epochDay), userName));
+      }
+      position += HEADER_SIZE + payloadSize;
+    }
+
+    return position;
+  }
+
+  private static byte[] encode(User user) {
+    byte[] userName = user.getName().getBytes(StandardCharsets.UTF_8);
+    if (FIXED_PAYLOAD_SIZE + userName.length > MAX_PAYLOAD_SIZE) {
+      throw new IllegalArgumentException("User name is too long.");
+    }
+    return userName;
+  }
+
+  /**
+   * This method copies a record into the log buffer, the lock must be held.
+   */
+  private long put(WalRecordType type, BookingRoom bookingRoom, byte[] userName) {
+    int payloadSize = FIXED_PAYLOAD_SIZE + userName.length;
+    if (pending.remaining() < HEADER_SIZE + payloadSize) {
+      pending = grow(pending, HEADER_SIZE + payloadSize);
+    }
+
+    int start = pending.position();
+    pending.putInt(payloadSize);
+    pending.putInt(0);
+    pending.put(type.getCode());
+    pending.putInt(bookingRoom.getRoom().getRoomNumber());
+    pending.putLong(bookingRoom.getBookingDate().toEpochDay());
+    pending.putInt(userName.length);
+    pending.put(userName);
+
+    crc.reset();
+    crc.update(pending.array(), start + HEADER_SIZE, payloadSize);
+    pending.putInt(start + 4, (int) crc.getValue());
+
+    long position = appendedPosition;
+    appendedPosition += HEADER_SIZE + payloadSize;
+    recordsAppended.signal();
+    return position;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of write-ahead log.");
+      }
+    }
+  }
+
+  public static final class Builder {
+    private Path path;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.GROUP;
+    private long fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+    public Builder withPath(Path path) {
+      if (path == null) {
+        throw new NullPointerException("Path is required.");
+      }
+
+      this.path = path;
+      return this;
+    }
+
+    public Builder withFsyncPolicy(FsyncPolicy fsyncPolicy) {
+      if (fsyncPolicy == null) {
+        throw new NullPointerException("Fsync policy is required.");
+      }
+
+      this.fsyncPolicy = fsyncPolicy;
+      return this;
+    }
+
+    /**
+     * @param interval The interval between two syncs, only used with {@link FsyncPolicy#INTERVAL}
+     * @param unit The unit of the interval
+     */
+    public Builder withFsyncInterval(long interval, TimeUnit unit) {
+      if (interval <= 0) {
+        throw new IllegalArgumentException("Invalid fsync interval.");
+      }
+
+      this.fsyncIntervalNanos = unit.toNanos(interval);
+      return this;
+    }
+
+    /**
+     * @return The opened log, positioned after its last valid record
+     * @throws UncheckedIOException if the file can't be opened
+     */
+    public WriteAheadLog build() {
+      if (path == null) {
+        throw new NullPointerException("Path is required.");
+      }
+
+      try {
+        return new WriteAheadLog(this);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+}
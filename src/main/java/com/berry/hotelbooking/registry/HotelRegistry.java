@@ -0,0 +1,250 @@
+package com.berry.hotelbooking.registry;
+
+import com.berry.hotelbooking.audit.AuditLog;
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.service.HotelBookingService;
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Owns the booking services of many hotels, keyed by hotel id.
+ * A call for one hotel is routed straight to its own service, which shares nothing with the others.
+ * A search across hotels is split over a fork-join pool and the results are merged by hotel id.
+ */
+public class HotelRegistry {
+
+  private static final int SEQUENTIAL_THRESHOLD = 4;
+
+  private final Map<String, HotelBookingService> servicesById;
+  private final String[] hotelIds;
+  private final HotelBookingService[] services;
+  private final ForkJoinPool forkJoinPool;
+
+  private HotelRegistry(Builder builder) {
+    this.servicesById = Collections.unmodifiableMap(new HashMap<>(builder.services));
+    this.hotelIds = builder.services.keySet().toArray(new String[0]);
+    this.services = builder.services.values().toArray(new HotelBookingService[0]);
+    this.forkJoinPool = builder.forkJoinPool != null ? builder.forkJoinPool : ForkJoinPool.commonPool();
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method makes a reservation in the hotel owning the booking.
+   * @param hotelId The id of the hotel
+   * @param booking The booking info
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Booking> reserveRoom(String hotelId, Booking booking) {
+    HotelBookingService service = servicesById.get(hotelId);
+    if (service == null) {
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    return service.reserveRoom(booking);
+  }
+
+  /**
+   * This method will retrieve all available rooms of a hotel in a giving date.
+   * @param hotelId The id of the hotel
+   * @param bookingDate The giving date
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Set<Room>> findAvailableRooms(String hotelId, LocalDate bookingDate) {
+    HotelBookingService service = servicesById.get(hotelId);
+    if (service == null) {
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    return service.findAvailableRooms(bookingDate);
+  }
+
+  /**
+   * This method will retrieve the available rooms of every hotel in a giving date.
+   * Hotels without any available room are left out.
+   * @param bookingDate The giving date
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the available rooms by hotel id
+   */
+  public GenericResponse<Map<String, Set<Room>>> findAvailableRooms(LocalDate bookingDate) {
+    return searchAll(service -> service.findAvailableRooms(bookingDate));
+  }
+
+  /**
+   * This method will return the existed bookings of a user in every hotel.
+   * Hotels without any booking of the user are left out.
+   * @param user The user
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the bookings by hotel id
+   */
+  public GenericResponse<Map<String, Set<BookingRoom>>> findExistedBookings(User user) {
+    return searchAll(service -> service.findExistedBookings(user));
+  }
+
+  /**
+   * @param hotelId The id of the hotel
+   * @return The service of the hotel, or null if there's no such hotel
+   */
+  public HotelBookingService getService(String hotelId) {
+    return servicesById.get(hotelId);
+  }
+
+  public Set<String> getHotelIds() {
+    return servicesById.keySet();
+  }
+
+  /**
+   * This method runs a search on the first hotel, so an invalid argument is rejected once,
+   * then on the other hotels in parallel.
+   */
+  private <T extends Collection<?>> GenericResponse<Map<String, T>> searchAll(
+      Function<HotelBookingService, GenericResponse<T>> search) {
+    if (services.length == 0) {
+      return GenericResponseUtils.generateFromSuccessfulData(Collections.emptyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    GenericResponse<T>[] responses = new GenericResponse[services.length];
+    responses[0] = search.apply(services[0]);
+    if (!responses[0].isSuccess()) {
+      return (GenericResponse) responses[0];
+    }
+
+    SearchAction<T> action = new SearchAction<>(search, responses, 1, services.length);
+    if (services.length - 1 <= SEQUENTIAL_THRESHOLD) {
+      action.compute();
+    } else {
+      forkJoinPool.invoke(action);
+    }
+
+    Map<String, T> merged = new LinkedHashMap<>();
+    for (int i = 0; i < responses.length; i++) {
+      if (!responses[i].isSuccess()) {
+        return (GenericResponse) responses[i];
+      }
+
+      T data = responses[i].getData();
+      if (!data.isEmpty()) {
+        merged.put(hotelIds[i], data);
+      }
+    }
+
+    return GenericResponseUtils.generateFromSuccessfulData(merged);
+  }
+
+  /**
+   * Splits a range of hotels in halves until it's small enough to search sequentially.
+   * Each search writes its own slot of the responses, joining publishes them to the caller.
+   */
+  private final class SearchAction<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final Function<HotelBookingService, GenericResponse<T>> search;
+    private final GenericResponse<T>[] responses;
+    private final int from;
+    private final int to;
+
+    private SearchAction(Function<HotelBookingService, GenericResponse<T>> search,
+                         GenericResponse<T>[] responses, int from, int to) {
+      this.search = search;
+      this.responses = responses;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= SEQUENTIAL_THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          responses[i] = search.apply(services[i]);
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new SearchAction<>(search, responses, from, middle), new SearchAction<>(search, responses, middle, to));
+    }
+  }
+
+  public static final class Builder {
+    private final Map<String, HotelBookingService> services = new LinkedHashMap<>();
+    private AuditLog auditLog;
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * @param auditLog The audit log of the services created by {@link #withHotel(String, Hotel)}
+     */
+    public Builder withAuditLog(AuditLog auditLog) {
+      if (auditLog == null) {
+        throw new NullPointerException("Audit log is required.");
+      }
+
+      this.auditLog = auditLog;
+      return this;
+    }
+
+    /**
+     * @param forkJoinPool The pool running the searches across hotels, the common pool by default
+     */
+    public Builder withForkJoinPool(ForkJoinPool forkJoinPool) {
+      if (forkJoinPool == null) {
+        throw new NullPointerException("Fork-join pool is required.");
+      }
+
+      this.forkJoinPool = forkJoinPool;
+      return this;
+    }
+
+    public Builder withHotel(String hotelId, Hotel hotel) {
+      if (hotel == null) {
+        throw new NullPointerException("Hotel is required.");
+      }
+
+      HotelBookingService.Builder serviceBuilder = HotelBookingService.NewBuilder().withHotel(hotel);
+      if (auditLog != null) {
+        serviceBuilder.withAuditLog(auditLog);
+      }
+      return withService(hotelId, serviceBuilder.build());
+    }
+
+    /**
+     * @param hotelId The id of the hotel
+     * @param service A service already built for the hotel, e.g. with its own write-ahead log
+     */
+    public Builder withService(String hotelId, HotelBookingService service) {
+      if (hotelId == null || service == null) {
+        throw new NullPointerException("Hotel id and service are required.");
+      }
+      if (services.containsKey(hotelId)) {
+        throw new IllegalArgumentException("Duplicated hotel id: " + hotelId);
+      }
+
+      services.put(hotelId, service);
+      return this;
+    }
+
+    public HotelRegistry build() {
+      return new HotelRegistry(this);
+    }
+  }
+
+}
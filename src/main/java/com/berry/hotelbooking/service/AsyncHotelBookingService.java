@@ -0,0 +1,299 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.dto.OccupancyCalendar;
+import com.berry.hotelbooking.dto.Page;
+import com.berry.hotelbooking.dto.RoomCriteria;
+import com.berry.hotelbooking.dto.RoomHold;
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import com.berry.hotelbooking.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the calls of a {@link HotelBookingService} on an executor and returns their responses as futures,
+ * so a caller never blocks a request thread while waiting on them.
+ * By default, each call runs on its own virtual thread when the runtime has them,
+ * otherwise on a bounded pool which answers with {@link HotelErrorCode#SERVICE_BUSY} once it's full.
+ */
+public class AsyncHotelBookingService implements AutoCloseable {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+  private static Logger logger = Logger.getLogger(AsyncHotelBookingService.class.getName());
+
+  private final HotelBookingService service;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+
+  private AsyncHotelBookingService(Builder builder) {
+    this.service = builder.service;
+    this.ownsExecutor = builder.executor == null;
+    this.executor = ownsExecutor ? newDefaultExecutor() : builder.executor;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @see HotelBookingService#reserveRoom(Booking)
+   */
+  public CompletableFuture<GenericResponse<Booking>> reserveRoom(Booking booking) {
+    return submit(() -> service.reserveRoom(booking));
+  }
+
+  /**
+   * @see HotelBookingService#reserveRoom(Booking, ReservationPolicy)
+   */
+  public CompletableFuture<GenericResponse<Booking>> reserveRoom(Booking booking, ReservationPolicy reservationPolicy) {
+    return submit(() -> service.reserveRoom(booking, reservationPolicy));
+  }
+
+  /**
+   * @see HotelBookingService#reserveRoomOfType(User, LocalDate, RoomType)
+   */
+  public CompletableFuture<GenericResponse<Booking>> reserveRoomOfType(User user, LocalDate bookingDate, RoomType roomType) {
+    return submit(() -> service.reserveRoomOfType(user, bookingDate, roomType));
+  }
+
+  /**
+   * @see HotelBookingService#reserveRooms(List)
+   */
+  public CompletableFuture<GenericResponse<List<GenericResponse<Booking>>>> reserveRooms(List<Booking> bookings) {
+    return submit(() -> service.reserveRooms(bookings));
+  }
+
+  /**
+   * @see HotelBookingService#reserveStay(Booking, LocalDate)
+   */
+  public CompletableFuture<GenericResponse<List<BookingRoom>>> reserveStay(Booking booking, LocalDate checkOutDate) {
+    return submit(() -> service.reserveStay(booking, checkOutDate));
+  }
+
+  /**
+   * @see HotelBookingService#cancelBooking(Booking)
+   */
+  public CompletableFuture<GenericResponse<Booking>> cancelBooking(Booking booking) {
+    return submit(() -> service.cancelBooking(booking));
+  }
+
+  /**
+   * @see HotelBookingService#joinWaitlist(Booking)
+   */
+  public CompletableFuture<GenericResponse<Integer>> joinWaitlist(Booking booking) {
+    return submit(() -> service.joinWaitlist(booking));
+  }
+
+  /**
+   * @see HotelBookingService#leaveWaitlist(Booking)
+   */
+  public CompletableFuture<GenericResponse<Booking>> leaveWaitlist(Booking booking) {
+    return submit(() -> service.leaveWaitlist(booking));
+  }
+
+  /**
+   * @see HotelBookingService#holdRoom(Booking, Duration)
+   */
+  public CompletableFuture<GenericResponse<RoomHold>> holdRoom(Booking booking, Duration duration) {
+    return submit(() -> service.holdRoom(booking, duration));
+  }
+
+  /**
+   * @see HotelBookingService#confirmHold(Booking)
+   */
+  public CompletableFuture<GenericResponse<Booking>> confirmHold(Booking booking) {
+    return submit(() -> service.confirmHold(booking));
+  }
+
+  /**
+   * @see HotelBookingService#releaseHold(Booking)
+   */
+  public CompletableFuture<GenericResponse<Booking>> releaseHold(Booking booking) {
+    return submit(() -> service.releaseHold(booking));
+  }
+
+  /**
+   * @see HotelBookingService#findAvailableRooms(LocalDate)
+   */
+  public CompletableFuture<GenericResponse<Set<Room>>> findAvailableRooms(LocalDate bookingDate) {
+    return submit(() -> service.findAvailableRooms(bookingDate));
+  }
+
+  /**
+   * @see HotelBookingService#findAvailableRooms(LocalDate, LocalDate)
+   */
+  public CompletableFuture<GenericResponse<Set<Room>>> findAvailableRooms(LocalDate fromDate, LocalDate toDate) {
+    return submit(() -> service.findAvailableRooms(fromDate, toDate));
+  }
+
+  /**
+   * @see HotelBookingService#findAvailableRooms(LocalDate, RoomCriteria)
+   */
+  public CompletableFuture<GenericResponse<Set<Room>>> findAvailableRooms(LocalDate bookingDate, RoomCriteria roomCriteria) {
+    return submit(() -> service.findAvailableRooms(bookingDate, roomCriteria));
+  }
+
+  /**
+   * @see HotelBookingService#findAvailableRooms(LocalDate, String, int)
+   */
+  public CompletableFuture<GenericResponse<Page<Room>>> findAvailableRooms(LocalDate bookingDate, String pageToken, int pageSize) {
+    return submit(() -> service.findAvailableRooms(bookingDate, pageToken, pageSize));
+  }
+
+  /**
+   * @see HotelBookingService#findOccupancyCalendar(LocalDate, LocalDate)
+   */
+  public CompletableFuture<GenericResponse<OccupancyCalendar>> findOccupancyCalendar(LocalDate fromDate, LocalDate toDate) {
+    return submit(() -> service.findOccupancyCalendar(fromDate, toDate));
+  }
+
+  /**
+   * @see HotelBookingService#findExistedBookings(User)
+   */
+  public CompletableFuture<GenericResponse<Set<BookingRoom>>> findExistedBookings(User user) {
+    return submit(() -> service.findExistedBookings(user));
+  }
+
+  /**
+   * @see HotelBookingService#findExistedBookings(User, String, int)
+   */
+  public CompletableFuture<GenericResponse<Page<BookingRoom>>> findExistedBookings(User user, String pageToken, int pageSize) {
+    return submit(() -> service.findExistedBookings(user, pageToken, pageSize));
+  }
+
+  /**
+   * This method looks up the available rooms of many dates at once. The lookups run side by side,
+   * and the returned future completes when all of them are done.
+   * @param bookingDates The giving dates
+   * @return A future of the response of each date, in the order of the giving dates
+   */
+  public CompletableFuture<Map<LocalDate, GenericResponse<Set<Room>>>> findAvailableRooms(Collection<LocalDate> bookingDates) {
+    List<LocalDate> dates = new ArrayList<>(bookingDates);
+    List<CompletableFuture<GenericResponse<Set<Room>>>> futures = new ArrayList<>(dates.size());
+    for (LocalDate date : dates) {
+      futures.add(findAvailableRooms(date));
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+      Map<LocalDate, GenericResponse<Set<Room>>> responses = new LinkedHashMap<>();
+      for (int i = 0; i < dates.size(); i++) {
+        responses.put(dates.get(i), futures.get(i).join());
+      }
+      return responses;
+    });
+  }
+
+  public HotelBookingService getService() {
+    return service;
+  }
+
+  /**
+   * This method stops the default executor after the calls already submitted.
+   * An executor given to the builder is left to its owner.
+   */
+  @Override
+  public void close() {
+    if (!ownsExecutor) {
+      return;
+    }
+
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private <T> CompletableFuture<GenericResponse<T>> submit(Supplier<GenericResponse<T>> call) {
+    try {
+      return CompletableFuture.supplyAsync(call, executor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(HotelErrorCode.SERVICE_BUSY.getResponse());
+    }
+  }
+
+  /**
+   * This method creates a virtual thread per task executor through reflection, so the code still runs
+   * on runtimes without virtual threads, where a bounded pool sized on the processors is used instead.
+   */
+  static ExecutorService newDefaultExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      logger.log(Level.FINE, "Virtual threads aren't available, a bounded pool is used instead.");
+    }
+
+    int threads = Runtime.getRuntime().availableProcessors() * 2;
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(
+        threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY),
+        runnable -> {
+          Thread thread = new Thread(runnable, "hotel-booking-async-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  public static final class Builder {
+    private HotelBookingService service;
+    private ExecutorService executor;
+
+    public Builder withService(HotelBookingService service) {
+      if (service == null) {
+        throw new NullPointerException("Service is required.");
+      }
+
+      this.service = service;
+      return this;
+    }
+
+    /**
+     * @param executor The executor running the calls, owned by the caller
+     */
+    public Builder withExecutor(ExecutorService executor) {
+      if (executor == null) {
+        throw new NullPointerException("Executor is required.");
+      }
+
+      this.executor = executor;
+      return this;
+    }
+
+    public AsyncHotelBookingService build() {
+      if (service == null) {
+        throw new NullPointerException("Service is required.");
+      }
+
+      return new AsyncHotelBookingService(this);
+    }
+  }
+
+}
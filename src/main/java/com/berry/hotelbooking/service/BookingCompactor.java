@@ -0,0 +1,129 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.CompactionReport;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Removes the bookings older than a retention window from a booking service, on demand or periodically,
+ * so the memory of a hotel is bounded by its upcoming bookings rather than its whole history.
+ */
+public class BookingCompactor implements AutoCloseable {
+
+  private static Logger logger = Logger.getLogger(BookingCompactor.class.getName());
+
+  private final HotelBookingService service;
+  private final int retentionDays;
+  private volatile CompactionReport lastReport;
+  private ScheduledExecutorService scheduler;
+
+  private BookingCompactor(Builder builder) {
+    this.service = builder.service;
+    this.retentionDays = builder.retentionDays;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method removes the bookings dated before the retention window.
+   * @return What was removed and an estimate of the reclaimed memory
+   */
+  public synchronized CompactionReport compact() {
+    CompactionReport report = service.compactBookings(LocalDate.now().minusDays(retentionDays));
+    logger.log(Level.INFO, "Compacted bookings: {0}", report);
+
+    lastReport = report;
+    return report;
+  }
+
+  /**
+   * This method compacts periodically in a background thread, until closed.
+   * @param period The delay between the end of a compaction and the start of the next one
+   * @param unit The unit of the period
+   */
+  public synchronized void start(long period, TimeUnit unit) {
+    if (scheduler != null) {
+      throw new IllegalStateException("Compactor is already started.");
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "hotel-booking-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        compact();
+      } catch (RuntimeException e) {
+        logger.log(Level.SEVERE, "Unable to compact bookings.", e);
+      }
+    }, period, period, unit);
+  }
+
+  /**
+   * @return The report of the latest compaction, or null if none has run yet
+   */
+  public CompactionReport getLastReport() {
+    return lastReport;
+  }
+
+  @Override
+  public void close() {
+    ScheduledExecutorService current;
+    synchronized (this) {
+      current = scheduler;
+      scheduler = null;
+    }
+
+    if (current != null) {
+      current.shutdown();
+      try {
+        current.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public static final class Builder {
+    private HotelBookingService service;
+    private int retentionDays;
+
+    public Builder withService(HotelBookingService service) {
+      if (service == null) {
+        throw new NullPointerException("Service is required.");
+      }
+
+      this.service = service;
+      return this;
+    }
+
+    /**
+     * @param retentionDays The number of past days whose bookings are kept, none by default
+     */
+    public Builder withRetentionDays(int retentionDays) {
+      if (retentionDays < 0) {
+        throw new IllegalArgumentException("Invalid retention days.");
+      }
+
+      this.retentionDays = retentionDays;
+      return this;
+    }
+
+    public BookingCompactor build() {
+      if (service == null) {
+        throw new NullPointerException("Service is required.");
+      }
+
+      return new BookingCompactor(this);
+    }
+  }
+
+}
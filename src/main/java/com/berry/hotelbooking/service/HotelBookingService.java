@@ -1,72 +1,871 @@
 package com.berry.hotelbooking.service;
 
+import com.berry.hotelbooking.audit.AuditEventType;
+import com.berry.hotelbooking.audit.AuditLog;
+import com.berry.hotelbooking.cache.AvailabilityCache;
+import com.berry.hotelbooking.index.OccupancyIndex;
+import com.berry.hotelbooking.index.RoomAttributeIndex;
+import com.berry.hotelbooking.index.RoomOrdinals;
+import com.berry.hotelbooking.index.UserBookingIndex;
+import com.berry.hotelbooking.metrics.HotelBookingMetrics;
 import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.persistence.WalRecordType;
+import com.berry.hotelbooking.persistence.WriteAheadLog;
+import com.berry.hotelbooking.store.BookingListener;
+import com.berry.hotelbooking.store.BookingStore;
+import com.berry.hotelbooking.store.BookingWaitlist;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import com.berry.hotelbooking.store.VersionedBookingStore;
+import com.berry.hotelbooking.timer.HashedTimingWheel;
 import com.berry.hotelbooking.utils.GenericResponseUtils;
+import com.berry.hotelbooking.dto.CompactionReport;
 import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.dto.OccupancyCalendar;
+import com.berry.hotelbooking.dto.Page;
+import com.berry.hotelbooking.dto.RoomCriteria;
+import com.berry.hotelbooking.dto.RoomHold;
 
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class HotelBookingService {
 
   private static Logger logger = Logger.getLogger(HotelBookingService.class.getName());
   private final Hotel hotel;
+  private final AuditLog auditLog;
+  private final WriteAheadLog writeAheadLog;
+  private final HashedTimingWheel timingWheel;
+  private final Executor expiryExecutor;
+  private final ConcurrentHashMap<BookingRoom, Hold> holds = new ConcurrentHashMap<>();
+  private final BookingWaitlist waitlist;
+  private final UserBookingIndex userBookingIndex;
+  private final OccupancyIndex occupancyIndex;
+  private final RoomAttributeIndex roomAttributeIndex;
+  private final AvailabilityCache availabilityCache;
+  private final HotelBookingMetrics metrics;
+  private final BookingListener indexListener = new BookingListener() {
+    @Override
+    public void onReserved(BookingRoom bookingRoom, User user) {
+      if (writeAheadLog != null) {
+        writeAheadLog.append(WalRecordType.RESERVE, bookingRoom, user);
+      }
+      index(bookingRoom, user);
+    }
+
+    @Override
+    public void onReleased(BookingRoom bookingRoom, User user) {
+      if (writeAheadLog != null) {
+        writeAheadLog.append(WalRecordType.CANCEL, bookingRoom, user);
+      }
+      unindex(bookingRoom, user);
+    }
+
+    @Override
+    public void onHandedOver(BookingRoom bookingRoom, User user, User successor) {
+      if (writeAheadLog != null) {
+        writeAheadLog.appendHandOver(bookingRoom, user, successor);
+      }
+      reindex(bookingRoom, user, successor);
+    }
+  };
+  private final BookingListener holdListener = new BookingListener() {
+    @Override
+    public void onReserved(BookingRoom bookingRoom, User user) {
+      occupancyIndex.markBooked(bookingRoom);
+    }
 
+    @Override
+    public void onReleased(BookingRoom bookingRoom, User user) {
+      occupancyIndex.markFree(bookingRoom);
+    }
+  };
+  private final BookingListener rollbackListener = new BookingListener() {
+    @Override
+    public void onReserved(BookingRoom bookingRoom, User user) {
+      index(bookingRoom, user);
+    }
+
+    @Override
+    public void onReleased(BookingRoom bookingRoom, User user) {
+      unindex(bookingRoom, user);
+    }
+
+    @Override
+    public void onHandedOver(BookingRoom bookingRoom, User user, User successor) {
+      reindex(bookingRoom, user, successor);
+    }
+  };
+
+  /**
+   * Existing bookings of the hotel are indexed here, so any further booking
+   * should go through this service to keep the indexes in sync. The occupancy is rebuilt from the packed keys
+   * of the bookings before this returns, the bookings of each user are loaded on a background thread.
+   * @param hotel The hotel to manage
+   */
   public HotelBookingService(Hotel hotel) {
-    this.hotel = hotel;
+    this(NewBuilder().withHotel(hotel));
+  }
+
+  /**
+   * @param hotel The hotel to manage
+   * @param auditLog The audit log which receives the events of this service
+   */
+  public HotelBookingService(Hotel hotel, AuditLog auditLog) {
+    this(NewBuilder().withHotel(hotel).withAuditLog(auditLog));
+  }
+
+  private HotelBookingService(Builder builder) {
+    this.hotel = builder.hotel;
+    this.auditLog = builder.auditLog != null ? builder.auditLog : AuditLog.getDefault();
+    this.writeAheadLog = builder.writeAheadLog;
+    this.timingWheel = builder.timingWheel != null ? builder.timingWheel : HashedTimingWheel.getDefault();
+    this.expiryExecutor = builder.expiryExecutor != null ? builder.expiryExecutor : ForkJoinPool.commonPool();
+    this.waitlist = BookingWaitlist.NewBuilder().withMaximumWaiters(builder.maximumWaiters).build();
+    this.occupancyIndex = new OccupancyIndex(
+        new RoomOrdinals(hotel == null ? Collections.emptySet() : hotel.getRooms())
+    );
+    this.roomAttributeIndex = new RoomAttributeIndex(occupancyIndex.getRoomOrdinals());
+    this.availabilityCache = AvailabilityCache.NewBuilder()
+        .withOccupancyIndex(occupancyIndex)
+        .withMaximumSize(builder.availabilityCacheSize)
+        .build();
+
+    this.metrics = new HotelBookingMetrics(() -> hotel == null ? 0 : hotel.getBookingStore().size());
+
+    BookingStore bookingStore = hotel == null ? null : hotel.getBookingStore();
+    this.userBookingIndex = new UserBookingIndex(bookingStore != null && bookingStore.size() > 0);
+    if (!userBookingIndex.isLoaded()) {
+      // The searches of rooms are answered from the occupancy right away, the bookings of users once they're loaded.
+      bookingStore.forEachKey((user, key) -> occupancyIndex.markBooked(
+          PrimitiveBookingStore.roomNumberOf(key), PrimitiveBookingStore.bookingDateOf(key)
+      ));
+      Thread loader = new Thread(() -> userBookingIndex.load(bookingStore::forEach), "hotel-booking-index-loader");
+      loader.setDaemon(true);
+      loader.start();
+    }
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
   }
 
   /**
    * This method checks for a valid booking info, then makes a reservation.
+   * With a write-ahead log, the reservation is only reported once its record is durable.
    * @param booking The booking info
    * @return A generic response with fail status and a meaningful message.
    * Or a successful status with a corresponding data
    */
   public GenericResponse<Booking> reserveRoom(Booking booking) {
-    GenericResponse genericResponse = HotelBookingValidation.validateBookingInfo(logger, hotel, booking);
+    return reserveRoom(booking, ReservationPolicy.EXACT_ROOM);
+  }
+
+  /**
+   * This method checks for a valid booking info, then makes a reservation following a policy.
+   * With {@link ReservationPolicy#NEAREST_AVAILABLE}, a taken room falls back to the nearest free room
+   * of the same type and at least the same capacity, so the caller doesn't retry for another room.
+   * @param booking The booking info
+   * @param reservationPolicy The policy when the requested room is taken
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the booking of the reserved room, which may differ from the requested one
+   */
+  public GenericResponse<Booking> reserveRoom(Booking booking, ReservationPolicy reservationPolicy) {
+    if (reservationPolicy == null) {
+      throw new NullPointerException("Reservation policy is required.");
+    }
+
+    long startNanos = System.nanoTime();
+    GenericResponse<Booking> response = reserve(booking);
+    if (reservationPolicy == ReservationPolicy.NEAREST_AVAILABLE
+        && (response == HotelErrorCode.ROOM_UNAVAILABLE.<Booking>getResponse()
+        || response == HotelErrorCode.RESERVATION_LOST_RACE.<Booking>getResponse())) {
+      response = reserveNearestRoom(booking);
+    }
+
+    metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, startNanos, response);
+    return response;
+  }
+
+  private GenericResponse<Booking> reserve(Booking booking) {
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingInfo(hotel, booking));
     if (genericResponse != null) {
       return genericResponse;
     }
 
-    logger.info(booking.toString());
+    auditLog.publish(logger, AuditEventType.RESERVATION_REQUESTED, booking);
 
-    if (hotel.getBookings().putIfAbsent(booking.getBookingRoom(), booking.getUser()) == null) {
+    HotelErrorCode errorCode = claim(Collections.singletonList(booking), true, null, indexListener);
+    if (errorCode == null) {
       return GenericResponseUtils.generateFromSuccessfulData(booking);
     }
+    if (errorCode != HotelErrorCode.ROOM_UNAVAILABLE) {
+      return errorCode.getResponse();
+    }
+
+    auditLog.publish(logger, AuditEventType.RESERVATION_LOST_RACE, HotelErrorCode.RESERVATION_LOST_RACE.getMessage());
+    return HotelErrorCode.RESERVATION_LOST_RACE.getResponse();
+  }
+
+  /**
+   * This method claims the free room nearest to a taken one among the rooms of the same type
+   * sleeping at least as many guests. A room lost to a concurrent booking is dropped from the candidates,
+   * so every room is tried at most once.
+   */
+  private GenericResponse<Booking> reserveNearestRoom(Booking booking) {
+    RoomOrdinals roomOrdinals = occupancyIndex.getRoomOrdinals();
+    int requestedOrdinal = roomOrdinals.ordinalOf(booking.getBookingRoom().getRoom());
+    Room requestedRoom = roomOrdinals.roomAt(requestedOrdinal);
+    LocalDate bookingDate = booking.getBookingRoom().getBookingDate();
+    long[] candidates = roomAttributeIndex.findMatchingRooms(RoomCriteria.NewBuilder()
+        .withRoomType(requestedRoom.getRoomType())
+        .withMinimumCapacity(requestedRoom.getCapacity())
+        .build());
+
+    int ordinal;
+    while ((ordinal = occupancyIndex.nearestAvailableRoom(bookingDate, candidates, requestedOrdinal)) >= 0) {
+      candidates[ordinal >>> 6] &= ~(1L << ordinal);
+      Booking nearestBooking = Booking.NewBuilder()
+          .withUser(booking.getUser())
+          .withBookingRoom(BookingRoom.NewBuilder().withRoom(roomOrdinals.roomAt(ordinal)).withBookingDate(bookingDate).build())
+          .build();
+
+      HotelErrorCode errorCode = claim(Collections.singletonList(nearestBooking), true, null, indexListener);
+      if (errorCode == null) {
+        auditLog.publish(logger, AuditEventType.ROOM_REASSIGNED, nearestBooking);
+        return GenericResponseUtils.generateFromSuccessfulData(nearestBooking);
+      }
+      if (errorCode != HotelErrorCode.ROOM_UNAVAILABLE) {
+        return errorCode.getResponse();
+      }
+    }
+
+    auditLog.publish(logger, AuditEventType.ROOM_UNAVAILABLE, HotelErrorCode.ROOM_UNAVAILABLE.getMessage());
+    return HotelErrorCode.ROOM_UNAVAILABLE.getResponse();
+  }
+
+  /**
+   * This method reserves any free room of a type in a giving date, so the caller doesn't pick a room number.
+   * One room is first reserved out of the per-type counter of the date with a compare-and-set, so callers never
+   * outnumber the rooms left, then the free rooms of the type are claimed one after another until a claim succeeds.
+   * Losing a room to a concurrent booking moves on to the next one, and the reservation only fails
+   * once the counter reads zero, i.e. no room of the type is left.
+   * @param user The user
+   * @param bookingDate The giving date
+   * @param roomType The room type
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the booking of the claimed room
+   */
+  public GenericResponse<Booking> reserveRoomOfType(User user, LocalDate bookingDate, RoomType roomType) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      return reject(HotelErrorCode.INVALID_HOTEL);
+    }
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkUserInfo(user));
+    if (genericResponse == null) {
+      genericResponse = reject(ValidationEngine.checkBookingDate(bookingDate));
+    }
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+    if (roomType == null) {
+      return reject(HotelErrorCode.INVALID_ROOM_CRITERIA);
+    }
+
+    auditLog.publish(logger, AuditEventType.ROOM_TYPE_REQUESTED, user, bookingDate);
+
+    long[] roomsOfType = roomAttributeIndex.roomsOfType(roomType);
+    RoomOrdinals roomOrdinals = occupancyIndex.getRoomOrdinals();
+    boolean[] reservationUsed = new boolean[1];
+    BookingListener reservedRoomListener = (bookingRoom, owner) -> {
+      if (writeAheadLog != null) {
+        writeAheadLog.append(WalRecordType.RESERVE, bookingRoom, owner);
+      }
+      userBookingIndex.add(owner, bookingRoom);
+      occupancyIndex.markBooked(bookingRoom, true);
+      reservationUsed[0] = true;
+    };
+
+    while (occupancyIndex.reserveRoomOfType(bookingDate, roomType)) {
+      int ordinal = occupancyIndex.nextAvailableRoom(bookingDate, roomsOfType, 0);
+      while (ordinal >= 0) {
+        Booking booking = Booking.NewBuilder()
+            .withUser(user)
+            .withBookingRoom(BookingRoom.NewBuilder().withRoom(roomOrdinals.roomAt(ordinal)).withBookingDate(bookingDate).build())
+            .build();
 
-    logger.info("Oops. Please try again.");
-    return GenericResponseUtils.generateFromErrorMessage("Oops. Please try again.");
+        HotelErrorCode errorCode = claim(Collections.singletonList(booking), true, null, reservedRoomListener);
+        if (errorCode == null) {
+          return GenericResponseUtils.generateFromSuccessfulData(booking);
+        }
+        if (errorCode != HotelErrorCode.ROOM_UNAVAILABLE) {
+          // A booked room gives its reservation back once released, only an unused one is given back here.
+          if (!reservationUsed[0]) {
+            occupancyIndex.unreserveRoomOfType(bookingDate, roomType);
+          }
+          return errorCode.getResponse();
+        }
+
+        ordinal = occupancyIndex.nextAvailableRoom(bookingDate, roomsOfType, ordinal + 1);
+      }
+
+      // The free rooms went to bookings of exact rooms, which don't reserve first. The count tells if any is left.
+      occupancyIndex.unreserveRoomOfType(bookingDate, roomType);
+      Thread.yield();
+    }
+
+    auditLog.publish(logger, AuditEventType.ROOM_UNAVAILABLE, HotelErrorCode.ROOM_UNAVAILABLE.getMessage());
+    return HotelErrorCode.ROOM_UNAVAILABLE.getResponse();
+  }
+
+  /**
+   * This method reserves many bookings at once. The hotel is validated once for the whole batch,
+   * the valid bookings are sorted by date and room so duplicates inside the batch are detected
+   * side by side, then all of them are committed in one pass against the booking store.
+   * When the same room and date is requested more than once, the first booking of the batch wins.
+   * @param bookings The bookings to reserve
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with one response per booking, in the order of the giving bookings
+   */
+  public GenericResponse<List<GenericResponse<Booking>>> reserveRooms(List<Booking> bookings) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.INVALID_HOTEL.getMessage());
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    if (bookings == null) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.BOOKING_REQUIRED.getMessage());
+      return HotelErrorCode.BOOKING_REQUIRED.getResponse();
+    }
+
+    auditLog.publish(logger, AuditEventType.BATCH_REQUESTED, bookings.size());
+
+    GenericResponse[] results = new GenericResponse[bookings.size()];
+    List<Integer> candidates = new ArrayList<>(bookings.size());
+    for (int i = 0; i < bookings.size(); i++) {
+      results[i] = reject(ValidationEngine.checkBookingItem(hotel.getRooms(), bookings.get(i)));
+      if (results[i] == null) {
+        candidates.add(i);
+      }
+    }
+
+    candidates.sort((first, second) -> {
+      int order = BookingRoom.DATE_THEN_ROOM_ORDER.compare(
+          bookings.get(first).getBookingRoom(), bookings.get(second).getBookingRoom()
+      );
+      return order != 0 ? order : Integer.compare(first, second);
+    });
+
+    List<Booking> uniqueBookings = new ArrayList<>(candidates.size());
+    List<Integer> uniqueIndexes = new ArrayList<>(candidates.size());
+    BookingRoom previousBookingRoom = null;
+    for (int index : candidates) {
+      BookingRoom bookingRoom = bookings.get(index).getBookingRoom();
+      if (bookingRoom.equals(previousBookingRoom)) {
+        results[index] = HotelErrorCode.ROOM_UNAVAILABLE.getResponse();
+        continue;
+      }
+
+      previousBookingRoom = bookingRoom;
+      uniqueBookings.add(bookings.get(index));
+      uniqueIndexes.add(index);
+    }
+
+    boolean[] reserved = new boolean[uniqueBookings.size()];
+    HotelErrorCode errorCode = claim(uniqueBookings, false, reserved, indexListener);
+    if (errorCode != null) {
+      return errorCode.getResponse();
+    }
+
+    for (int i = 0; i < reserved.length; i++) {
+      int index = uniqueIndexes.get(i);
+      results[index] = reserved[i]
+          ? GenericResponseUtils.generateFromSuccessfulData(bookings.get(index))
+          : HotelErrorCode.ROOM_UNAVAILABLE.getResponse();
+    }
+
+    List<GenericResponse<Booking>> responses = new ArrayList<>(results.length);
+    for (GenericResponse result : results) {
+      responses.add(result);
+    }
+    return GenericResponseUtils.generateFromSuccessfulData(responses);
+  }
+
+  /**
+   * This method reserves a room for every night of a stay, from the booking date until the check-out date.
+   * Nights are claimed one by one in date order without any global lock. If one of them is taken,
+   * the nights claimed so far are released, so the stay is either fully reserved or not at all.
+   * @param booking The booking info, its booking date is the check-in date
+   * @param checkOutDate The check-out date, which is not reserved
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the reserved nights
+   */
+  public GenericResponse<List<BookingRoom>> reserveStay(Booking booking, LocalDate checkOutDate) {
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingInfo(hotel, booking));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    LocalDate checkInDate = booking.getBookingRoom().getBookingDate();
+    genericResponse = reject(ValidationEngine.checkStayDates(checkInDate, checkOutDate));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.STAY_REQUESTED, booking, checkOutDate);
+
+    List<BookingRoom> nights = new ArrayList<>();
+    List<Booking> nightBookings = new ArrayList<>();
+    for (LocalDate night = checkInDate; night.isBefore(checkOutDate); night = night.plusDays(1)) {
+      BookingRoom bookingRoom = night.equals(checkInDate)
+          ? booking.getBookingRoom()
+          : BookingRoom.NewBuilder().withRoom(booking.getBookingRoom().getRoom()).withBookingDate(night).build();
+      nights.add(bookingRoom);
+      nightBookings.add(Booking.NewBuilder().withUser(booking.getUser()).withBookingRoom(bookingRoom).build());
+    }
+
+    HotelErrorCode errorCode = claim(nightBookings, true, null, indexListener);
+    if (errorCode == HotelErrorCode.ROOM_UNAVAILABLE) {
+      auditLog.publish(logger, AuditEventType.ROOM_UNAVAILABLE, errorCode.getMessage());
+    }
+    if (errorCode != null) {
+      return errorCode.getResponse();
+    }
+
+    return GenericResponseUtils.generateFromSuccessfulData(nights);
+  }
+
+  /**
+   * This method cancels a booking if the giving user still owns it. The booking is removed
+   * together with its index entries while the room and date is held, so the freed room shows up
+   * in the next search right away. When users wait for the room, it goes straight to the first of them instead.
+   * With a write-ahead log, the cancellation is only reported once its record is durable.
+   * @param booking The booking to cancel
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the cancelled booking
+   */
+  public GenericResponse<Booking> cancelBooking(Booking booking) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.INVALID_HOTEL.getMessage());
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingItem(hotel.getRooms(), booking));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.CANCELLATION_REQUESTED, booking);
+    removeHold(booking);
+
+    boolean released;
+    User[] waiter = new User[1];
+    int epoch = beginMutation();
+    try {
+      released = handOverToWaiter(booking.getBookingRoom(), booking.getUser(), waiter);
+    } catch (UncheckedIOException e) {
+      return persistenceFailed(e);
+    } finally {
+      endMutation(epoch);
+    }
+
+    if (!released) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.BOOKING_NOT_FOUND.getMessage());
+      return HotelErrorCode.BOOKING_NOT_FOUND.getResponse();
+    }
+
+    if (!awaitDurable()) {
+      // The log is broken, so the booking is only given back in memory, where the log still has it.
+      if (waiter[0] == null) {
+        hotel.getBookingStore().reserve(booking.getBookingRoom(), booking.getUser(), rollbackListener);
+      } else {
+        hotel.getBookingStore().handOver(booking.getBookingRoom(), waiter[0], booking::getUser, rollbackListener);
+        waitlist.requeue(booking.getBookingRoom(), waiter[0]);
+      }
+      return HotelErrorCode.PERSISTENCE_FAILED.getResponse();
+    }
+
+    publishPromotion(booking.getBookingRoom(), waiter[0]);
+    return GenericResponseUtils.generateFromSuccessfulData(booking);
+  }
+
+  /**
+   * This method puts a user in line for a taken room and date. When the room is freed by a cancellation
+   * or a hold which ends, it's reserved right away for the first user of the line, nobody has to poll.
+   * A room which is free already is reserved for the user straight away.
+   * @param booking The booking info
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the position of the user in the line from 1, or 0 once the room is reserved for the user
+   */
+  public GenericResponse<Integer> joinWaitlist(Booking booking) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.INVALID_HOTEL.getMessage());
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingItem(hotel.getRooms(), booking));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.WAITLIST_JOINED, booking);
+
+    int position = waitlist.join(booking.getBookingRoom(), booking.getUser());
+    if (position < 0) {
+      return reject(HotelErrorCode.WAITLIST_FULL);
+    }
+
+    // The room may have been freed before the user joined, with nobody in line to promote.
+    if (position == 1) {
+      promoteWaiter(booking.getBookingRoom());
+    }
+
+    if (booking.getUser().equals(hotel.getBookingStore().findOwner(booking.getBookingRoom()))) {
+      waitlist.leave(booking.getBookingRoom(), booking.getUser());
+      return GenericResponseUtils.generateFromSuccessfulData(0);
+    }
+
+    return GenericResponseUtils.generateFromSuccessfulData(position);
+  }
+
+  /**
+   * This method takes a user out of the line of a room and date.
+   * @param booking The booking info the user joined the line with
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the giving booking
+   */
+  public GenericResponse<Booking> leaveWaitlist(Booking booking) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.INVALID_HOTEL.getMessage());
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingItem(hotel.getRooms(), booking));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.WAITLIST_LEFT, booking);
+
+    if (!waitlist.leave(booking.getBookingRoom(), booking.getUser())) {
+      return reject(HotelErrorCode.NOT_WAITLISTED);
+    }
+
+    return GenericResponseUtils.generateFromSuccessfulData(booking);
+  }
+
+  /**
+   * @param bookingRoom The room and date
+   * @return The number of users waiting for the room and date
+   */
+  public int getWaitlistSize(BookingRoom bookingRoom) {
+    return waitlist.size(bookingRoom);
+  }
+
+  /**
+   * This method claims a room in a date for a user while they check out. The room is unavailable to others
+   * until the hold is confirmed, released, or expires after the giving duration.
+   * A hold is kept in memory only, its record is written to the write-ahead log when it's confirmed.
+   * Until then the room isn't among the existed bookings of the user either.
+   * @param booking The booking info
+   * @param duration The time to keep the hold, at most {@link HotelBookingValidation#MAX_HOLD_DURATION}
+   * @return A generic response with fail status and a meaningful message, e.g. when holds can't expire anymore.
+   * Or a successful status with the hold and its expiry time
+   */
+  public GenericResponse<RoomHold> holdRoom(Booking booking, Duration duration) {
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingInfo(hotel, booking));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    genericResponse = reject(ValidationEngine.checkHoldDuration(duration));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.HOLD_REQUESTED, booking);
+
+    RoomHold roomHold = RoomHold.NewBuilder()
+        .withBooking(booking)
+        .withExpiresAt(Instant.now().plus(duration))
+        .build();
+    Hold hold = new Hold(roomHold);
+    BookingListener pendingListener = (bookingRoom, user) -> {
+      holdListener.onReserved(bookingRoom, user);
+      holds.put(bookingRoom, hold);
+    };
+
+    if (!hotel.getBookingStore().reserve(booking.getBookingRoom(), booking.getUser(), pendingListener)) {
+      auditLog.publish(logger, AuditEventType.ROOM_UNAVAILABLE, HotelErrorCode.ROOM_UNAVAILABLE.getMessage());
+      return HotelErrorCode.ROOM_UNAVAILABLE.getResponse();
+    }
+
+    try {
+      hold.timeout = timingWheel.schedule(() -> submitExpiry(hold), duration.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (IllegalStateException e) {
+      // The timing wheel is closed, so the hold could never expire.
+      holds.remove(booking.getBookingRoom(), hold);
+      hotel.getBookingStore().release(booking.getBookingRoom(), booking.getUser(), holdListener);
+      return reject(HotelErrorCode.SERVICE_BUSY);
+    }
+    return GenericResponseUtils.generateFromSuccessfulData(roomHold);
+  }
+
+  /**
+   * This method turns a hold of the giving user into a booking, if it hasn't expired yet.
+   * With a write-ahead log, the booking is only reported once its record is durable.
+   * @param booking The booking info of the hold
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the confirmed booking
+   */
+  public GenericResponse<Booking> confirmHold(Booking booking) {
+    GenericResponse genericResponse = validateHold(booking);
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.HOLD_CONFIRMED, booking);
+
+    if (!removeHold(booking)) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.HOLD_NOT_FOUND.getMessage());
+      return HotelErrorCode.HOLD_NOT_FOUND.getResponse();
+    }
+
+    // The held room is already marked booked, only its user doesn't have it yet.
+    userBookingIndex.add(booking.getUser(), booking.getBookingRoom());
+
+    if (writeAheadLog != null) {
+      int epoch = beginMutation();
+      try {
+        writeAheadLog.append(WalRecordType.RESERVE, booking.getBookingRoom(), booking.getUser());
+      } catch (UncheckedIOException e) {
+        hotel.getBookingStore().release(booking.getBookingRoom(), booking.getUser(), rollbackListener);
+        return persistenceFailed(e);
+      } finally {
+        endMutation(epoch);
+      }
+    }
+
+    if (!awaitDurable()) {
+      release(booking.getBookingRoom(), booking.getUser());
+      return HotelErrorCode.PERSISTENCE_FAILED.getResponse();
+    }
+
+    return GenericResponseUtils.generateFromSuccessfulData(booking);
+  }
+
+  /**
+   * This method gives back a room held by the giving user before its hold expires, e.g. when the payment fails.
+   * @param booking The booking info of the hold
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with the released booking
+   */
+  public GenericResponse<Booking> releaseHold(Booking booking) {
+    GenericResponse genericResponse = validateHold(booking);
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    auditLog.publish(logger, AuditEventType.HOLD_RELEASED, booking);
+
+    if (!removeHold(booking)) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.HOLD_NOT_FOUND.getMessage());
+      return HotelErrorCode.HOLD_NOT_FOUND.getResponse();
+    }
+
+    endHold(booking);
+    return GenericResponseUtils.generateFromSuccessfulData(booking);
+  }
+
+  /**
+   * The metrics of reserveRoom, findAvailableRooms and findExistedBookings are always recorded,
+   * call {@link HotelBookingMetrics#registerMBean(String)} to expose them over JMX.
+   * @return The metrics of this service
+   */
+  public HotelBookingMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return The cache of the available rooms by date, e.g. to read its hit and miss counts
+   */
+  public AvailabilityCache getAvailabilityCache() {
+    return availabilityCache;
+  }
+
+  /**
+   * @return The number of holds which are neither confirmed, released nor expired yet
+   */
+  public int getHoldCount() {
+    return holds.size();
+  }
+
+  /**
+   * A hold isn't in the write-ahead log until it's confirmed, so a snapshot must leave it out,
+   * see {@link com.berry.hotelbooking.persistence.HotelSnapshotter.Builder#withUnloggedBookings}.
+   * @param bookingRoom The room and date
+   * @return True if the room is held in the date
+   */
+  public boolean isHeld(BookingRoom bookingRoom) {
+    return holds.containsKey(bookingRoom);
+  }
+
+  /**
+   * This method opens a view answering any number of searches from the same version of the bookings,
+   * e.g. for a dashboard whose figures must add up. Opening it never blocks a reservation.
+   * @return The view, to close once read
+   * @throws UnsupportedOperationException if the hotel isn't built with a {@link VersionedBookingStore}
+   */
+  public HotelBookingView openView() {
+    if (hotel == null) {
+      throw new UnsupportedOperationException("Bookings are not versioned.");
+    }
+
+    return new HotelBookingView(occupancyIndex.getRoomOrdinals(), auditLog, hotel.getBookingStore().openSnapshot(), this::isHeld);
   }
 
   /**
    * This method will retrieve all available rooms in a giving date.
+   * The rooms come as a read-only set backed by the occupancy bits of the date, which may be shared
+   * with other callers through the availability cache. Copy it, e.g. into a {@code HashSet}, to modify it.
    * @param bookingDate The giving date
    * @return A generic response with fail status and a meaningful message.
-   * Or a successful status with a corresponding data
+   * Or a successful status with an unmodifiable set of the available rooms
    */
   public GenericResponse<Set<Room>> findAvailableRooms(LocalDate bookingDate) {
-    logger.info(String.format("Booking date: %s", bookingDate));
+    long startNanos = System.nanoTime();
+    GenericResponse<Set<Room>> response = searchAvailableRooms(bookingDate);
+    metrics.record(HotelBookingMetrics.Operation.FIND_AVAILABLE_ROOMS, startNanos, response);
+    return response;
+  }
 
-    GenericResponse genericResponse = HotelBookingValidation.validateBookingDate(logger, bookingDate);
+  private GenericResponse<Set<Room>> searchAvailableRooms(LocalDate bookingDate) {
+    auditLog.publish(logger, AuditEventType.AVAILABILITY_SEARCHED, bookingDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingDate(bookingDate));
     if (genericResponse != null) {
       return genericResponse;
     }
 
-    Set<Room> availableRooms =
-        hotel.getRooms()
-            .stream()
-            .filter(
-                room -> !hotel.getBookings().containsKey(
-                    BookingRoom.NewBuilder().withRoom(room).withBookingDate(bookingDate).build()
-                )
-            )
-            .collect(Collectors.toSet());
+    Set<Room> availableRooms = availabilityCache.findAvailableRooms(bookingDate);
     return GenericResponseUtils.generateFromSuccessfulData(availableRooms);
   }
 
+  /**
+   * This method will retrieve the available rooms in a giving date which match some criteria.
+   * The bitmaps of the given attributes are intersected with the occupancy of the date,
+   * so the other rooms are never built.
+   * @param bookingDate The giving date
+   * @param roomCriteria The attributes the rooms must have
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with an unmodifiable set of the matching rooms
+   */
+  public GenericResponse<Set<Room>> findAvailableRooms(LocalDate bookingDate, RoomCriteria roomCriteria) {
+    auditLog.publish(logger, AuditEventType.AVAILABILITY_SEARCHED, bookingDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingDate(bookingDate));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+    if (roomCriteria == null) {
+      return reject(HotelErrorCode.INVALID_ROOM_CRITERIA);
+    }
+
+    long[] matchingRooms = roomAttributeIndex.findMatchingRooms(roomCriteria);
+    Set<Room> availableRooms = occupancyIndex.findAvailableRooms(bookingDate, matchingRooms);
+    return GenericResponseUtils.generateFromSuccessfulData(availableRooms);
+  }
+
+  /**
+   * This method will retrieve one page of the available rooms in a giving date.
+   * Pages are read straight from the occupancy bitset, so the rooms of the other pages are never built.
+   * @param bookingDate The giving date
+   * @param pageToken The token of the previous page, or null for the first page
+   * @param pageSize The maximum number of rooms of the page
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Page<Room>> findAvailableRooms(LocalDate bookingDate, String pageToken, int pageSize) {
+    auditLog.publish(logger, AuditEventType.AVAILABILITY_SEARCHED, bookingDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingDate(bookingDate));
+    if (genericResponse == null) {
+      genericResponse = reject(ValidationEngine.checkPageSize(pageSize));
+    }
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    int fromOrdinal = parseRoomPageToken(pageToken);
+    if (fromOrdinal < 0) {
+      return reject(HotelErrorCode.INVALID_PAGE);
+    }
+
+    List<Room> rooms = new ArrayList<>(Math.min(pageSize, occupancyIndex.getRoomOrdinals().size()));
+    int nextOrdinal = occupancyIndex.collectAvailableRooms(bookingDate, fromOrdinal, pageSize, rooms);
+    Page<Room> page = Page.<Room>NewBuilder()
+        .withItems(rooms)
+        .withNextPageToken(nextOrdinal < 0 ? null : Integer.toString(nextOrdinal))
+        .build();
+    return GenericResponseUtils.generateFromSuccessfulData(page);
+  }
+
+  /**
+   * This method will retrieve the rooms available for every night of a range,
+   * intersecting the occupancy of each date word by word.
+   * @param fromDate The first night
+   * @param toDate The date after the last night, like a check-out date
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with an unmodifiable set of the available rooms
+   */
+  public GenericResponse<Set<Room>> findAvailableRooms(LocalDate fromDate, LocalDate toDate) {
+    auditLog.publish(logger, AuditEventType.AVAILABILITY_SEARCHED, fromDate, toDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkStayDates(fromDate, toDate));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    Set<Room> availableRooms = occupancyIndex.findAvailableRooms(fromDate, toDate);
+    return GenericResponseUtils.generateFromSuccessfulData(availableRooms);
+  }
+
+  /**
+   * This method will return the number of booked rooms for each day of a range,
+   * read from counters kept up to date by every reservation.
+   * @param fromDate The first day, which may be in the past
+   * @param toDate The date after the last day, at most {@link HotelBookingValidation#MAX_DAYS_OF_CALENDAR} days after the first one
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<OccupancyCalendar> findOccupancyCalendar(LocalDate fromDate, LocalDate toDate) {
+    auditLog.publish(logger, AuditEventType.CALENDAR_SEARCHED, fromDate, toDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkCalendarRange(fromDate, toDate));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    OccupancyCalendar occupancyCalendar = OccupancyCalendar.NewBuilder()
+        .withFromDate(fromDate)
+        .withTotalRooms(occupancyIndex.getRoomOrdinals().size())
+        .withBookedRooms(occupancyIndex.countBookedRooms(fromDate, toDate))
+        .build();
+    return GenericResponseUtils.generateFromSuccessfulData(occupancyCalendar);
+  }
+
   /**
    * This method will return all existed booking of a user.
    * @param user The user
@@ -74,19 +873,529 @@ public class HotelBookingService {
    * Or a successful status with a corresponding data
    */
   public GenericResponse<Set<BookingRoom>> findExistedBookings(User user) {
-    logger.info(user.toString());
+    long startNanos = System.nanoTime();
+    GenericResponse<Set<BookingRoom>> response = searchExistedBookings(user);
+    metrics.record(HotelBookingMetrics.Operation.FIND_EXISTED_BOOKINGS, startNanos, response);
+    return response;
+  }
+
+  private GenericResponse<Set<BookingRoom>> searchExistedBookings(User user) {
+    auditLog.publish(logger, AuditEventType.BOOKINGS_SEARCHED, user);
 
-    GenericResponse genericResponse = HotelBookingValidation.validateUserInfo(logger, user);
+    GenericResponse genericResponse = reject(ValidationEngine.checkUserInfo(user));
     if (genericResponse != null) {
       return genericResponse;
     }
 
-    Set<BookingRoom> existedBookings = hotel.getBookings().entrySet()
-        .stream()
-        .filter(booking -> booking.getValue().equals(user))
-        .map(Map.Entry::getKey)
-        .collect(Collectors.toSet());
+    Set<BookingRoom> existedBookings = userBookingIndex.findBookings(user);
     return GenericResponseUtils.generateFromSuccessfulData(existedBookings);
   }
 
+  /**
+   * This method will return one page of the existed bookings of a user, by date then room.
+   * The page resumes right after the last booking of the previous one,
+   * so bookings made or cancelled in between don't shift the pages.
+   * @param user The user
+   * @param pageToken The token of the previous page, or null for the first page
+   * @param pageSize The maximum number of bookings of the page
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Page<BookingRoom>> findExistedBookings(User user, String pageToken, int pageSize) {
+    auditLog.publish(logger, AuditEventType.BOOKINGS_SEARCHED, user);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkUserInfo(user));
+    if (genericResponse == null) {
+      genericResponse = reject(ValidationEngine.checkPageSize(pageSize));
+    }
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    BookingRoom after = null;
+    if (pageToken != null) {
+      after = parseBookingPageToken(pageToken);
+      if (after == null) {
+        return reject(HotelErrorCode.INVALID_PAGE);
+      }
+    }
+
+    List<BookingRoom> bookingRooms = new ArrayList<>(Math.min(pageSize, 64));
+    boolean hasNextPage = userBookingIndex.collectBookings(user, after, pageSize, bookingRooms);
+    String nextPageToken = null;
+    if (hasNextPage) {
+      BookingRoom last = bookingRooms.get(bookingRooms.size() - 1);
+      nextPageToken = last.getBookingDate().toEpochDay() + ":" + last.getRoom().getRoomNumber();
+    }
+
+    Page<BookingRoom> page = Page.<BookingRoom>NewBuilder().withItems(bookingRooms).withNextPageToken(nextPageToken).build();
+    return GenericResponseUtils.generateFromSuccessfulData(page);
+  }
+
+  /**
+   * This method removes the bookings dated before a giving date from memory, together with their index
+   * entries and the occupancy of their dates. Bookings are removed one by one, so reservations
+   * keep going during the sweep. Past dates can't be booked anymore, so nothing is added behind it.
+   * The removal isn't written to the write-ahead log: the next snapshot leaves these bookings out,
+   * and the few replayed after a recovery are removed again by the next compaction.
+   * @param beforeDate The first date to keep, not after today
+   * @return What was removed and an estimate of the reclaimed memory
+   * @throws IllegalArgumentException if the date is after today
+   */
+  public CompactionReport compactBookings(LocalDate beforeDate) {
+    if (beforeDate == null) {
+      throw new NullPointerException("Before date is required.");
+    }
+    if (beforeDate.isAfter(LocalDate.now())) {
+      throw new IllegalArgumentException("Only past bookings can be compacted.");
+    }
+
+    CompactionReport.Builder reportBuilder = CompactionReport.NewBuilder().withBeforeDate(beforeDate);
+    if (hotel == null) {
+      return reportBuilder.build();
+    }
+
+    long storeFootprint = hotel.getBookingStore().footprintBytes();
+    int removedBookings = hotel.getBookingStore().removeBefore(beforeDate, rollbackListener);
+    int removedDates = occupancyIndex.removeBefore(beforeDate);
+    availabilityCache.removeBefore(beforeDate);
+    waitlist.removeBefore(beforeDate);
+    hotel.getBookingStore().reclaim();
+    long reclaimedBytes = Math.max(0L, storeFootprint - hotel.getBookingStore().footprintBytes())
+        + (long) removedBookings * UserBookingIndex.ESTIMATED_BYTES_PER_BOOKING
+        + removedDates * occupancyIndex.bytesPerDate();
+
+    auditLog.publish(logger, AuditEventType.BOOKINGS_COMPACTED, removedBookings);
+    return reportBuilder
+        .withRemovedBookings(removedBookings)
+        .withRemovedDates(removedDates)
+        .withReclaimedBytes(reclaimedBytes)
+        .build();
+  }
+
+  /**
+   * This method publishes a rejection to the audit log of this service and returns the shared response of its code.
+   * @param errorCode The error code, or null if the input is valid
+   * @return The response of the error code, or null if the input is valid
+   */
+  private GenericResponse reject(HotelErrorCode errorCode) {
+    return HotelBookingValidation.reject(auditLog, logger, errorCode);
+  }
+
+  /**
+   * This method keeps the indexes in sync with a new booking. It's invoked by the booking store
+   * while the booking is held exclusively, so a reader never sees the booking without its index entries.
+   * @param bookingRoom The booked room and date
+   * @param user The owner of the booking
+   */
+  private void index(BookingRoom bookingRoom, User user) {
+    userBookingIndex.add(user, bookingRoom);
+    occupancyIndex.markBooked(bookingRoom);
+  }
+
+  private void unindex(BookingRoom bookingRoom, User user) {
+    userBookingIndex.remove(user, bookingRoom);
+    occupancyIndex.markFree(bookingRoom);
+  }
+
+  /**
+   * This method moves a booking to its new owner in the indexes. The room stays booked all along.
+   */
+  private void reindex(BookingRoom bookingRoom, User user, User successor) {
+    userBookingIndex.remove(user, bookingRoom);
+    userBookingIndex.add(successor, bookingRoom);
+  }
+
+  /**
+   * @return The ordinal a page of rooms starts from, or -1 if the token is invalid
+   */
+  private int parseRoomPageToken(String pageToken) {
+    if (pageToken == null) {
+      return 0;
+    }
+
+    try {
+      int ordinal = Integer.parseInt(pageToken);
+      return ordinal < occupancyIndex.getRoomOrdinals().size() ? ordinal : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return The last booking of the previous page, or null if the token is invalid
+   */
+  private static BookingRoom parseBookingPageToken(String pageToken) {
+    int separator = pageToken.indexOf(':');
+    if (separator < 0) {
+      return null;
+    }
+
+    try {
+      return BookingRoom.NewBuilder()
+          .withRoom(Room.NewBuilder().withRoomNumber(Integer.parseInt(pageToken.substring(separator + 1))).build())
+          .withBookingDate(LocalDate.ofEpochDay(Long.parseLong(pageToken.substring(0, separator))))
+          .build();
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private GenericResponse validateHold(Booking booking) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      auditLog.publish(logger, AuditEventType.VALIDATION_FAILED, HotelErrorCode.INVALID_HOTEL.getMessage());
+      return HotelErrorCode.INVALID_HOTEL.getResponse();
+    }
+
+    return reject(ValidationEngine.checkBookingItem(hotel.getRooms(), booking));
+  }
+
+  /**
+   * This method takes a hold of the giving user off the pending holds and cancels its timeout.
+   * Confirming, releasing and expiring all go through here, so only one of them wins.
+   * @return True if the hold was pending
+   */
+  private boolean removeHold(Booking booking) {
+    Hold hold = holds.get(booking.getBookingRoom());
+    if (hold == null
+        || !hold.roomHold.getBooking().getUser().equals(booking.getUser())
+        || !holds.remove(booking.getBookingRoom(), hold)) {
+      return false;
+    }
+
+    HashedTimingWheel.Timeout timeout = hold.timeout;
+    if (timeout != null) {
+      timeout.cancel();
+    }
+    return true;
+  }
+
+  /**
+   * This method runs on the timing wheel once a hold is over. The wheel has a single thread for every timeout,
+   * so the expiry, which may wait for the log to sync, is handed to the expiry executor.
+   * It only runs here when the executor refuses it.
+   */
+  private void submitExpiry(Hold hold) {
+    try {
+      expiryExecutor.execute(() -> expireHold(hold));
+    } catch (RejectedExecutionException e) {
+      expireHold(hold);
+    }
+  }
+
+  /**
+   * This method runs once a hold is over. The release is logged as a cancellation,
+   * so a hold saved by a snapshot isn't recovered as a booking.
+   */
+  private void expireHold(Hold hold) {
+    Booking booking = hold.roomHold.getBooking();
+    if (!holds.remove(booking.getBookingRoom(), hold)) {
+      return;
+    }
+
+    auditLog.publish(logger, AuditEventType.HOLD_EXPIRED, booking);
+    endHold(booking);
+  }
+
+  /**
+   * This method gives the room of a hold which is over to the first user of its line, or frees it.
+   * Without a durable record the waiter gets their place back and the room is freed.
+   */
+  private void endHold(Booking booking) {
+    BookingRoom bookingRoom = booking.getBookingRoom();
+    User[] waiter = new User[1];
+    int epoch = beginMutation();
+    try {
+      handOverToWaiter(bookingRoom, booking.getUser(), waiter);
+    } catch (UncheckedIOException e) {
+      persistenceFailed(e);
+      hotel.getBookingStore().release(bookingRoom, booking.getUser(), rollbackListener);
+      return;
+    } finally {
+      endMutation(epoch);
+    }
+
+    if (waiter[0] == null) {
+      return;
+    }
+
+    if (!awaitDurable()) {
+      release(bookingRoom, waiter[0]);
+      waitlist.requeue(bookingRoom, waiter[0]);
+      return;
+    }
+
+    publishPromotion(bookingRoom, waiter[0]);
+  }
+
+  /**
+   * This method releases a booking and reserves it for the first user of its line in one step of the store,
+   * logged as a cancellation and a reservation together, so nobody can take the room in between.
+   * The room is simply released when nobody is waiting. The waiter gets their place back if the log fails.
+   * @param bookingRoom The room and date
+   * @param user The expected owner of the booking
+   * @param waiter Receives the user the booking is handed over to, if any
+   * @return True if the booking of the giving user is released
+   * @throws UncheckedIOException if the log fails, the booking is unchanged then
+   */
+  private boolean handOverToWaiter(BookingRoom bookingRoom, User user, User[] waiter) {
+    try {
+      return hotel.getBookingStore().handOver(bookingRoom, user,
+          () -> waiter[0] = waitlist.poll(bookingRoom), indexListener);
+    } catch (RuntimeException e) {
+      if (waiter[0] != null) {
+        waitlist.requeue(bookingRoom, waiter[0]);
+        waiter[0] = null;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * This method reserves a free room and date for the first user of its line, if any.
+   * The user stays first when the room is taken again before the promotion.
+   */
+  private void promoteWaiter(BookingRoom bookingRoom) {
+    User user = waitlist.promote(bookingRoom, waiter -> {
+      int epoch = beginMutation();
+      try {
+        return hotel.getBookingStore().reserve(bookingRoom, waiter, indexListener);
+      } catch (UncheckedIOException e) {
+        persistenceFailed(e);
+        return false;
+      } finally {
+        endMutation(epoch);
+      }
+    });
+    if (user == null) {
+      return;
+    }
+
+    if (!awaitDurable()) {
+      release(bookingRoom, user);
+      return;
+    }
+
+    publishPromotion(bookingRoom, user);
+  }
+
+  private void publishPromotion(BookingRoom bookingRoom, User user) {
+    if (user != null) {
+      auditLog.publish(logger, AuditEventType.WAITLIST_PROMOTED,
+          Booking.NewBuilder().withUser(user).withBookingRoom(bookingRoom).build());
+    }
+  }
+
+  /**
+   * This method claims the rooms of bookings through the booking store, each one logged and indexed while it's held,
+   * then waits until their records are durable. Every reservation goes through here, so whatever was claimed
+   * is released again, latest first, when the log fails.
+   * @param bookings The bookings to claim, without duplicated booking rooms
+   * @param allOrNothing True to claim the rooms one by one and give them all back at the first taken one,
+   *                     false to claim every free room in one pass of the store
+   * @param reserved Receives whether each booking is claimed in one pass, null when all or nothing
+   * @param listener The listener logging and indexing each claimed booking, the index listener unless a room was reserved
+   * @return ROOM_UNAVAILABLE when all or nothing meets a taken room, PERSISTENCE_FAILED when the log fails,
+   * or null once the claimed bookings are durable
+   */
+  private HotelErrorCode claim(List<Booking> bookings, boolean allOrNothing, boolean[] reserved, BookingListener listener) {
+    List<Booking> claimedBookings = new ArrayList<>(bookings.size());
+    HotelErrorCode errorCode = null;
+
+    if (allOrNothing) {
+      for (Booking booking : bookings) {
+        int epoch = beginMutation();
+        try {
+          if (!hotel.getBookingStore().reserve(booking.getBookingRoom(), booking.getUser(), listener)) {
+            errorCode = HotelErrorCode.ROOM_UNAVAILABLE;
+            break;
+          }
+        } catch (UncheckedIOException e) {
+          persistenceFailed(e);
+          errorCode = HotelErrorCode.PERSISTENCE_FAILED;
+          break;
+        } finally {
+          endMutation(epoch);
+        }
+
+        claimedBookings.add(booking);
+      }
+    } else {
+      BookingListener batchListener = (bookingRoom, user) -> {
+        listener.onReserved(bookingRoom, user);
+        claimedBookings.add(Booking.NewBuilder().withUser(user).withBookingRoom(bookingRoom).build());
+      };
+
+      int epoch = beginMutation();
+      try {
+        boolean[] claimed = hotel.getBookingStore().reserveAll(bookings, batchListener);
+        System.arraycopy(claimed, 0, reserved, 0, claimed.length);
+      } catch (UncheckedIOException e) {
+        persistenceFailed(e);
+        errorCode = HotelErrorCode.PERSISTENCE_FAILED;
+      } finally {
+        endMutation(epoch);
+      }
+    }
+
+    if (errorCode == null && !claimedBookings.isEmpty() && !awaitDurable()) {
+      errorCode = HotelErrorCode.PERSISTENCE_FAILED;
+    }
+
+    if (errorCode != null) {
+      for (int i = claimedBookings.size() - 1; i >= 0; i--) {
+        release(claimedBookings.get(i).getBookingRoom(), claimedBookings.get(i).getUser());
+      }
+    }
+
+    return errorCode;
+  }
+
+  /**
+   * This method releases a booking which was just claimed by a failed operation.
+   * The release is logged when the write-ahead log still works, otherwise only the indexes are updated.
+   */
+  private void release(BookingRoom bookingRoom, User user) {
+    int epoch = beginMutation();
+    try {
+      hotel.getBookingStore().release(bookingRoom, user, indexListener);
+    } catch (UncheckedIOException e) {
+      hotel.getBookingStore().release(bookingRoom, user, rollbackListener);
+    } finally {
+      endMutation(epoch);
+    }
+  }
+
+  /**
+   * Mutations are tracked by the write-ahead log, so a snapshot knows which records it already holds.
+   */
+  private int beginMutation() {
+    return writeAheadLog == null ? 0 : writeAheadLog.beginMutation();
+  }
+
+  private void endMutation(int epoch) {
+    if (writeAheadLog != null) {
+      writeAheadLog.endMutation(epoch);
+    }
+  }
+
+  private boolean awaitDurable() {
+    if (writeAheadLog == null) {
+      return true;
+    }
+
+    try {
+      writeAheadLog.awaitDurable();
+      return true;
+    } catch (UncheckedIOException e) {
+      auditLog.publish(logger, AuditEventType.PERSISTENCE_FAILED, e.getMessage());
+      return false;
+    }
+  }
+
+  private GenericResponse persistenceFailed(UncheckedIOException e) {
+    auditLog.publish(logger, AuditEventType.PERSISTENCE_FAILED, e.getMessage());
+    return HotelErrorCode.PERSISTENCE_FAILED.getResponse();
+  }
+
+  /**
+   * A pending hold with the timeout which expires it. The timeout is set right after the room is claimed.
+   */
+  private static final class Hold {
+    private final RoomHold roomHold;
+    private volatile HashedTimingWheel.Timeout timeout;
+
+    private Hold(RoomHold roomHold) {
+      this.roomHold = roomHold;
+    }
+  }
+
+  public static final class Builder {
+    private Hotel hotel;
+    private AuditLog auditLog;
+    private WriteAheadLog writeAheadLog;
+    private HashedTimingWheel timingWheel;
+    private Executor expiryExecutor;
+    private int availabilityCacheSize = AvailabilityCache.DEFAULT_MAXIMUM_SIZE;
+    private int maximumWaiters = BookingWaitlist.DEFAULT_MAXIMUM_WAITERS;
+
+    public Builder withHotel(Hotel hotel) {
+      this.hotel = hotel;
+      return this;
+    }
+
+    public Builder withAuditLog(AuditLog auditLog) {
+      if (auditLog == null) {
+        throw new NullPointerException("Audit log is required.");
+      }
+
+      this.auditLog = auditLog;
+      return this;
+    }
+
+    /**
+     * @param writeAheadLog The log which makes every mutation durable before it's reported
+     */
+    public Builder withWriteAheadLog(WriteAheadLog writeAheadLog) {
+      if (writeAheadLog == null) {
+        throw new NullPointerException("Write-ahead log is required.");
+      }
+
+      this.writeAheadLog = writeAheadLog;
+      return this;
+    }
+
+    /**
+     * @param timingWheel The wheel which expires the holds, the shared default one otherwise
+     */
+    public Builder withTimingWheel(HashedTimingWheel timingWheel) {
+      if (timingWheel == null) {
+        throw new NullPointerException("Timing wheel is required.");
+      }
+
+      this.timingWheel = timingWheel;
+      return this;
+    }
+
+    /**
+     * @param expiryExecutor The executor which releases the expired holds off the timing wheel, the common pool by default
+     */
+    public Builder withExpiryExecutor(Executor expiryExecutor) {
+      if (expiryExecutor == null) {
+        throw new NullPointerException("Expiry executor is required.");
+      }
+
+      this.expiryExecutor = expiryExecutor;
+      return this;
+    }
+
+    /**
+     * @param availabilityCacheSize The maximum number of dates whose available rooms are cached
+     */
+    public Builder withAvailabilityCacheSize(int availabilityCacheSize) {
+      if (availabilityCacheSize <= 0) {
+        throw new IllegalArgumentException("Invalid availability cache size.");
+      }
+
+      this.availabilityCacheSize = availabilityCacheSize;
+      return this;
+    }
+
+    /**
+     * @param maximumWaiters The maximum number of users waiting for one room and date
+     */
+    public Builder withMaximumWaiters(int maximumWaiters) {
+      if (maximumWaiters <= 0) {
+        throw new IllegalArgumentException("Invalid maximum waiters.");
+      }
+
+      this.maximumWaiters = maximumWaiters;
+      return this;
+    }
+
+    public HotelBookingService build() {
+      return new HotelBookingService(this);
+    }
+  }
+
 }
@@ -1,9 +1,13 @@
 package com.berry.hotelbooking.service;
 
+import com.berry.hotelbooking.audit.AuditEventType;
+import com.berry.hotelbooking.audit.AuditLog;
 import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
 import com.berry.hotelbooking.model.*;
-import com.berry.hotelbooking.utils.GenericResponseUtils;
+import com.berry.hotelbooking.store.BookingStore;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,6 +15,11 @@ import java.util.logging.Logger;
 
 public class HotelBookingValidation {
 
+  public static final int MAX_NIGHTS_OF_STAY = 365;
+  public static final Duration MAX_HOLD_DURATION = Duration.ofHours(1);
+  public static final int MAX_PAGE_SIZE = 1000;
+  public static final int MAX_DAYS_OF_CALENDAR = 731;
+
   private HotelBookingValidation() {
     // Prevent init default constructor.
   }
@@ -18,41 +27,26 @@ public class HotelBookingValidation {
   /**
    * This method validates whether the booking input is valid or not.
    * Then print out helpful message to identify the problem.
+   * Messages are published to the default audit log, which writes them into the giving logger
+   * from its own thread.
    * @param logger A Logger instance of an invoker which needs the validation
    * @param booking The booking info
    * @return A generic response with fail status and a meaningful message
    */
   public static GenericResponse validateBookingInfo(Logger logger, Hotel hotel, Booking booking) {
-    if (logger == null) {
-      logger = Logger.getLogger(HotelBookingValidation.class.getName());
-    }
-
-    if (hotel == null || hotel.getRooms().size() <= 0) {
-      logger.severe("Invalid hotel.");
-      return GenericResponseUtils.generateFromErrorMessage("Invalid hotel.");
-    }
-
-    if (booking == null) {
-      logger.severe("Booking info is required.");
-      return GenericResponseUtils.generateFromErrorMessage("Booking info is required.");
-    }
-
-    GenericResponse genericResponse = validateUserInfo(logger, booking.getUser());
-    if (genericResponse != null) {
-      return genericResponse;
-    }
-
-    genericResponse = validateRoomInfo(logger, hotel.getRooms(), booking.getBookingRoom().getRoom());
-    if (genericResponse != null) {
-      return genericResponse;
-    }
-
-    genericResponse = validateBookingDate(logger, booking.getBookingRoom().getBookingDate());
-    if (genericResponse != null) {
-      return genericResponse;
-    }
+    return reject(logger, ValidationEngine.checkBookingInfo(hotel, booking));
+  }
 
-    return searchForExistedBooking(logger, hotel.getBookings(), booking);
+  /**
+   * This method validates the booking input against the rooms of a hotel which is already validated,
+   * without checking whether the room is taken. It's the per-item part of validating a batch.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param existedRooms The rooms of the hotel
+   * @param booking The booking info
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse validateBookingItem(Logger logger, Set<Room> existedRooms, Booking booking) {
+    return reject(logger, ValidationEngine.checkBookingItem(existedRooms, booking));
   }
 
   /**
@@ -63,17 +57,7 @@ public class HotelBookingValidation {
    * @return A generic response with fail status and a meaningful message
    */
   public static GenericResponse validateUserInfo(Logger logger, User user) {
-    if (logger == null) {
-      logger = Logger.getLogger(HotelBookingValidation.class.getName());
-    }
-
-    if (user == null
-        || (user.getName() == null || "".equals(user.getName()))) {
-      logger.severe("Please give a valid user.");
-      return GenericResponseUtils.generateFromErrorMessage("Please give a valid user.");
-    }
-
-    return null;
+    return reject(logger, ValidationEngine.checkUserInfo(user));
   }
 
   /**
@@ -84,21 +68,7 @@ public class HotelBookingValidation {
    * @return A generic response with fail status and a meaningful message
    */
   public static GenericResponse validateRoomInfo(Logger logger, Set<Room> existedRooms, Room room) {
-    if (logger == null) {
-      logger = Logger.getLogger(HotelBookingValidation.class.getName());
-    }
-
-    if (existedRooms == null || existedRooms.size() == 0) {
-      logger.severe("Invalid existed rooms.");
-      return GenericResponseUtils.generateFromErrorMessage("Invalid existed rooms.");
-    }
-
-    if (room == null || !existedRooms.contains(room)) {
-      logger.severe("Please give a valid room.");
-      return GenericResponseUtils.generateFromErrorMessage("Please give a valid room.");
-    }
-
-    return null;
+    return reject(logger, ValidationEngine.checkRoomInfo(existedRooms, room));
   }
 
   /**
@@ -109,36 +79,112 @@ public class HotelBookingValidation {
    * @return A generic response with fail status and a meaningful message
    */
   public static GenericResponse validateBookingDate(Logger logger, LocalDate bookingDate) {
-    if (logger == null) {
-      logger = Logger.getLogger(HotelBookingValidation.class.getName());
-    }
+    return reject(logger, ValidationEngine.checkBookingDate(bookingDate));
+  }
 
-    if (bookingDate == null || bookingDate.compareTo(LocalDate.now()) < 0) {
-      logger.severe("Please give a valid booking date.");
-      return GenericResponseUtils.generateFromErrorMessage("Please give a valid booking date.");
-    }
+  /**
+   * This method validates whether the dates of a stay are valid or not.
+   * Then print out helpful message to identify the problem.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param checkInDate The first night of the stay
+   * @param checkOutDate The date of leaving, after the check-in date
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse validateStayDates(Logger logger, LocalDate checkInDate, LocalDate checkOutDate) {
+    return reject(logger, ValidationEngine.checkStayDates(checkInDate, checkOutDate));
+  }
 
-    return null;
+  /**
+   * This method validates whether the range of an occupancy calendar is valid or not.
+   * Then print out helpful message to identify the problem.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param fromDate The first day, which may be in the past
+   * @param toDate The date after the last day, at most {@link #MAX_DAYS_OF_CALENDAR} days after the first one
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse validateCalendarRange(Logger logger, LocalDate fromDate, LocalDate toDate) {
+    return reject(logger, ValidationEngine.checkCalendarRange(fromDate, toDate));
+  }
+
+  /**
+   * This method validates whether the duration of a hold is valid or not.
+   * Then print out helpful message to identify the problem.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param duration The time to keep the hold, at most {@link #MAX_HOLD_DURATION}
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse validateHoldDuration(Logger logger, Duration duration) {
+    return reject(logger, ValidationEngine.checkHoldDuration(duration));
+  }
+
+  /**
+   * This method validates whether the size of a page is valid or not.
+   * Then print out helpful message to identify the problem.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param pageSize The number of items of a page, at most {@link #MAX_PAGE_SIZE}
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse validatePageSize(Logger logger, int pageSize) {
+    return reject(logger, ValidationEngine.checkPageSize(pageSize));
   }
 
   public static GenericResponse searchForExistedBooking(
       Logger logger, ConcurrentHashMap<BookingRoom, User> bookings, Booking booking
   ) {
-    if (logger == null) {
-      logger = Logger.getLogger(HotelBookingValidation.class.getName());
-    }
-
     if (bookings == null || bookings.size() == 0) {
       return null;
     }
 
     boolean existedBooking = bookings.containsKey(booking.getBookingRoom());
-    if (existedBooking) {
-      logger.info("There's no available room at this time.");
-      return GenericResponseUtils.generateFromErrorMessage("There's no available room at this time.");
+    return reject(logger, existedBooking ? HotelErrorCode.ROOM_UNAVAILABLE : null);
+  }
+
+  /**
+   * This method checks whether the room of a booking is already taken in a booking store.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param bookingStore The existed bookings
+   * @param booking The booking info
+   * @return A generic response with fail status and a meaningful message
+   */
+  public static GenericResponse searchForExistedBookingInStore(
+      Logger logger, BookingStore bookingStore, Booking booking
+  ) {
+    return reject(logger, ValidationEngine.checkExistedBooking(bookingStore, booking));
+  }
+
+  /**
+   * This method publishes a rejection to the default audit log, which writes it from its own thread,
+   * and returns the shared response of its code.
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param errorCode The error code, or null if the input is valid
+   * @return The response of the error code, or null if the input is valid
+   */
+  public static GenericResponse reject(Logger logger, HotelErrorCode errorCode) {
+    return reject(AuditLog.getDefault(), logger, errorCode);
+  }
+
+  /**
+   * This method publishes a rejection to a giving audit log, e.g. the one of the service which rejects it,
+   * and returns the shared response of its code.
+   * @param auditLog The audit log to publish to
+   * @param logger A Logger instance of an invoker which needs the validation
+   * @param errorCode The error code, or null if the input is valid
+   * @return The response of the error code, or null if the input is valid
+   */
+  public static GenericResponse reject(AuditLog auditLog, Logger logger, HotelErrorCode errorCode) {
+    if (errorCode == null) {
+      return null;
+    }
+
+    if (logger == null) {
+      logger = Logger.getLogger(HotelBookingValidation.class.getName());
     }
 
-    return null;
+    AuditEventType type = errorCode == HotelErrorCode.ROOM_UNAVAILABLE
+        ? AuditEventType.ROOM_UNAVAILABLE
+        : AuditEventType.VALIDATION_FAILED;
+    auditLog.publish(logger, type, errorCode.getMessage());
+    return errorCode.getResponse();
   }
 
 }
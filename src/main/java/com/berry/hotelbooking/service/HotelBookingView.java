@@ -0,0 +1,116 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.audit.AuditEventType;
+import com.berry.hotelbooking.audit.AuditLog;
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.index.RoomOrdinals;
+import com.berry.hotelbooking.index.RoomSet;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.store.BookingSnapshot;
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * The searches of a {@link HotelBookingService} against one version of its bookings,
+ * so the answers of several searches always agree with each other whatever is booked in between.
+ * The searches read the versioned store itself rather than the indexes, which only know the latest state:
+ * the available rooms come from the occupancy bits of the date as of the version, the bookings from the version chains.
+ * A view is meant to be short-lived, the versions it reads are kept until it's closed.
+ * Pending holds take their room but aren't bookings of their user until they're confirmed.
+ */
+public class HotelBookingView implements AutoCloseable {
+
+  private static Logger logger = Logger.getLogger(HotelBookingView.class.getName());
+
+  private final RoomOrdinals roomOrdinals;
+  private final AuditLog auditLog;
+  private final BookingSnapshot snapshot;
+  private final Predicate<BookingRoom> heldBookings;
+
+  HotelBookingView(RoomOrdinals roomOrdinals, AuditLog auditLog, BookingSnapshot snapshot, Predicate<BookingRoom> heldBookings) {
+    this.roomOrdinals = roomOrdinals;
+    this.auditLog = auditLog;
+    this.snapshot = snapshot;
+    this.heldBookings = heldBookings;
+  }
+
+  /**
+   * @return The version of the bookings this view reads
+   */
+  public long getVersion() {
+    return snapshot.getVersion();
+  }
+
+  /**
+   * This method will retrieve all available rooms in a giving date, as of this view.
+   * @param bookingDate The giving date
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Set<Room>> findAvailableRooms(LocalDate bookingDate) {
+    auditLog.publish(logger, AuditEventType.AVAILABILITY_SEARCHED, bookingDate);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkBookingDate(bookingDate));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    int roomCount = roomOrdinals.size();
+    long[] freeWords = new long[roomOrdinals.wordCount()];
+    Arrays.fill(freeWords, -1L);
+    if ((roomCount & 63) != 0) {
+      freeWords[freeWords.length - 1] = (1L << roomCount) - 1;
+    }
+
+    snapshot.forEachBookedRoom(bookingDate, roomNumber -> {
+      int ordinal = roomOrdinals.ordinalOf(roomNumber);
+      if (ordinal >= 0) {
+        freeWords[ordinal >>> 6] &= ~(1L << ordinal);
+      }
+    });
+    return GenericResponseUtils.generateFromSuccessfulData(new RoomSet(roomOrdinals, freeWords));
+  }
+
+  /**
+   * This method will return all existed booking of a user, as of this view.
+   * The rooms the user holds are left out, whether a hold is still pending is read at the time of the search.
+   * @param user The user
+   * @return A generic response with fail status and a meaningful message.
+   * Or a successful status with a corresponding data
+   */
+  public GenericResponse<Set<BookingRoom>> findExistedBookings(User user) {
+    auditLog.publish(logger, AuditEventType.BOOKINGS_SEARCHED, user);
+
+    GenericResponse genericResponse = reject(ValidationEngine.checkUserInfo(user));
+    if (genericResponse != null) {
+      return genericResponse;
+    }
+
+    Set<BookingRoom> existedBookings = new HashSet<>();
+    snapshot.forEach((bookingRoom, owner) -> {
+      if (owner.equals(user) && !heldBookings.test(bookingRoom)) {
+        existedBookings.add(bookingRoom);
+      }
+    });
+    return GenericResponseUtils.generateFromSuccessfulData(existedBookings);
+  }
+
+  private GenericResponse reject(HotelErrorCode errorCode) {
+    return HotelBookingValidation.reject(auditLog, logger, errorCode);
+  }
+
+  @Override
+  public void close() {
+    snapshot.close();
+  }
+
+}
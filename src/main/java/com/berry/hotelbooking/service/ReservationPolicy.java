@@ -0,0 +1,16 @@
+package com.berry.hotelbooking.service;
+
+public enum ReservationPolicy {
+
+  /**
+   * Only the requested room is reserved, a taken room is reported to the caller.
+   */
+  EXACT_ROOM,
+
+  /**
+   * When the requested room is taken, the free room nearest to it by room number is reserved instead,
+   * among the rooms of the same type sleeping at least as many guests.
+   */
+  NEAREST_AVAILABLE
+
+}
@@ -0,0 +1,200 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.store.BookingStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Set;
+
+/**
+ * The checks behind {@link HotelBookingValidation}, without any logging.
+ * Each check returns the code of the first problem found, or null when the input is valid,
+ * and allocates nothing on either path.
+ */
+public class ValidationEngine {
+
+  private static volatile Today today = Today.of(System.currentTimeMillis());
+
+  private ValidationEngine() {
+    // Prevent default initialization
+  }
+
+  /**
+   * This method checks a booking against a hotel, including whether the room is already taken.
+   * @param hotel The hotel
+   * @param booking The booking info
+   * @return The error code, or null if the booking can be made
+   */
+  public static HotelErrorCode checkBookingInfo(Hotel hotel, Booking booking) {
+    if (hotel == null || hotel.getRooms().size() <= 0) {
+      return HotelErrorCode.INVALID_HOTEL;
+    }
+
+    HotelErrorCode errorCode = checkBookingItem(hotel.getRooms(), booking);
+    if (errorCode != null) {
+      return errorCode;
+    }
+
+    return checkExistedBooking(hotel.getBookingStore(), booking);
+  }
+
+  /**
+   * This method checks a booking against the rooms of a hotel, without checking whether the room is taken.
+   * @param existedRooms The rooms of the hotel
+   * @param booking The booking info
+   * @return The error code, or null if the booking is valid
+   */
+  public static HotelErrorCode checkBookingItem(Set<Room> existedRooms, Booking booking) {
+    if (booking == null) {
+      return HotelErrorCode.BOOKING_REQUIRED;
+    }
+
+    HotelErrorCode errorCode = checkUserInfo(booking.getUser());
+    if (errorCode != null) {
+      return errorCode;
+    }
+
+    errorCode = checkRoomInfo(existedRooms, booking.getBookingRoom().getRoom());
+    if (errorCode != null) {
+      return errorCode;
+    }
+
+    return checkBookingDate(booking.getBookingRoom().getBookingDate());
+  }
+
+  public static HotelErrorCode checkUserInfo(User user) {
+    if (user == null
+        || (user.getName() == null || "".equals(user.getName()))) {
+      return HotelErrorCode.INVALID_USER;
+    }
+
+    return null;
+  }
+
+  public static HotelErrorCode checkRoomInfo(Set<Room> existedRooms, Room room) {
+    if (existedRooms == null || existedRooms.size() == 0) {
+      return HotelErrorCode.INVALID_EXISTED_ROOMS;
+    }
+
+    if (room == null || !existedRooms.contains(room)) {
+      return HotelErrorCode.INVALID_ROOM;
+    }
+
+    return null;
+  }
+
+  /**
+   * This method checks that a date is not in the past. Today's date is cached until midnight,
+   * so the check doesn't read the clock zone on every call.
+   * @param bookingDate The date of booking
+   * @return The error code, or null if the date is valid
+   */
+  public static HotelErrorCode checkBookingDate(LocalDate bookingDate) {
+    if (bookingDate == null || bookingDate.compareTo(today()) < 0) {
+      return HotelErrorCode.INVALID_BOOKING_DATE;
+    }
+
+    return null;
+  }
+
+  public static HotelErrorCode checkStayDates(LocalDate checkInDate, LocalDate checkOutDate) {
+    HotelErrorCode errorCode = checkBookingDate(checkInDate);
+    if (errorCode != null) {
+      return errorCode;
+    }
+
+    if (checkOutDate == null
+        || checkOutDate.compareTo(checkInDate) <= 0
+        || checkOutDate.toEpochDay() - checkInDate.toEpochDay() > HotelBookingValidation.MAX_NIGHTS_OF_STAY) {
+      return HotelErrorCode.INVALID_CHECK_OUT_DATE;
+    }
+
+    return null;
+  }
+
+  /**
+   * This method checks the range of an occupancy calendar. Unlike a stay, the range may start in the past,
+   * e.g. to look back at the last months, and it spans up to {@link HotelBookingValidation#MAX_DAYS_OF_CALENDAR} days.
+   * @param fromDate The first day
+   * @param toDate The date after the last day
+   * @return The error code, or null if the range is valid
+   */
+  public static HotelErrorCode checkCalendarRange(LocalDate fromDate, LocalDate toDate) {
+    if (fromDate == null
+        || toDate == null
+        || toDate.compareTo(fromDate) <= 0
+        || toDate.toEpochDay() - fromDate.toEpochDay() > HotelBookingValidation.MAX_DAYS_OF_CALENDAR) {
+      return HotelErrorCode.INVALID_CALENDAR_RANGE;
+    }
+
+    return null;
+  }
+
+  public static HotelErrorCode checkHoldDuration(Duration duration) {
+    if (duration == null
+        || duration.isNegative()
+        || duration.isZero()
+        || duration.compareTo(HotelBookingValidation.MAX_HOLD_DURATION) > 0) {
+      return HotelErrorCode.INVALID_HOLD_DURATION;
+    }
+
+    return null;
+  }
+
+  public static HotelErrorCode checkPageSize(int pageSize) {
+    if (pageSize <= 0 || pageSize > HotelBookingValidation.MAX_PAGE_SIZE) {
+      return HotelErrorCode.INVALID_PAGE;
+    }
+
+    return null;
+  }
+
+  public static HotelErrorCode checkExistedBooking(BookingStore bookingStore, Booking booking) {
+    if (bookingStore == null || bookingStore.size() == 0) {
+      return null;
+    }
+
+    return bookingStore.isBooked(booking.getBookingRoom()) ? HotelErrorCode.ROOM_UNAVAILABLE : null;
+  }
+
+  private static LocalDate today() {
+    Today current = today;
+    long now = System.currentTimeMillis();
+    if (now >= current.nextMidnightMillis || now < current.midnightMillis) {
+      current = Today.of(now);
+      today = current;
+    }
+
+    return current.date;
+  }
+
+  /**
+   * The current date with the period it stays current, in the default time zone.
+   */
+  private static final class Today {
+    private final LocalDate date;
+    private final long midnightMillis;
+    private final long nextMidnightMillis;
+
+    private Today(LocalDate date, long midnightMillis, long nextMidnightMillis) {
+      this.date = date;
+      this.midnightMillis = midnightMillis;
+      this.nextMidnightMillis = nextMidnightMillis;
+    }
+
+    private static Today of(long nowMillis) {
+      ZoneId zone = ZoneId.systemDefault();
+      LocalDate date = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+      return new Today(
+          date,
+          date.atStartOfDay(zone).toInstant().toEpochMilli(),
+          date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+      );
+    }
+  }
+
+}
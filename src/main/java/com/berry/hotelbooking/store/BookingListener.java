@@ -0,0 +1,26 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+public interface BookingListener {
+
+  void onReserved(BookingRoom bookingRoom, User user);
+
+  default void onReleased(BookingRoom bookingRoom, User user) {
+    // Nothing to do by default.
+  }
+
+  /**
+   * This method is notified when a booking goes straight from one owner to another.
+   * By default it's a release followed by a reservation.
+   * @param bookingRoom The room and date
+   * @param user The owner giving the booking up
+   * @param successor The new owner
+   */
+  default void onHandedOver(BookingRoom bookingRoom, User user, User successor) {
+    onReleased(bookingRoom, user);
+    onReserved(bookingRoom, successor);
+  }
+
+}
@@ -0,0 +1,70 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * The bookings of a {@link VersionedBookingStore} as they were at one committed version.
+ * Reads walk the version chains without locking, and the versions they need are kept until the snapshot is closed.
+ * A snapshot is meant to be short-lived, an open one holds back the reclamation of the whole store.
+ */
+public final class BookingSnapshot implements AutoCloseable {
+
+  private final VersionedBookingStore store;
+  volatile long version = VersionedBookingStore.PENDING;
+
+  BookingSnapshot(VersionedBookingStore store) {
+    this.store = store;
+  }
+
+  /**
+   * @return The version of the store this snapshot reads
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * This method finds the owner of a booking as of this snapshot.
+   * @param bookingRoom The room and date
+   * @return The owner of the booking, or null if the room was free
+   */
+  public User findOwner(BookingRoom bookingRoom) {
+    return store.findOwner(bookingRoom, version);
+  }
+
+  public boolean isBooked(BookingRoom bookingRoom) {
+    return findOwner(bookingRoom) != null;
+  }
+
+  /**
+   * This method walks the rooms booked in a date as of this snapshot. They're read from the occupancy bits
+   * of the date, so rooms which are free cost nothing.
+   * @param bookingDate The date
+   * @param action The action taking the number of each booked room
+   */
+  public void forEachBookedRoom(LocalDate bookingDate, IntConsumer action) {
+    store.forEachBookedRoom(bookingDate, version, action);
+  }
+
+  /**
+   * This method walks through all bookings of the store as of this snapshot.
+   * @param action The action to apply on each booking
+   */
+  public void forEach(BiConsumer<BookingRoom, User> action) {
+    store.forEach(version, action);
+  }
+
+  /**
+   * This method lets the store reclaim the versions only this snapshot could read. Closing twice does nothing.
+   */
+  @Override
+  public void close() {
+    store.close(this);
+  }
+
+}
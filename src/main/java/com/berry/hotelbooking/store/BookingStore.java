@@ -0,0 +1,148 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+public interface BookingStore {
+
+  /**
+   * This method claims a room in a date for a user if nobody owns it yet.
+   * The listener is invoked while the booking is held exclusively,
+   * before the booking becomes visible to other readers of the store.
+   * @param bookingRoom The room and date to claim
+   * @param user The owner of the booking
+   * @param listener The listener to notify, can be null
+   * @return True if the room is claimed by this call
+   */
+  boolean reserve(BookingRoom bookingRoom, User user, BookingListener listener);
+
+  /**
+   * This method claims the rooms of many bookings in one pass, with the same semantics
+   * as calling {@link #reserve(BookingRoom, User, BookingListener)} for each of them in order.
+   * @param bookings The bookings to claim, without duplicated booking rooms
+   * @param listener The listener to notify, can be null
+   * @return Whether each booking is claimed, in the order of the giving bookings
+   */
+  default boolean[] reserveAll(List<Booking> bookings, BookingListener listener) {
+    boolean[] reserved = new boolean[bookings.size()];
+
+    for (int i = 0; i < reserved.length; i++) {
+      Booking booking = bookings.get(i);
+      reserved[i] = reserve(booking.getBookingRoom(), booking.getUser(), listener);
+    }
+
+    return reserved;
+  }
+
+  /**
+   * This method frees a room in a date, only if it's still owned by the giving user.
+   * The listener is invoked while the booking is held exclusively, before the room becomes free.
+   * @param bookingRoom The room and date to free
+   * @param user The expected owner of the booking
+   * @param listener The listener to notify, can be null
+   * @return True if the booking is released by this call
+   */
+  boolean release(BookingRoom bookingRoom, User user, BookingListener listener);
+
+  /**
+   * This method frees a room in a date owned by the giving user, and gives it to a successor in the same step,
+   * so nobody else can claim the room in between. The successor is asked for only once the owner is checked,
+   * while the booking is held exclusively, and the room is simply released when there is none.
+   * @param bookingRoom The room and date to hand over
+   * @param user The expected owner of the booking
+   * @param successor Gives the new owner, or null to free the room
+   * @param listener The listener to notify, can be null
+   * @return True if the booking of the giving user is released by this call, handed over or not
+   */
+  boolean handOver(BookingRoom bookingRoom, User user, Supplier<User> successor, BookingListener listener);
+
+  /**
+   * This method removes every booking dated before a giving date, once they can't change anymore.
+   * Bookings are found without holding any lock, then released one by one,
+   * so reservations never wait for the whole sweep.
+   * @param date The first date to keep
+   * @param listener The listener to notify of each removed booking, can be null
+   * @return The number of removed bookings
+   */
+  default int removeBefore(LocalDate date, BookingListener listener) {
+    List<BookingRoom> bookingRooms = new ArrayList<>();
+    List<User> users = new ArrayList<>();
+    forEach((bookingRoom, user) -> {
+      if (bookingRoom.getBookingDate().isBefore(date)) {
+        bookingRooms.add(bookingRoom);
+        users.add(user);
+      }
+    });
+
+    int removed = 0;
+    for (int i = 0; i < bookingRooms.size(); i++) {
+      if (release(bookingRooms.get(i), users.get(i), listener)) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * This method finds the owner of a booking.
+   * @param bookingRoom The room and date
+   * @return The owner of the booking, or null if the room is free
+   */
+  User findOwner(BookingRoom bookingRoom);
+
+  default boolean isBooked(BookingRoom bookingRoom) {
+    return findOwner(bookingRoom) != null;
+  }
+
+  int size();
+
+  /**
+   * @return An estimate of the heap used by the bookings of this store, in bytes
+   */
+  long footprintBytes();
+
+  /**
+   * This method walks through all bookings of the store.
+   * The iteration is weakly consistent and never blocks writers for long.
+   * @param action The action to apply on each booking
+   */
+  void forEach(BiConsumer<BookingRoom, User> action);
+
+  /**
+   * This method walks through all bookings by their keys, packed by {@link PrimitiveBookingStore#packKey(int, LocalDate)},
+   * e.g. to rebuild the occupancy of the rooms at startup. Stores keeping packed keys don't build a booking room per entry.
+   * @param action The action taking the owner and the packed key of each booking
+   */
+  default void forEachKey(ObjLongConsumer<User> action) {
+    forEach((bookingRoom, user) -> action.accept(
+        user, PrimitiveBookingStore.packKey(bookingRoom.getRoom().getRoomNumber(), bookingRoom.getBookingDate())
+    ));
+  }
+
+  /**
+   * This method gives back the memory the store only kept for readers which are gone, e.g. old versions.
+   * It's called after a compaction, stores which free their memory right away have nothing to do.
+   * @return The number of reclaimed entries
+   */
+  default int reclaim() {
+    return 0;
+  }
+
+  /**
+   * This method opens a consistent view of the bookings, answering any number of reads from the same state.
+   * @return The snapshot, to close once read
+   * @throws UnsupportedOperationException if the store doesn't keep versions
+   */
+  default BookingSnapshot openSnapshot() {
+    throw new UnsupportedOperationException("Bookings are not versioned.");
+  }
+
+}
@@ -0,0 +1,306 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The users waiting for taken rooms, in arrival order per room and date.
+ * Each line is a ring of the waiting users which grows on demand up to a bound, and is dropped once empty,
+ * so a waiter costs one reference, a room nobody waits for costs nothing, and a user who left is forgotten.
+ */
+public class BookingWaitlist {
+
+  public static final int DEFAULT_MAXIMUM_WAITERS = 10000;
+  private static final int INITIAL_CAPACITY = 4;
+
+  private final int maximumWaiters;
+  private final ConcurrentHashMap<Long, Line> lines = new ConcurrentHashMap<>();
+
+  private BookingWaitlist(Builder builder) {
+    this.maximumWaiters = builder.maximumWaiters;
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * This method puts a user at the end of the line of a room and date, unless the user is already in it.
+   * @param bookingRoom The room and date
+   * @param user The user
+   * @return The position of the user in the line from 1, or -1 if the line is full
+   */
+  public int join(BookingRoom bookingRoom, User user) {
+    long key = keyOf(bookingRoom);
+
+    while (true) {
+      Line line = lines.computeIfAbsent(key, ignored -> new Line());
+      synchronized (line) {
+        if (line.dropped) {
+          continue;
+        }
+
+        int position = line.indexOf(user);
+        if (position >= 0) {
+          return position + 1;
+        }
+        if (line.size == maximumWaiters) {
+          return -1;
+        }
+
+        line.addLast(user);
+        return line.size;
+      }
+    }
+  }
+
+  /**
+   * This method takes a user out of the line of a room and date.
+   * @param bookingRoom The room and date
+   * @param user The user
+   * @return True if the user was waiting
+   */
+  public boolean leave(BookingRoom bookingRoom, User user) {
+    long key = keyOf(bookingRoom);
+    Line line = lines.get(key);
+    if (line == null) {
+      return false;
+    }
+
+    synchronized (line) {
+      int position = line.dropped ? -1 : line.indexOf(user);
+      if (position < 0) {
+        return false;
+      }
+
+      line.removeAt(position);
+      dropIfEmpty(key, line);
+      return true;
+    }
+  }
+
+  /**
+   * This method offers a room and date to the first user of its line. The user is taken out of the line
+   * before the claim, which runs without holding the line, and is put back first if the claim fails,
+   * so a room taken by someone else in between keeps the user first.
+   * @param bookingRoom The room and date
+   * @param claim The claim of the room for a user, e.g. a reservation
+   * @return The promoted user, or null if nobody is waiting or the claim failed
+   */
+  public User promote(BookingRoom bookingRoom, Predicate<User> claim) {
+    User user = poll(bookingRoom);
+    if (user == null) {
+      return null;
+    }
+
+    boolean claimed = false;
+    try {
+      claimed = claim.test(user);
+    } finally {
+      if (!claimed) {
+        requeue(bookingRoom, user);
+      }
+    }
+    return claimed ? user : null;
+  }
+
+  /**
+   * This method takes the first user out of the line of a room and date, e.g. to hand the room over to them.
+   * @param bookingRoom The room and date
+   * @return The first user, or null if nobody is waiting
+   */
+  public User poll(BookingRoom bookingRoom) {
+    long key = keyOf(bookingRoom);
+    Line line = lines.get(key);
+    if (line == null) {
+      return null;
+    }
+
+    synchronized (line) {
+      if (line.dropped || line.size == 0) {
+        return null;
+      }
+
+      User user = line.first();
+      line.removeAt(0);
+      dropIfEmpty(key, line);
+      return user;
+    }
+  }
+
+  /**
+   * This method puts a user taken out by {@link #poll(BookingRoom)} back at the front of the line,
+   * when the room couldn't be given to them after all. The bound is ignored, the user had a place already.
+   * @param bookingRoom The room and date
+   * @param user The user
+   */
+  public void requeue(BookingRoom bookingRoom, User user) {
+    long key = keyOf(bookingRoom);
+
+    while (true) {
+      Line line = lines.computeIfAbsent(key, ignored -> new Line());
+      synchronized (line) {
+        if (line.dropped) {
+          continue;
+        }
+
+        int position = line.indexOf(user);
+        if (position >= 0) {
+          line.removeAt(position);
+        }
+        line.addFirst(user);
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param bookingRoom The room and date
+   * @return The number of users waiting for the room and date
+   */
+  public int size(BookingRoom bookingRoom) {
+    Line line = lines.get(keyOf(bookingRoom));
+    if (line == null) {
+      return 0;
+    }
+
+    synchronized (line) {
+      return line.dropped ? 0 : line.size;
+    }
+  }
+
+  /**
+   * This method drops the lines of the dates before a giving date, which can't be booked anymore.
+   * @param date The first date to keep
+   * @return The number of dropped waiters
+   */
+  public int removeBefore(LocalDate date) {
+    int removed = 0;
+    long epochDay = date.toEpochDay();
+
+    Iterator<Map.Entry<Long, Line>> iterator = lines.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, Line> entry = iterator.next();
+      if ((int) (long) entry.getKey() >= epochDay) {
+        continue;
+      }
+
+      Line line = entry.getValue();
+      synchronized (line) {
+        removed += line.size;
+        line.dropped = true;
+        iterator.remove();
+      }
+    }
+
+    return removed;
+  }
+
+  private void dropIfEmpty(long key, Line line) {
+    if (line.size == 0) {
+      line.dropped = true;
+      lines.remove(key, line);
+    }
+  }
+
+  private static long keyOf(BookingRoom bookingRoom) {
+    return PrimitiveBookingStore.packKey(bookingRoom.getRoom().getRoomNumber(), bookingRoom.getBookingDate());
+  }
+
+  /**
+   * The waiting users of one room and date as a ring, guarded by the line itself.
+   * A dropped line is out of the map, a user joining it starts a new one.
+   */
+  private static final class Line {
+    private User[] users = new User[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+    private boolean dropped;
+
+    private User first() {
+      return users[head];
+    }
+
+    private void addLast(User user) {
+      growIfFull();
+      users[(head + size) % users.length] = user;
+      size++;
+    }
+
+    private void addFirst(User user) {
+      growIfFull();
+      head = (head - 1 + users.length) % users.length;
+      users[head] = user;
+      size++;
+    }
+
+    private int indexOf(User user) {
+      for (int i = 0; i < size; i++) {
+        if (users[(head + i) % users.length].equals(user)) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+
+    private void removeAt(int position) {
+      if (position == 0) {
+        users[head] = null;
+        head = (head + 1) % users.length;
+      } else {
+        for (int i = position; i < size - 1; i++) {
+          users[(head + i) % users.length] = users[(head + i + 1) % users.length];
+        }
+        users[(head + size - 1) % users.length] = null;
+      }
+      size--;
+
+      // Shrink a line which emptied out after a rush, so a quiet room gives its memory back.
+      if (users.length > INITIAL_CAPACITY && size << 2 <= users.length) {
+        copyInto(new User[Math.max(INITIAL_CAPACITY, users.length >>> 1)]);
+      }
+    }
+
+    private void growIfFull() {
+      if (size == users.length) {
+        copyInto(new User[users.length << 1]);
+      }
+    }
+
+    private void copyInto(User[] copy) {
+      for (int i = 0; i < size; i++) {
+        copy[i] = users[(head + i) % users.length];
+      }
+      users = copy;
+      head = 0;
+    }
+  }
+
+  public static final class Builder {
+    private int maximumWaiters = DEFAULT_MAXIMUM_WAITERS;
+
+    /**
+     * @param maximumWaiters The maximum number of users waiting for one room and date
+     */
+    public Builder withMaximumWaiters(int maximumWaiters) {
+      if (maximumWaiters <= 0) {
+        throw new IllegalArgumentException("Invalid maximum waiters.");
+      }
+
+      this.maximumWaiters = maximumWaiters;
+      return this;
+    }
+
+    public BookingWaitlist build() {
+      return new BookingWaitlist(this);
+    }
+  }
+
+}
@@ -0,0 +1,133 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+public class ConcurrentMapBookingStore implements BookingStore {
+
+  /**
+   * A map node, its table slot, the booking room and its date. Rooms and users are shared.
+   */
+  public static final int ESTIMATED_BYTES_PER_BOOKING = 32 + 8 + 16 + 24;
+
+  private final ConcurrentHashMap<BookingRoom, User> bookings;
+
+  public ConcurrentMapBookingStore(ConcurrentHashMap<BookingRoom, User> bookings) {
+    if (bookings == null) {
+      throw new NullPointerException("Bookings container is required");
+    }
+
+    this.bookings = bookings;
+  }
+
+  public ConcurrentHashMap<BookingRoom, User> getBookings() {
+    return bookings;
+  }
+
+  @Override
+  public boolean reserve(BookingRoom bookingRoom, User user, BookingListener listener) {
+    boolean[] reserved = new boolean[1];
+
+    bookings.computeIfAbsent(bookingRoom, key -> {
+      if (listener != null) {
+        listener.onReserved(key, user);
+      }
+      reserved[0] = true;
+      return user;
+    });
+
+    return reserved[0];
+  }
+
+  @Override
+  public boolean release(BookingRoom bookingRoom, User user, BookingListener listener) {
+    boolean[] released = new boolean[1];
+
+    bookings.computeIfPresent(bookingRoom, (key, owner) -> {
+      if (!owner.equals(user)) {
+        return owner;
+      }
+
+      if (listener != null) {
+        listener.onReleased(key, owner);
+      }
+      released[0] = true;
+      return null;
+    });
+
+    return released[0];
+  }
+
+  @Override
+  public boolean handOver(BookingRoom bookingRoom, User user, Supplier<User> successor, BookingListener listener) {
+    boolean[] released = new boolean[1];
+
+    bookings.computeIfPresent(bookingRoom, (key, owner) -> {
+      if (!owner.equals(user)) {
+        return owner;
+      }
+
+      User next = successor.get();
+      if (listener != null) {
+        if (next == null) {
+          listener.onReleased(key, owner);
+        } else {
+          listener.onHandedOver(key, owner, next);
+        }
+      }
+      released[0] = true;
+      return next;
+    });
+
+    return released[0];
+  }
+
+  @Override
+  public User findOwner(BookingRoom bookingRoom) {
+    return bookings.get(bookingRoom);
+  }
+
+  @Override
+  public boolean isBooked(BookingRoom bookingRoom) {
+    return bookings.containsKey(bookingRoom);
+  }
+
+  @Override
+  public int size() {
+    return bookings.size();
+  }
+
+  @Override
+  public long footprintBytes() {
+    return (long) bookings.size() * ESTIMATED_BYTES_PER_BOOKING;
+  }
+
+  @Override
+  public void forEach(BiConsumer<BookingRoom, User> action) {
+    bookings.forEach(action);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    ConcurrentMapBookingStore that = (ConcurrentMapBookingStore) o;
+    return bookings.equals(that.bookings);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(bookings);
+  }
+
+  @Override
+  public String toString() {
+    return bookings.toString();
+  }
+
+}
@@ -0,0 +1,629 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A booking store which packs (room number, epoch day) into one long key
+ * and keeps the owner as an int id, in open-addressing tables split into segments.
+ * A booking costs 12 bytes in the table instead of a map node with boxed keys.
+ * A user only gets an id with their first booking and gives it back with their last one.
+ */
+public class PrimitiveBookingStore implements BookingStore {
+
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+  private static final int INITIAL_SEGMENT_CAPACITY = 16;
+  private static final long EMPTY_KEY = 0L;
+  private static final int NO_USER = -1;
+
+  private final Segment[] segments;
+  private final int segmentShift;
+  private final UserDictionary userDictionary = new UserDictionary();
+
+  public PrimitiveBookingStore() {
+    this(DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * @param concurrencyLevel The expected number of concurrent writers,
+   * rounded up to a power of two segments
+   */
+  public PrimitiveBookingStore(int concurrencyLevel) {
+    this(concurrencyLevel, 0);
+  }
+
+  /**
+   * @param concurrencyLevel The expected number of concurrent writers,
+   * rounded up to a power of two segments
+   * @param expectedSize The expected number of bookings, so loading them doesn't resize the tables
+   */
+  public PrimitiveBookingStore(int concurrencyLevel, int expectedSize) {
+    if (concurrencyLevel <= 0) {
+      throw new IllegalArgumentException("Invalid concurrency level.");
+    }
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Invalid expected size.");
+    }
+
+    int segmentCount = Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) * 2 - 1);
+    this.segments = new Segment[segmentCount];
+    this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+
+    long expectedPerSegment = (long) expectedSize / segmentCount + 1;
+    int segmentCapacity = (int) Math.max(INITIAL_SEGMENT_CAPACITY,
+        Math.min(1 << 30, Long.highestOneBit(expectedPerSegment * 2 * 2 - 1)));
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentCapacity);
+    }
+  }
+
+  /**
+   * This method packs a room number and a date into a key. The key is never 0
+   * since room numbers are positive.
+   * @param roomNumber The room number
+   * @param bookingDate The date
+   * @return The packed key
+   */
+  public static long packKey(int roomNumber, LocalDate bookingDate) {
+    long epochDay = bookingDate.toEpochDay();
+    if (epochDay != (int) epochDay) {
+      throw new IllegalArgumentException("Unsupported booking date.");
+    }
+
+    return ((long) roomNumber << 32) | (epochDay & 0xFFFFFFFFL);
+  }
+
+  public static int roomNumberOf(long key) {
+    return (int) (key >>> 32);
+  }
+
+  public static LocalDate bookingDateOf(long key) {
+    return LocalDate.ofEpochDay((int) key);
+  }
+
+  @Override
+  public boolean reserve(BookingRoom bookingRoom, User user, BookingListener listener) {
+    long key = packKey(bookingRoom);
+    long hash = mix(key);
+    Segment segment = segmentFor(hash);
+
+    long stamp = segment.lock.writeLock();
+    try {
+      if (segment.find(key, hash) != NO_USER) {
+        return false;
+      }
+
+      if (listener != null) {
+        listener.onReserved(bookingRoom, user);
+      }
+      segment.insert(key, hash, userDictionary.acquire(user));
+      return true;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * This method reserves a packed key without notifying anyone, used to load bookings in bulk.
+   * @param key The key given by {@link #packKey(int, LocalDate)}
+   * @param user The owner of the booking
+   * @return true if the key was free
+   */
+  public boolean restore(long key, User user) {
+    long hash = mix(key);
+    Segment segment = segmentFor(hash);
+
+    long stamp = segment.lock.writeLock();
+    try {
+      if (segment.find(key, hash) != NO_USER) {
+        return false;
+      }
+
+      segment.insert(key, hash, userDictionary.acquire(user));
+      return true;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * This method groups the bookings by segment, so each segment lock is taken once for the whole batch.
+   */
+  @Override
+  public boolean[] reserveAll(List<Booking> bookings, BookingListener listener) {
+    int count = bookings.size();
+    long[] keys = new long[count];
+    long[] hashes = new long[count];
+    int[] segmentStarts = new int[segments.length + 1];
+
+    for (int i = 0; i < count; i++) {
+      Booking booking = bookings.get(i);
+      keys[i] = packKey(booking.getBookingRoom());
+      hashes[i] = mix(keys[i]);
+      segmentStarts[segmentIndexOf(hashes[i]) + 1]++;
+    }
+
+    for (int i = 0; i < segments.length; i++) {
+      segmentStarts[i + 1] += segmentStarts[i];
+    }
+
+    int[] order = new int[count];
+    int[] positions = segmentStarts.clone();
+    for (int i = 0; i < count; i++) {
+      order[positions[segmentIndexOf(hashes[i])]++] = i;
+    }
+
+    boolean[] reserved = new boolean[count];
+    for (int segmentIndex = 0; segmentIndex < segments.length; segmentIndex++) {
+      if (segmentStarts[segmentIndex] == segmentStarts[segmentIndex + 1]) {
+        continue;
+      }
+
+      Segment segment = segments[segmentIndex];
+      long stamp = segment.lock.writeLock();
+      try {
+        for (int position = segmentStarts[segmentIndex]; position < segmentStarts[segmentIndex + 1]; position++) {
+          int i = order[position];
+          if (segment.find(keys[i], hashes[i]) != NO_USER) {
+            continue;
+          }
+
+          Booking booking = bookings.get(i);
+          if (listener != null) {
+            listener.onReserved(booking.getBookingRoom(), booking.getUser());
+          }
+          segment.insert(keys[i], hashes[i], userDictionary.acquire(booking.getUser()));
+          reserved[i] = true;
+        }
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+    }
+
+    return reserved;
+  }
+
+  @Override
+  public boolean release(BookingRoom bookingRoom, User user, BookingListener listener) {
+    long key = packKey(bookingRoom);
+    long hash = mix(key);
+    Segment segment = segmentFor(hash);
+
+    long stamp = segment.lock.writeLock();
+    try {
+      int userId = segment.find(key, hash);
+      if (userId == NO_USER || !userDictionary.userOf(userId).equals(user)) {
+        return false;
+      }
+
+      if (listener != null) {
+        listener.onReleased(bookingRoom, user);
+      }
+      segment.remove(key, hash);
+      userDictionary.release(userId);
+      return true;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean handOver(BookingRoom bookingRoom, User user, Supplier<User> successor, BookingListener listener) {
+    long key = packKey(bookingRoom);
+    long hash = mix(key);
+    Segment segment = segmentFor(hash);
+
+    long stamp = segment.lock.writeLock();
+    try {
+      int userId = segment.find(key, hash);
+      if (userId == NO_USER || !userDictionary.userOf(userId).equals(user)) {
+        return false;
+      }
+
+      User next = successor.get();
+      if (next == null) {
+        if (listener != null) {
+          listener.onReleased(bookingRoom, user);
+        }
+        segment.remove(key, hash);
+      } else {
+        if (listener != null) {
+          listener.onHandedOver(bookingRoom, user, next);
+        }
+        segment.replace(key, hash, userDictionary.acquire(next));
+      }
+      userDictionary.release(userId);
+      return true;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * This method sweeps one segment at a time. The keys to remove are picked from a copy of the segment,
+   * so the segment lock is only held to remove them and to shrink the table once it's mostly empty.
+   */
+  @Override
+  public int removeBefore(LocalDate date, BookingListener listener) {
+    long epochDay = date.toEpochDay();
+    int removed = 0;
+
+    for (Segment segment : segments) {
+      Table table;
+      long stamp = segment.lock.readLock();
+      try {
+        table = segment.table.copy();
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+
+      long[] expiredKeys = new long[table.keys.length];
+      int expiredCount = 0;
+      for (long key : table.keys) {
+        if (key != EMPTY_KEY && (int) key < epochDay) {
+          expiredKeys[expiredCount++] = key;
+        }
+      }
+      if (expiredCount == 0) {
+        continue;
+      }
+
+      stamp = segment.lock.writeLock();
+      try {
+        for (int i = 0; i < expiredCount; i++) {
+          long key = expiredKeys[i];
+          long hash = mix(key);
+          int userId = segment.find(key, hash);
+          if (userId == NO_USER) {
+            continue;
+          }
+
+          if (listener != null) {
+            listener.onReleased(toBookingRoom(key), userDictionary.userOf(userId));
+          }
+          segment.remove(key, hash);
+          userDictionary.release(userId);
+          removed++;
+        }
+        segment.shrink();
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+    }
+
+    return removed;
+  }
+
+  @Override
+  public User findOwner(BookingRoom bookingRoom) {
+    return ownerOf(packKey(bookingRoom));
+  }
+
+  @Override
+  public boolean isBooked(BookingRoom bookingRoom) {
+    long key = packKey(bookingRoom);
+    long hash = mix(key);
+    return segmentFor(hash).get(key, hash) != NO_USER;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+    }
+    return size;
+  }
+
+  /**
+   * @return The size of the tables, 12 bytes per slot whether it's used or not
+   */
+  @Override
+  public long footprintBytes() {
+    long footprint = 0;
+    for (Segment segment : segments) {
+      footprint += (long) segment.table.keys.length * (Long.BYTES + Integer.BYTES);
+    }
+    return footprint;
+  }
+
+  @Override
+  public void forEach(BiConsumer<BookingRoom, User> action) {
+    forEachKey((user, key) -> action.accept(toBookingRoom(key), user));
+  }
+
+  /**
+   * This method walks the bookings by their packed keys, without creating a booking room per entry.
+   * Each segment is copied under its lock with its owners, whose ids may be given to other users
+   * once the lock is released, and walked afterwards.
+   * @param action The action taking the owner and the packed key
+   */
+  @Override
+  public void forEachKey(ObjLongConsumer<User> action) {
+    for (Segment segment : segments) {
+      long[] keys;
+      User[] owners;
+      long stamp = segment.lock.readLock();
+      try {
+        Table table = segment.table;
+        keys = table.keys.clone();
+        owners = new User[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+          if (keys[i] != EMPTY_KEY) {
+            owners[i] = userDictionary.userOf(table.values[i]);
+          }
+        }
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != EMPTY_KEY) {
+          action.accept(owners[i], keys[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The number of users owning at least one booking, the only ones the store keeps an id for
+   */
+  int userCount() {
+    return userDictionary.size();
+  }
+
+  /**
+   * Two stores are equal when they hold the same bookings, whatever ids their owners got.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    PrimitiveBookingStore that = (PrimitiveBookingStore) o;
+    if (size() != that.size()) {
+      return false;
+    }
+
+    boolean[] equal = {true};
+    forEachKey((user, key) -> {
+      if (equal[0] && !user.equals(that.ownerOf(key))) {
+        equal[0] = false;
+      }
+    });
+    return equal[0];
+  }
+
+  @Override
+  public int hashCode() {
+    int[] hashCode = {0};
+    forEachKey((user, key) -> hashCode[0] += Long.hashCode(key) ^ user.hashCode());
+    return hashCode[0];
+  }
+
+  /**
+   * The owner is read while the segment is held, so their id can't be given to another user in between.
+   */
+  private User ownerOf(long key) {
+    long hash = mix(key);
+    Segment segment = segmentFor(hash);
+
+    long stamp = segment.lock.tryOptimisticRead();
+    if (stamp != 0) {
+      int userId = segment.find(key, hash);
+      User user = userId == NO_USER ? null : userDictionary.userOf(userId);
+      if (segment.lock.validate(stamp)) {
+        return user;
+      }
+    }
+
+    stamp = segment.lock.readLock();
+    try {
+      int userId = segment.find(key, hash);
+      return userId == NO_USER ? null : userDictionary.userOf(userId);
+    } finally {
+      segment.lock.unlockRead(stamp);
+    }
+  }
+
+  private static long packKey(BookingRoom bookingRoom) {
+    return packKey(bookingRoom.getRoom().getRoomNumber(), bookingRoom.getBookingDate());
+  }
+
+  private static BookingRoom toBookingRoom(long key) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumberOf(key)).build())
+        .withBookingDate(bookingDateOf(key))
+        .build();
+  }
+
+  private static long mix(long key) {
+    key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+    key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return key ^ (key >>> 33);
+  }
+
+  private Segment segmentFor(long hash) {
+    return segments[segmentIndexOf(hash)];
+  }
+
+  private int segmentIndexOf(long hash) {
+    return segments.length == 1 ? 0 : (int) (hash >>> segmentShift);
+  }
+
+  private static final class Table {
+    private final long[] keys;
+    private final int[] values;
+
+    private Table(int capacity) {
+      this.keys = new long[capacity];
+      this.values = new int[capacity];
+    }
+
+    private Table(long[] keys, int[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    private Table copy() {
+      return new Table(keys.clone(), values.clone());
+    }
+  }
+
+  private static final class Segment {
+    private final StampedLock lock = new StampedLock();
+    private final int initialCapacity;
+    private volatile Table table;
+    private volatile int size;
+
+    private Segment(int capacity) {
+      this.initialCapacity = capacity;
+      this.table = new Table(capacity);
+    }
+
+    private int get(long key, long hash) {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        int userId = find(key, hash);
+        if (lock.validate(stamp)) {
+          return userId;
+        }
+      }
+
+      stamp = lock.readLock();
+      try {
+        return find(key, hash);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    private int find(long key, long hash) {
+      Table current = table;
+      int mask = current.keys.length - 1;
+      int index = (int) hash & mask;
+
+      for (int probes = 0; probes <= mask; probes++) {
+        long currentKey = current.keys[index];
+        if (currentKey == key) {
+          return current.values[index];
+        }
+        if (currentKey == EMPTY_KEY) {
+          return NO_USER;
+        }
+        index = (index + 1) & mask;
+      }
+
+      return NO_USER;
+    }
+
+    private void insert(long key, long hash, int userId) {
+      if ((size + 1) << 1 > table.keys.length) {
+        table = resize(table);
+      }
+
+      put(table, key, hash, userId);
+      size = size + 1;
+    }
+
+    private void replace(long key, long hash, int userId) {
+      Table current = table;
+      int mask = current.keys.length - 1;
+      int index = (int) hash & mask;
+
+      while (current.keys[index] != key) {
+        index = (index + 1) & mask;
+      }
+      current.values[index] = userId;
+    }
+
+    /**
+     * This method removes a key with backward shift deletion, so the freed slot is reused
+     * right away and lookups never have to skip over tombstones.
+     */
+    private void remove(long key, long hash) {
+      long[] keys = table.keys;
+      int[] values = table.values;
+      int mask = keys.length - 1;
+      int index = (int) hash & mask;
+
+      while (keys[index] != key) {
+        index = (index + 1) & mask;
+      }
+
+      int next = index;
+      while (true) {
+        next = (next + 1) & mask;
+        long nextKey = keys[next];
+        if (nextKey == EMPTY_KEY) {
+          break;
+        }
+
+        int home = (int) mix(nextKey) & mask;
+        boolean staysInPlace = index <= next ? (index < home && home <= next) : (index < home || home <= next);
+        if (!staysInPlace) {
+          keys[index] = nextKey;
+          values[index] = values[next];
+          index = next;
+        }
+      }
+
+      keys[index] = EMPTY_KEY;
+      size = size - 1;
+    }
+
+    /**
+     * This method halves the table while it's at most an eighth full, never below its initial capacity,
+     * so a table left at a quarter full can grow again before it resizes.
+     */
+    private void shrink() {
+      int capacity = table.keys.length;
+      while (capacity > initialCapacity && size << 3 <= capacity) {
+        capacity >>>= 1;
+      }
+
+      if (capacity < table.keys.length) {
+        table = rehash(table, capacity);
+      }
+    }
+
+    private static void put(Table table, long key, long hash, int userId) {
+      int mask = table.keys.length - 1;
+      int index = (int) hash & mask;
+
+      while (table.keys[index] != EMPTY_KEY) {
+        index = (index + 1) & mask;
+      }
+
+      table.values[index] = userId;
+      table.keys[index] = key;
+    }
+
+    private static Table resize(Table table) {
+      return rehash(table, table.keys.length << 1);
+    }
+
+    private static Table rehash(Table table, int capacity) {
+      Table rehashed = new Table(capacity);
+
+      for (int i = 0; i < table.keys.length; i++) {
+        long key = table.keys[i];
+        if (key != EMPTY_KEY) {
+          put(rehashed, key, mix(key), table.values[i]);
+        }
+      }
+
+      return rehashed;
+    }
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.User;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps users to dense int ids so bookings can refer to their owner with a primitive.
+ * Each id counts the bookings referring to it. Once the last one is gone, the user is forgotten
+ * and its id is given to the next new user, so the dictionary only holds the users who own something.
+ */
+public class UserDictionary {
+
+  private final ConcurrentHashMap<User, Entry> entriesByUser = new ConcurrentHashMap<>();
+  private volatile User[] usersById = new User[16];
+  private int nextId = 0;
+  private int[] freeIds = new int[16];
+  private int freeIdCount = 0;
+
+  /**
+   * This method returns the id of a user and counts one more reference to it,
+   * assigning an id if the user has none.
+   * @param user The user
+   * @return The id of the user
+   */
+  public int acquire(User user) {
+    return entriesByUser.compute(user, (key, entry) -> {
+      if (entry == null) {
+        entry = new Entry(assignId(key));
+      }
+      entry.references++;
+      return entry;
+    }).id;
+  }
+
+  /**
+   * This method counts one reference less to an id, and frees the id with the last one.
+   * @param id The id given by {@link #acquire(User)}
+   */
+  public void release(int id) {
+    User user = usersById[id];
+    entriesByUser.computeIfPresent(user, (key, entry) -> {
+      if (--entry.references > 0) {
+        return entry;
+      }
+
+      freeId(entry.id);
+      return null;
+    });
+  }
+
+  /**
+   * This method returns the user of an id. The id must be referenced, a freed id may belong to another user.
+   * @param id The id given by {@link #acquire(User)}
+   * @return The user
+   */
+  public User userOf(int id) {
+    return usersById[id];
+  }
+
+  /**
+   * @return The number of users with at least one reference
+   */
+  public int size() {
+    return entriesByUser.size();
+  }
+
+  private synchronized int assignId(User user) {
+    int id = freeIdCount > 0 ? freeIds[--freeIdCount] : nextId++;
+    User[] users = usersById;
+
+    if (id == users.length) {
+      users = Arrays.copyOf(users, users.length << 1);
+    }
+
+    users[id] = user;
+    usersById = users;
+    return id;
+  }
+
+  private synchronized void freeId(int id) {
+    usersById[id] = null;
+    if (freeIdCount == freeIds.length) {
+      freeIds = Arrays.copyOf(freeIds, freeIds.length << 1);
+    }
+    freeIds[freeIdCount++] = id;
+  }
+
+  private static final class Entry {
+    private final int id;
+    private int references;
+
+    private Entry(int id) {
+      this.id = id;
+    }
+  }
+
+}
@@ -0,0 +1,459 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.User;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A booking store keeping the recent history of each room and date as a chain of versions, newest first.
+ * Every reservation and release gets the next version of the store, and the committed version only moves
+ * over versions which are all written, so a {@link BookingSnapshot} taken at it answers any number of reads from one state.
+ * Readers never lock, and writers never wait for each other to commit.
+ * Each date also keeps its booked rooms as versioned bitset words, so a snapshot finds the rooms booked in a date
+ * without looking up every room.
+ * The versions no open snapshot can read anymore are cut off by the writers and by {@link #reclaim()}.
+ */
+public class VersionedBookingStore implements BookingStore {
+
+  /**
+   * A map node, its table slot, the booking room and its date, and the current version. Rooms and users are shared.
+   */
+  public static final int ESTIMATED_BYTES_PER_BOOKING = 32 + 8 + 16 + 24 + 32;
+  /**
+   * A map node, the word index, the word and its current version, for 64 room numbers of a date.
+   */
+  public static final int ESTIMATED_BYTES_PER_OCCUPANCY_WORD = 32 + 16 + 24 + 32;
+  static final long PENDING = -1L;
+  private static final int COMMIT_SLOTS = 1 << 10;
+
+  private final ConcurrentHashMap<BookingRoom, Version> versions = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<LocalDate, OccupancyWords> occupancy = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong committed = new AtomicLong();
+  private final AtomicLongArray written = new AtomicLongArray(COMMIT_SLOTS);
+  private final AtomicLong horizon = new AtomicLong();
+  private final Set<BookingSnapshot> openSnapshots = ConcurrentHashMap.newKeySet();
+  private final LongAdder size = new LongAdder();
+
+  @Override
+  public boolean reserve(BookingRoom bookingRoom, User user, BookingListener listener) {
+    long[] version = new long[1];
+
+    versions.compute(bookingRoom, (key, head) -> {
+      if (head != null && head.owner != null) {
+        return head;
+      }
+
+      if (listener != null) {
+        listener.onReserved(key, user);
+      }
+      version[0] = occupy(key, true);
+      return new Version(version[0], user, trim(head));
+    });
+
+    if (version[0] == 0L) {
+      return false;
+    }
+
+    size.increment();
+    commit(version[0]);
+    return true;
+  }
+
+  @Override
+  public boolean release(BookingRoom bookingRoom, User user, BookingListener listener) {
+    long[] version = new long[1];
+
+    versions.computeIfPresent(bookingRoom, (key, head) -> {
+      if (head.owner == null || !head.owner.equals(user)) {
+        return head;
+      }
+
+      if (listener != null) {
+        listener.onReleased(key, head.owner);
+      }
+      version[0] = occupy(key, false);
+      return new Version(version[0], null, trim(head));
+    });
+
+    if (version[0] == 0L) {
+      return false;
+    }
+
+    size.decrement();
+    commit(version[0]);
+    return true;
+  }
+
+  /**
+   * The hand over takes a single version, so no snapshot sees the room free in between.
+   */
+  @Override
+  public boolean handOver(BookingRoom bookingRoom, User user, Supplier<User> successor, BookingListener listener) {
+    long[] version = new long[1];
+    User[] next = new User[1];
+
+    versions.computeIfPresent(bookingRoom, (key, head) -> {
+      if (head.owner == null || !head.owner.equals(user)) {
+        return head;
+      }
+
+      next[0] = successor.get();
+      if (listener != null) {
+        if (next[0] == null) {
+          listener.onReleased(key, head.owner);
+        } else {
+          listener.onHandedOver(key, head.owner, next[0]);
+        }
+      }
+      // A room handed over stays booked, only the owner changes.
+      version[0] = next[0] == null ? occupy(key, false) : clock.incrementAndGet();
+      return new Version(version[0], next[0], trim(head));
+    });
+
+    if (version[0] == 0L) {
+      return false;
+    }
+
+    if (next[0] == null) {
+      size.decrement();
+    }
+    commit(version[0]);
+    return true;
+  }
+
+  @Override
+  public User findOwner(BookingRoom bookingRoom) {
+    Version head = versions.get(bookingRoom);
+    return head == null ? null : head.owner;
+  }
+
+  @Override
+  public int size() {
+    return size.intValue();
+  }
+
+  @Override
+  public long footprintBytes() {
+    long occupancyWords = 0;
+    for (OccupancyWords words : occupancy.values()) {
+      occupancyWords += words.words.size();
+    }
+    return (long) versions.size() * ESTIMATED_BYTES_PER_BOOKING + occupancyWords * ESTIMATED_BYTES_PER_OCCUPANCY_WORD;
+  }
+
+  @Override
+  public void forEach(BiConsumer<BookingRoom, User> action) {
+    versions.forEach((bookingRoom, head) -> {
+      User owner = head.owner;
+      if (owner != null) {
+        action.accept(bookingRoom, owner);
+      }
+    });
+  }
+
+  /**
+   * This method opens a view of the bookings at the latest committed version. Opening it only reads
+   * a counter, and the versions it reads are kept until it's closed.
+   * @return The snapshot, to close once read
+   */
+  @Override
+  public BookingSnapshot openSnapshot() {
+    BookingSnapshot snapshot = new BookingSnapshot(this);
+    // Registered before its version is read, so a concurrent reclaim either sees it or can't pass that version yet.
+    openSnapshots.add(snapshot);
+    snapshot.version = committed.get();
+    return snapshot;
+  }
+
+  /**
+   * @return The version of the latest committed reservation or release
+   */
+  public long getVersion() {
+    return committed.get();
+  }
+
+  /**
+   * This method cuts off the versions no open snapshot can read anymore from every chain,
+   * and forgets the rooms and dates which are free for all of them.
+   * Writers trim their own chain as they go, this sweep is for the rooms nobody writes to anymore.
+   * @return The number of forgotten rooms and dates
+   */
+  @Override
+  public int reclaim() {
+    advanceHorizon();
+    long oldestReadable = horizon.get();
+    int removed = 0;
+
+    Iterator<Map.Entry<BookingRoom, Version>> iterator = versions.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<BookingRoom, Version> entry = iterator.next();
+      Version head = entry.getValue();
+      if (head.owner == null && head.version <= oldestReadable && versions.remove(entry.getKey(), head)) {
+        removed++;
+      } else {
+        trim(head);
+      }
+    }
+
+    occupancy.forEach((bookingDate, words) -> reclaim(bookingDate, words, oldestReadable));
+    return removed;
+  }
+
+  /**
+   * @return The number of versions kept for a room and date, the current one included
+   */
+  int countVersions(BookingRoom bookingRoom) {
+    int count = 0;
+    for (Version version = versions.get(bookingRoom); version != null; version = version.previous) {
+      count++;
+    }
+    return count;
+  }
+
+  User findOwner(BookingRoom bookingRoom, long version) {
+    for (Version candidate = versions.get(bookingRoom); candidate != null; candidate = candidate.previous) {
+      if (candidate.version <= version) {
+        return candidate.owner;
+      }
+    }
+
+    return null;
+  }
+
+  void forEach(long version, BiConsumer<BookingRoom, User> action) {
+    versions.forEach((bookingRoom, head) -> {
+      for (Version candidate = head; candidate != null; candidate = candidate.previous) {
+        if (candidate.version <= version) {
+          if (candidate.owner != null) {
+            action.accept(bookingRoom, candidate.owner);
+          }
+          return;
+        }
+      }
+    });
+  }
+
+  void forEachBookedRoom(LocalDate bookingDate, long version, IntConsumer action) {
+    OccupancyWords words = occupancy.get(bookingDate);
+    if (words == null) {
+      return;
+    }
+
+    words.words.forEach((wordIndex, word) -> {
+      for (WordVersion candidate = word.head; candidate != null; candidate = candidate.previous) {
+        if (candidate.version <= version) {
+          for (long bits = candidate.bits; bits != 0; bits &= bits - 1) {
+            action.accept((wordIndex << 6) + Long.numberOfTrailingZeros(bits));
+          }
+          return;
+        }
+      }
+    });
+  }
+
+  void close(BookingSnapshot snapshot) {
+    if (openSnapshots.remove(snapshot)) {
+      advanceHorizon();
+    }
+  }
+
+  /**
+   * This method marks a version as written, then moves the committed version over every written version
+   * following it. Whichever writer completes the prefix moves it, so a writer never waits for an older one.
+   * The written versions are kept in a ring, a writer only waits for its slot when it's a whole ring ahead.
+   */
+  private void commit(long version) {
+    while (version - committed.get() > COMMIT_SLOTS) {
+      Thread.yield();
+    }
+    written.set(slotOf(version), version);
+
+    long current = committed.get();
+    while (written.get(slotOf(current + 1)) == current + 1) {
+      if (committed.compareAndSet(current, current + 1)) {
+        current++;
+      } else {
+        current = committed.get();
+      }
+    }
+    advanceHorizon();
+  }
+
+  private static int slotOf(long version) {
+    return (int) version & (COMMIT_SLOTS - 1);
+  }
+
+  /**
+   * This method takes the next version for a change of a booking, and flips the bit of its room in the occupancy
+   * of its date at that version. The version is taken under the lock of the word, so every word gets its versions in order.
+   * @return The version of the change
+   */
+  private long occupy(BookingRoom bookingRoom, boolean booked) {
+    int roomNumber = bookingRoom.getRoom().getRoomNumber();
+    long bit = 1L << roomNumber;
+
+    while (true) {
+      OccupancyWord word = wordOf(bookingRoom.getBookingDate(), roomNumber >>> 6);
+      synchronized (word) {
+        if (word.removed) {
+          continue;
+        }
+
+        WordVersion head = word.head;
+        long bits = head == null ? 0L : head.bits;
+        long version = clock.incrementAndGet();
+        word.head = new WordVersion(version, booked ? bits | bit : bits & ~bit, trim(head));
+        return version;
+      }
+    }
+  }
+
+  private OccupancyWord wordOf(LocalDate bookingDate, int wordIndex) {
+    while (true) {
+      OccupancyWords words = occupancy.get(bookingDate);
+      if (words == null) {
+        words = occupancy.computeIfAbsent(bookingDate, key -> new OccupancyWords());
+      }
+
+      OccupancyWord word = words.words.get(wordIndex);
+      if (word != null) {
+        return word;
+      }
+
+      synchronized (words) {
+        if (!words.removed) {
+          return words.words.computeIfAbsent(wordIndex, key -> new OccupancyWord());
+        }
+      }
+    }
+  }
+
+  /**
+   * This method drops the words of a date which are empty for every open snapshot, then the date once it has none.
+   * A writer which picked a dropped word or date finds it marked and looks it up again.
+   */
+  private void reclaim(LocalDate bookingDate, OccupancyWords words, long oldestReadable) {
+    words.words.forEach((wordIndex, word) -> {
+      synchronized (word) {
+        WordVersion head = word.head;
+        if (head != null && (head.bits != 0L || head.version > oldestReadable)) {
+          trim(head);
+        } else if (head != null) {
+          word.removed = true;
+          words.words.remove(wordIndex, word);
+        }
+      }
+    });
+
+    synchronized (words) {
+      if (words.words.isEmpty()) {
+        words.removed = true;
+        occupancy.remove(bookingDate, words);
+      }
+    }
+  }
+
+  /**
+   * This method moves the oldest version any snapshot may still read up to the oldest open snapshot.
+   * A snapshot which is still reading its version holds the horizon where it is.
+   */
+  private void advanceHorizon() {
+    long oldestReadable = committed.get();
+    for (BookingSnapshot snapshot : openSnapshots) {
+      long version = snapshot.version;
+      if (version == PENDING) {
+        return;
+      }
+      oldestReadable = Math.min(oldestReadable, version);
+    }
+
+    long current = horizon.get();
+    while (oldestReadable > current && !horizon.compareAndSet(current, oldestReadable)) {
+      current = horizon.get();
+    }
+  }
+
+  /**
+   * This method keeps the versions of a chain down to the first one every open snapshot can read.
+   */
+  private Version trim(Version head) {
+    long oldestReadable = horizon.get();
+    for (Version version = head; version != null; version = version.previous) {
+      if (version.version <= oldestReadable) {
+        version.previous = null;
+        break;
+      }
+    }
+    return head;
+  }
+
+  private WordVersion trim(WordVersion head) {
+    long oldestReadable = horizon.get();
+    for (WordVersion version = head; version != null; version = version.previous) {
+      if (version.version <= oldestReadable) {
+        version.previous = null;
+        break;
+      }
+    }
+    return head;
+  }
+
+  /**
+   * One state of a room and date, a null owner means the room is free from that version on.
+   * The link to the older version is only ever cut, a reader still walking past it is never hurt.
+   */
+  private static final class Version {
+    private final long version;
+    private final User owner;
+    private volatile Version previous;
+
+    private Version(long version, User owner, Version previous) {
+      this.version = version;
+      this.owner = owner;
+      this.previous = previous;
+    }
+  }
+
+  /**
+   * The occupancy words of one date, by index of their first room number over 64.
+   * A word is only added under the lock of its date, which is marked once it's dropped.
+   */
+  private static final class OccupancyWords {
+    private final ConcurrentHashMap<Integer, OccupancyWord> words = new ConcurrentHashMap<>();
+    private boolean removed;
+  }
+
+  /**
+   * The bits of 64 room numbers of a date, with a chain of their versions newest first.
+   * The chain is only pushed under the lock of the word, which is marked once it's dropped.
+   */
+  private static final class OccupancyWord {
+    private volatile WordVersion head;
+    private boolean removed;
+  }
+
+  private static final class WordVersion {
+    private final long version;
+    private final long bits;
+    private volatile WordVersion previous;
+
+    private WordVersion(long version, long bits, WordVersion previous) {
+      this.version = version;
+      this.bits = bits;
+      this.previous = previous;
+    }
+  }
+
+}
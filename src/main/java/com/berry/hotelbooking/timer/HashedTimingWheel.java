@@ -0,0 +1,375 @@
+package com.berry.hotelbooking.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks after a delay, with a precision of one tick. Timeouts are hashed into a ring of buckets
+ * by their deadline, and one worker thread expires a single bucket per tick, so scheduling and
+ * cancelling cost O(1) and a tick only touches the timeouts of its bucket, however many are pending.
+ * Timeouts further than one turn of the wheel wait for their remaining rounds in the same bucket.
+ * Tasks run on the worker thread, so they should be short.
+ */
+public class HashedTimingWheel implements AutoCloseable {
+
+  public static final long DEFAULT_TICK_MILLIS = 100;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+  private static final int INIT = 0;
+  private static final int STARTED = 1;
+  private static final int STOPPED = 2;
+
+  private static Logger logger = Logger.getLogger(HashedTimingWheel.class.getName());
+  private static volatile HashedTimingWheel defaultWheel;
+
+  private final long tickNanos;
+  private final Bucket[] buckets;
+  private final int mask;
+  private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final LongAdder pendingTimeouts = new LongAdder();
+  private final AtomicInteger state = new AtomicInteger(INIT);
+  private final Thread worker;
+  private volatile long startNanos;
+
+  private HashedTimingWheel(Builder builder) {
+    this.tickNanos = builder.tickUnit.toNanos(builder.tickDuration);
+    this.buckets = new Bucket[Integer.highestOneBit(builder.ticksPerWheel * 2 - 1)];
+    this.mask = buckets.length - 1;
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new Bucket();
+    }
+
+    this.worker = new Thread(this::run, builder.threadName);
+    this.worker.setDaemon(true);
+  }
+
+  public static Builder NewBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * The wheel shared by the services which aren't given one. Its thread only starts with the first timeout.
+   * @return The default timing wheel
+   */
+  public static HashedTimingWheel getDefault() {
+    HashedTimingWheel wheel = defaultWheel;
+    if (wheel == null) {
+      synchronized (HashedTimingWheel.class) {
+        wheel = defaultWheel;
+        if (wheel == null) {
+          wheel = NewBuilder().build();
+          defaultWheel = wheel;
+        }
+      }
+    }
+
+    return wheel;
+  }
+
+  /**
+   * This method runs a task once its delay is over, at the first tick after the deadline.
+   * @param task The task to run on the worker thread
+   * @param delay The delay
+   * @param unit The unit of the delay
+   * @return The timeout, to cancel the task
+   * @throws IllegalStateException if the wheel is closed
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    if (task == null) {
+      throw new NullPointerException("Task is required.");
+    }
+
+    start();
+
+    long deadline = System.nanoTime() + Math.max(0L, unit.toNanos(delay)) - startNanos;
+    Timeout timeout = new Timeout(this, task, deadline);
+    pendingTimeouts.increment();
+    scheduledTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * @return The number of timeouts which are neither expired nor cancelled yet
+   */
+  public long getPendingTimeouts() {
+    return pendingTimeouts.sum();
+  }
+
+  /**
+   * This method stops the worker thread. The pending timeouts never expire.
+   */
+  @Override
+  public void close() {
+    if (state.getAndSet(STOPPED) != STARTED) {
+      return;
+    }
+
+    worker.interrupt();
+    try {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void start() {
+    int current = state.get();
+    if (current == STARTED) {
+      return;
+    }
+    if (current == STOPPED) {
+      throw new IllegalStateException("Timing wheel is closed.");
+    }
+
+    synchronized (this) {
+      if (state.get() == INIT) {
+        startNanos = System.nanoTime();
+        state.set(STARTED);
+        worker.start();
+      }
+    }
+
+    if (state.get() == STOPPED) {
+      throw new IllegalStateException("Timing wheel is closed.");
+    }
+  }
+
+  private void run() {
+    long tick = 0;
+
+    while (state.get() == STARTED) {
+      long now = awaitTick(tick);
+      if (now < 0) {
+        break;
+      }
+
+      removeCancelledTimeouts();
+      transferScheduledTimeouts(tick);
+      buckets[(int) (tick & mask)].expire(now);
+      tick++;
+    }
+  }
+
+  /**
+   * This method sleeps until the end of a tick.
+   * @return The time since the wheel started, or -1 if the wheel is closed while sleeping
+   */
+  private long awaitTick(long tick) {
+    long deadline = tickNanos * (tick + 1);
+
+    while (true) {
+      long now = System.nanoTime() - startNanos;
+      long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999_999);
+      if (sleepMillis <= 0) {
+        return now;
+      }
+
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        if (state.get() == STOPPED) {
+          return -1;
+        }
+      }
+    }
+  }
+
+  private void transferScheduledTimeouts(long tick) {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = scheduledTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.state.get() == Timeout.CANCELLED) {
+        continue;
+      }
+
+      long expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+      timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+      buckets[(int) (expiryTick & mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelledTimeouts() {
+    Timeout timeout;
+    while ((timeout = cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * A task waiting in the wheel.
+   */
+  public static final class Timeout {
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final HashedTimingWheel wheel;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    // Only touched by the worker thread.
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(HashedTimingWheel wheel, Runnable task, long deadline) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * This method prevents the task from running, unless it already did.
+     * @return True if the task won't run
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+
+      wheel.pendingTimeouts.decrement();
+      wheel.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(WAITING, EXPIRED)) {
+        return;
+      }
+
+      wheel.pendingTimeouts.decrement();
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "A timed task failed.", e);
+      }
+    }
+  }
+
+  /**
+   * The timeouts hashed to one slot of the wheel, as a doubly linked list only touched by the worker thread.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.previous = tail;
+        tail = timeout;
+      }
+    }
+
+    private void expire(long now) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.bucket != this) {
+        return;
+      }
+
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      } else {
+        tail = timeout.previous;
+      }
+
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+
+  public static final class Builder {
+    private long tickDuration = DEFAULT_TICK_MILLIS;
+    private TimeUnit tickUnit = TimeUnit.MILLISECONDS;
+    private int ticksPerWheel = DEFAULT_TICKS_PER_WHEEL;
+    private String threadName = "hotel-booking-timing-wheel";
+
+    /**
+     * @param tickDuration The precision of the timeouts, 100 milliseconds by default
+     * @param tickUnit The unit of the tick duration
+     */
+    public Builder withTick(long tickDuration, TimeUnit tickUnit) {
+      if (tickUnit == null) {
+        throw new NullPointerException("Tick unit is required.");
+      }
+      if (tickDuration <= 0 || tickUnit.toMillis(tickDuration) <= 0) {
+        throw new IllegalArgumentException("Invalid tick duration, it must be at least one millisecond.");
+      }
+
+      this.tickDuration = tickDuration;
+      this.tickUnit = tickUnit;
+      return this;
+    }
+
+    /**
+     * @param ticksPerWheel The number of buckets, rounded up to a power of two
+     */
+    public Builder withTicksPerWheel(int ticksPerWheel) {
+      if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 20) {
+        throw new IllegalArgumentException("Invalid ticks per wheel.");
+      }
+
+      this.ticksPerWheel = ticksPerWheel;
+      return this;
+    }
+
+    public Builder withThreadName(String threadName) {
+      if (threadName == null) {
+        throw new NullPointerException("Thread name is required.");
+      }
+
+      this.threadName = threadName;
+      return this;
+    }
+
+    public HashedTimingWheel build() {
+      return new HashedTimingWheel(this);
+    }
+  }
+
+}
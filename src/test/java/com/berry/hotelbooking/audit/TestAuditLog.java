@@ -0,0 +1,169 @@
+package com.berry.hotelbooking.audit;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAuditLog {
+
+  private static final Logger DEFAULT_LOGGER = Logger.getLogger(TestAuditLog.class.getName());
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.of(2030, 1, 15);
+
+  @Test
+  public void shouldWriteStructuredEventsInOrder() {
+    List<String> lines = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog.NewBuilder().withSink(event -> lines.add(event.toString())).build();
+
+    Booking booking = Booking
+        .NewBuilder()
+        .withUser(User.NewBuilder().withName("John Smith").build())
+        .withBookingRoom(
+            BookingRoom.NewBuilder()
+                .withRoom(Room.NewBuilder().withRoomNumber(5).build())
+                .withBookingDate(DEFAULT_BOOKING_DATE)
+                .build()
+        )
+        .build();
+
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.RESERVATION_REQUESTED, booking);
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.STAY_REQUESTED, booking, DEFAULT_BOOKING_DATE.plusDays(2));
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.AVAILABILITY_SEARCHED, DEFAULT_BOOKING_DATE);
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.BATCH_REQUESTED, 3);
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.VALIDATION_FAILED, "Invalid hotel.");
+    auditLog.close();
+
+    assertEquals(5, lines.size());
+    assertEquals("RESERVATION_REQUESTED user=John Smith room=5 date=2030-01-15", lines.get(0));
+    assertEquals("STAY_REQUESTED user=John Smith room=5 date=2030-01-15 endDate=2030-01-17", lines.get(1));
+    assertEquals("AVAILABILITY_SEARCHED date=2030-01-15", lines.get(2));
+    assertEquals("BATCH_REQUESTED count=3", lines.get(3));
+    assertEquals("VALIDATION_FAILED message=\"Invalid hotel.\"", lines.get(4));
+  }
+
+  @Test
+  public void shouldDropEventsWhenFullWithDropPolicy() throws InterruptedException {
+    CountDownLatch writerBlocked = new CountDownLatch(1);
+    CountDownLatch releaseWriter = new CountDownLatch(1);
+    List<AuditEventType> types = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog
+        .NewBuilder()
+        .withCapacity(4)
+        .withOverflowPolicy(OverflowPolicy.DROP)
+        .withSink(event -> {
+          writerBlocked.countDown();
+          awaitQuietly(releaseWriter);
+          types.add(event.getType());
+        })
+        .build();
+
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "first");
+    writerBlocked.await();
+    for (int i = 0; i < 10; i++) {
+      auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "next");
+    }
+    releaseWriter.countDown();
+    auditLog.close();
+
+    assertEquals(4, auditLog.getCapacity());
+    assertEquals(7, auditLog.getDroppedEvents());
+    assertEquals(4, types.size());
+  }
+
+  @Test
+  public void shouldNotLoseEventsWithBlockPolicy() throws InterruptedException {
+    List<String> messages = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog
+        .NewBuilder()
+        .withCapacity(2)
+        .withOverflowPolicy(OverflowPolicy.BLOCK)
+        .withSink(event -> messages.add(event.getMessage()))
+        .build();
+
+    Thread[] producers = new Thread[4];
+    for (int i = 0; i < producers.length; i++) {
+      producers[i] = new Thread(() -> {
+        for (int j = 0; j < 100; j++) {
+          auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "message");
+        }
+      });
+      producers[i].start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    auditLog.close();
+
+    assertEquals(0, auditLog.getDroppedEvents());
+    assertEquals(400, messages.size());
+  }
+
+  @Test
+  public void shouldDropEventsAfterClose() {
+    List<String> messages = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog.NewBuilder().withSink(event -> messages.add(event.getMessage())).build();
+    auditLog.close();
+
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "late");
+
+    assertTrue(messages.isEmpty());
+    assertEquals(1, auditLog.getDroppedEvents());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldWakeUpIdleWriterOnPublish() throws InterruptedException {
+    List<String> messages = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog.NewBuilder().withSink(event -> messages.add(event.getMessage())).build();
+
+    for (int i = 0; i < 3; i++) {
+      Thread.sleep(20);
+      auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "after idle");
+      auditLog.flush();
+      assertEquals(i + 1, messages.size());
+    }
+    auditLog.close();
+  }
+
+  @Test(timeout = 5000)
+  public void shouldDropEventsAfterCloseWithBlockPolicy() {
+    List<String> messages = new CopyOnWriteArrayList<>();
+    AuditLog auditLog = AuditLog
+        .NewBuilder()
+        .withCapacity(2)
+        .withOverflowPolicy(OverflowPolicy.BLOCK)
+        .withSink(event -> messages.add(event.getMessage()))
+        .build();
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "first");
+    auditLog.close();
+
+    auditLog.publish(DEFAULT_LOGGER, AuditEventType.BOOKINGS_SEARCHED, "late");
+    auditLog.flush();
+
+    assertEquals(1, messages.size());
+    assertEquals(1, auditLog.getDroppedEvents());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowExceptionWithInvalidCapacity() {
+    AuditLog.NewBuilder().withCapacity(0);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
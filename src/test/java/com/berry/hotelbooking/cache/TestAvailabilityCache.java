@@ -0,0 +1,123 @@
+package com.berry.hotelbooking.cache;
+
+import com.berry.hotelbooking.index.OccupancyIndex;
+import com.berry.hotelbooking.index.RoomOrdinals;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestAvailabilityCache {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 10;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+
+  private Set<Room> rooms;
+  private OccupancyIndex occupancyIndex;
+  private AvailabilityCache availabilityCache;
+
+  @Before
+  public void setUp() {
+    rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+
+    occupancyIndex = new OccupancyIndex(new RoomOrdinals(rooms));
+    availabilityCache = AvailabilityCache.NewBuilder().withOccupancyIndex(occupancyIndex).build();
+  }
+
+  @Test
+  public void shouldReturnCachedRoomsWhileDateIsUnchanged() {
+    Set<Room> availableRooms = availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE);
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1)));
+
+    assertSame(availableRooms, availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE));
+    assertEquals(rooms, availableRooms);
+    assertEquals(1, availabilityCache.getHitCount());
+    assertEquals(1, availabilityCache.getMissCount());
+  }
+
+  @Test
+  public void shouldNotReturnStaleRoomsAfterDateChanges() {
+    BookingRoom bookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE);
+
+    occupancyIndex.markBooked(bookingRoom);
+    assertFalse(availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE).contains(bookingRoom.getRoom()));
+
+    occupancyIndex.markFree(bookingRoom);
+    assertTrue(availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE).contains(bookingRoom.getRoom()));
+    assertEquals(0, availabilityCache.getHitCount());
+    assertEquals(3, availabilityCache.getMissCount());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedDates() {
+    availabilityCache = AvailabilityCache.NewBuilder()
+        .withOccupancyIndex(occupancyIndex)
+        .withMaximumSize(1)
+        .build();
+
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE);
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(1));
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(1));
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE);
+
+    assertEquals(1, availabilityCache.size());
+    assertEquals(2, availabilityCache.getEvictionCount());
+    assertEquals(1, availabilityCache.getHitCount());
+  }
+
+  @Test
+  public void shouldBoundNumberOfCachedDates() {
+    availabilityCache = AvailabilityCache.NewBuilder()
+        .withOccupancyIndex(occupancyIndex)
+        .withMaximumSize(100)
+        .build();
+
+    for (int i = 0; i < 1000; i++) {
+      availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(i));
+    }
+
+    assertTrue(availabilityCache.size() <= 100);
+    assertEquals(1000 - availabilityCache.size(), availabilityCache.getEvictionCount());
+  }
+
+  @Test
+  public void shouldForgetDatesBeforeDate() {
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE);
+    availabilityCache.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(1));
+
+    availabilityCache.removeBefore(DEFAULT_BOOKING_DATE.plusDays(1));
+
+    assertEquals(1, availabilityCache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidMaximumSize() {
+    AvailabilityCache.NewBuilder().withMaximumSize(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldRequireOccupancyIndex() {
+    AvailabilityCache.NewBuilder().build();
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom.NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+}
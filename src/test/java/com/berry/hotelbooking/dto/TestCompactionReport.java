@@ -0,0 +1,44 @@
+package com.berry.hotelbooking.dto;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestCompactionReport {
+
+  private final LocalDate DEFAULT_BEFORE_DATE = LocalDate.now();
+
+  @Test
+  public void shouldBuildReportWithValues() {
+    CompactionReport report = CompactionReport.NewBuilder()
+        .withBeforeDate(DEFAULT_BEFORE_DATE)
+        .withRemovedBookings(10)
+        .withRemovedDates(2)
+        .withReclaimedBytes(1024)
+        .build();
+
+    assertEquals(DEFAULT_BEFORE_DATE, report.getBeforeDate());
+    assertEquals(10, report.getRemovedBookings());
+    assertEquals(2, report.getRemovedDates());
+    assertEquals(1024, report.getReclaimedBytes());
+    assertEquals(report, CompactionReport.NewBuilder()
+        .withBeforeDate(DEFAULT_BEFORE_DATE)
+        .withRemovedBookings(10)
+        .withRemovedDates(2)
+        .withReclaimedBytes(1024)
+        .build());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNegativeReclaimedBytes() {
+    CompactionReport.NewBuilder().withReclaimedBytes(-1);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithoutBeforeDate() {
+    CompactionReport.NewBuilder().build();
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.berry.hotelbooking.dto;
+
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestHotelErrorCode {
+
+  @Test
+  public void shouldCacheResponseEqualToGeneratedOne() {
+    for (HotelErrorCode errorCode : HotelErrorCode.values()) {
+      GenericResponse response = errorCode.getResponse();
+
+      assertSame(response, errorCode.getResponse());
+      assertEquals(GenericResponseUtils.generateFromErrorMessage(errorCode.getMessage()), response);
+      assertFalse(response.isSuccess());
+      assertNull(response.getData());
+    }
+  }
+
+  @Test
+  public void shouldHaveUniqueCodes() {
+    Set<Integer> codes = new HashSet<>();
+    for (HotelErrorCode errorCode : HotelErrorCode.values()) {
+      assertTrue(codes.add(errorCode.getCode()));
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotModifyCachedErrors() {
+    HotelErrorCode.ROOM_UNAVAILABLE.getResponse().getErrors().clear();
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.berry.hotelbooking.dto;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestOccupancyCalendar {
+
+  private final LocalDate DEFAULT_FROM_DATE = LocalDate.of(2030, 1, 15);
+
+  @Test
+  public void shouldReadBookedAndAvailableRoomsByDay() {
+    OccupancyCalendar calendar = OccupancyCalendar.NewBuilder()
+        .withFromDate(DEFAULT_FROM_DATE)
+        .withTotalRooms(10)
+        .withBookedRooms(new int[] {1, 0, 7})
+        .build();
+
+    assertEquals(3, calendar.size());
+    assertEquals(DEFAULT_FROM_DATE.plusDays(3), calendar.getToDate());
+    assertEquals(7, calendar.getBookedRooms(DEFAULT_FROM_DATE.plusDays(2)));
+    assertEquals(3, calendar.getAvailableRooms(2));
+    assertEquals(1, calendar.getBookedRooms(0));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldRejectDateOutsideOfCalendar() {
+    OccupancyCalendar.NewBuilder()
+        .withFromDate(DEFAULT_FROM_DATE)
+        .withBookedRooms(new int[] {1})
+        .build()
+        .getBookedRooms(DEFAULT_FROM_DATE.minusDays(1));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithoutBookedRooms() {
+    OccupancyCalendar.NewBuilder().withFromDate(DEFAULT_FROM_DATE).build();
+  }
+
+}
@@ -0,0 +1,37 @@
+package com.berry.hotelbooking.dto;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestPage {
+
+  @Test
+  public void shouldHaveNextPageOnlyWithToken() {
+    Page<Integer> page = Page.<Integer>NewBuilder().withItems(new ArrayList<>(Arrays.asList(1, 2))).withNextPageToken("2").build();
+    Page<Integer> lastPage = Page.<Integer>NewBuilder().withItems(new ArrayList<>()).build();
+
+    assertTrue(page.hasNextPage());
+    assertEquals("2", page.getNextPageToken());
+    assertEquals(Arrays.asList(1, 2), page.getItems());
+    assertFalse(lastPage.hasNextPage());
+    assertNull(lastPage.getNextPageToken());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotModifyItems() {
+    List<Integer> items = Page.<Integer>NewBuilder().withItems(new ArrayList<>(Arrays.asList(1, 2))).build().getItems();
+
+    items.add(3);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithoutItems() {
+    Page.NewBuilder().build();
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.berry.hotelbooking.dto;
+
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRoomCriteria {
+
+  @Test
+  public void shouldMatchAnyRoomWithoutAttributes() {
+    RoomCriteria roomCriteria = RoomCriteria.NewBuilder().build();
+
+    assertNull(roomCriteria.getRoomType());
+    assertEquals(0, roomCriteria.getMinimumCapacity());
+    assertEquals(RoomCriteria.ANY_FLOOR, roomCriteria.getFloor());
+    assertTrue(roomCriteria.matches(Room.NewBuilder().withRoomNumber(1).withFloor(5).build()));
+  }
+
+  @Test
+  public void shouldMatchRoomsWithEveryAttribute() {
+    RoomCriteria roomCriteria = RoomCriteria.NewBuilder()
+        .withRoomType(RoomType.SUITE)
+        .withMinimumCapacity(3)
+        .build();
+
+    assertTrue(roomCriteria.matches(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).withCapacity(4).build()));
+    assertFalse(roomCriteria.matches(Room.NewBuilder().withRoomNumber(2).withRoomType(RoomType.SUITE).withCapacity(2).build()));
+    assertFalse(roomCriteria.matches(Room.NewBuilder().withRoomNumber(3).withRoomType(RoomType.DELUXE).withCapacity(4).build()));
+    assertEquals(RoomCriteria.NewBuilder().withRoomType(RoomType.SUITE).withMinimumCapacity(3).build(), roomCriteria);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidMinimumCapacity() {
+    RoomCriteria.NewBuilder().withMinimumCapacity(0);
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.berry.hotelbooking.dto;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestRoomHold {
+
+  private final Instant DEFAULT_EXPIRES_AT = Instant.now().plusSeconds(600);
+
+  @Test
+  public void shouldCompareHoldsByUserRoomAndExpiry() {
+    RoomHold roomHold = RoomHold.NewBuilder().withBooking(initBooking("John Smith")).withExpiresAt(DEFAULT_EXPIRES_AT).build();
+
+    assertEquals(DEFAULT_EXPIRES_AT, roomHold.getExpiresAt());
+    assertEquals(roomHold, RoomHold.NewBuilder().withBooking(initBooking("John Smith")).withExpiresAt(DEFAULT_EXPIRES_AT).build());
+    assertNotEquals(roomHold, RoomHold.NewBuilder().withBooking(initBooking("Anonymous")).withExpiresAt(DEFAULT_EXPIRES_AT).build());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithoutExpiryTime() {
+    RoomHold.NewBuilder().withBooking(initBooking("John Smith")).build();
+  }
+
+  private Booking initBooking(String guestName) {
+    return Booking.NewBuilder()
+        .withUser(User.NewBuilder().withName(guestName).build())
+        .withBookingRoom(BookingRoom.NewBuilder()
+            .withRoom(Room.NewBuilder().withRoomNumber(5).build())
+            .withBookingDate(LocalDate.now().plusDays(10))
+            .build())
+        .build();
+  }
+
+}
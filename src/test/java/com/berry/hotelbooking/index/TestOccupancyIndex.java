@@ -0,0 +1,218 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestOccupancyIndex {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 130;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+
+  private Set<Room> rooms;
+  private OccupancyIndex occupancyIndex;
+
+  @Before
+  public void setUp() {
+    rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+
+    occupancyIndex = new OccupancyIndex(new RoomOrdinals(rooms));
+  }
+
+  @Test
+  public void shouldFindAllRoomsWithoutBookings() {
+    assertEquals(rooms, occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE));
+  }
+
+  @Test
+  public void shouldExcludeBookedRoomsOnlyInTheirDate() {
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(65, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(130, DEFAULT_BOOKING_DATE));
+
+    Set<Room> availableRooms = occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE);
+
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 3, availableRooms.size());
+    assertFalse(availableRooms.contains(Room.NewBuilder().withRoomNumber(65).build()));
+    assertTrue(availableRooms.contains(Room.NewBuilder().withRoomNumber(64).build()));
+    assertEquals(rooms, occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(1)));
+  }
+
+  @Test
+  public void shouldIgnoreRoomsOutsideOfHotel() {
+    occupancyIndex.markBooked(initBookingRoom(DEFAULT_NUMBER_OF_ROOMS + 1, DEFAULT_BOOKING_DATE));
+
+    assertEquals(rooms, occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE));
+  }
+
+  @Test
+  public void shouldRemoveOnlyFreeDatesBeforeDate() {
+    LocalDate pastDate = LocalDate.now().minusDays(3);
+    occupancyIndex.markBooked(initBookingRoom(1, pastDate));
+    occupancyIndex.markBooked(initBookingRoom(2, pastDate.plusDays(1)));
+    occupancyIndex.markFree(initBookingRoom(1, pastDate));
+    occupancyIndex.markBooked(initBookingRoom(3, DEFAULT_BOOKING_DATE));
+
+    assertEquals(1, occupancyIndex.removeBefore(LocalDate.now()));
+    assertArrayEquals(new int[] {0, 1}, occupancyIndex.countBookedRooms(pastDate, pastDate.plusDays(2)));
+    assertEquals(1, occupancyIndex.countBookedRooms(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(1))[0]);
+  }
+
+  @Test
+  public void shouldCollectAvailableRoomsByPage() {
+    occupancyIndex.markBooked(initBookingRoom(2, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(65, DEFAULT_BOOKING_DATE));
+    Set<Room> collectedRooms = new HashSet<>();
+
+    int fromOrdinal = 0;
+    int pages = 0;
+    do {
+      List<Room> page = new ArrayList<>();
+      fromOrdinal = occupancyIndex.collectAvailableRooms(DEFAULT_BOOKING_DATE, fromOrdinal, 50, page);
+      assertTrue(page.size() <= 50);
+      collectedRooms.addAll(page);
+      pages++;
+    } while (fromOrdinal >= 0);
+
+    assertEquals(3, pages);
+    assertEquals(occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE), collectedRooms);
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  @Test
+  public void shouldFindRoomAgainAfterMarkedFree() {
+    BookingRoom bookingRoom = initBookingRoom(65, DEFAULT_BOOKING_DATE);
+    occupancyIndex.markBooked(bookingRoom);
+    occupancyIndex.markFree(bookingRoom);
+    occupancyIndex.markFree(initBookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1)));
+
+    assertEquals(rooms, occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE));
+  }
+
+  @Test
+  public void shouldBumpVersionOnlyWhenDateChanges() {
+    BookingRoom bookingRoom = initBookingRoom(65, DEFAULT_BOOKING_DATE);
+    assertEquals(0L, occupancyIndex.versionOf(DEFAULT_BOOKING_DATE));
+
+    occupancyIndex.markBooked(bookingRoom);
+    long bookedVersion = occupancyIndex.versionOf(DEFAULT_BOOKING_DATE);
+    occupancyIndex.markBooked(bookingRoom);
+    occupancyIndex.markBooked(initBookingRoom(65, DEFAULT_BOOKING_DATE.plusDays(1)));
+    assertEquals(bookedVersion, occupancyIndex.versionOf(DEFAULT_BOOKING_DATE));
+
+    occupancyIndex.markFree(bookingRoom);
+    assertTrue(occupancyIndex.versionOf(DEFAULT_BOOKING_DATE) > bookedVersion);
+  }
+
+  @Test
+  public void shouldCountAndFindAvailableRoomsOfType() {
+    Set<Room> typedRooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      typedRooms.add(Room.NewBuilder().withRoomNumber(i).withRoomType(i % 2 == 0 ? RoomType.SUITE : RoomType.STANDARD).build());
+    }
+    RoomOrdinals roomOrdinals = new RoomOrdinals(typedRooms);
+    occupancyIndex = new OccupancyIndex(roomOrdinals);
+    long[] suites = new RoomAttributeIndex(roomOrdinals).roomsOfType(RoomType.SUITE);
+
+    occupancyIndex.markBooked(initBookingRoom(2, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(3, DEFAULT_BOOKING_DATE));
+
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS / 2 - 1, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS / 2 - 1, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.STANDARD));
+    assertEquals(0, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.DELUXE));
+    assertEquals(3, occupancyIndex.nextAvailableRoom(DEFAULT_BOOKING_DATE, suites, 0));
+    assertEquals(67, occupancyIndex.nextAvailableRoom(DEFAULT_BOOKING_DATE, suites, 66));
+    assertEquals(-1, occupancyIndex.nextAvailableRoom(DEFAULT_BOOKING_DATE, suites, DEFAULT_NUMBER_OF_ROOMS));
+
+    occupancyIndex.markFree(initBookingRoom(2, DEFAULT_BOOKING_DATE));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS / 2, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+  }
+
+  @Test
+  public void shouldReserveRoomsOfTypeOutOfCounter() {
+    Set<Room> typedRooms = new HashSet<>();
+    typedRooms.add(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).build());
+    typedRooms.add(Room.NewBuilder().withRoomNumber(2).withRoomType(RoomType.SUITE).build());
+    occupancyIndex = new OccupancyIndex(new RoomOrdinals(typedRooms));
+
+    assertTrue(occupancyIndex.reserveRoomOfType(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    assertEquals(1, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    assertFalse(occupancyIndex.reserveRoomOfType(DEFAULT_BOOKING_DATE, RoomType.DELUXE));
+
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE), true);
+    assertEquals(1, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+
+    occupancyIndex.markBooked(initBookingRoom(2, DEFAULT_BOOKING_DATE));
+    assertEquals(0, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    assertFalse(occupancyIndex.reserveRoomOfType(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+
+    occupancyIndex.markFree(initBookingRoom(1, DEFAULT_BOOKING_DATE));
+    assertTrue(occupancyIndex.reserveRoomOfType(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    occupancyIndex.unreserveRoomOfType(DEFAULT_BOOKING_DATE, RoomType.SUITE);
+    assertEquals(1, occupancyIndex.countAvailableRooms(DEFAULT_BOOKING_DATE, RoomType.SUITE));
+  }
+
+  @Test
+  public void shouldFindNearestAvailableRoom() {
+    long[] allRooms = {-1L, -1L, -1L};
+    for (int roomNumber = 60; roomNumber <= 70; roomNumber++) {
+      occupancyIndex.markBooked(initBookingRoom(roomNumber, DEFAULT_BOOKING_DATE));
+    }
+
+    assertEquals(0, occupancyIndex.nearestAvailableRoom(DEFAULT_BOOKING_DATE, allRooms, 0));
+    assertEquals(58, occupancyIndex.nearestAvailableRoom(DEFAULT_BOOKING_DATE, allRooms, 63));
+    assertEquals(70, occupancyIndex.nearestAvailableRoom(DEFAULT_BOOKING_DATE, allRooms, 66));
+    assertEquals(129, occupancyIndex.nearestAvailableRoom(DEFAULT_BOOKING_DATE, allRooms, 200));
+    assertEquals(-1, occupancyIndex.nearestAvailableRoom(DEFAULT_BOOKING_DATE, new long[3], 63));
+  }
+
+  @Test
+  public void shouldFindRoomsFreeForWholeRange() {
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(65, DEFAULT_BOOKING_DATE.plusDays(2)));
+    occupancyIndex.markBooked(initBookingRoom(130, DEFAULT_BOOKING_DATE.plusDays(3)));
+
+    Set<Room> availableRooms = occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(3));
+
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 2, availableRooms.size());
+    assertFalse(availableRooms.contains(Room.NewBuilder().withRoomNumber(1).build()));
+    assertFalse(availableRooms.contains(Room.NewBuilder().withRoomNumber(65).build()));
+    assertTrue(availableRooms.contains(Room.NewBuilder().withRoomNumber(130).build()));
+    assertEquals(rooms, occupancyIndex.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(4), DEFAULT_BOOKING_DATE.plusDays(9)));
+  }
+
+  @Test
+  public void shouldCountBookedRoomsPerDate() {
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(1, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(65, DEFAULT_BOOKING_DATE));
+    occupancyIndex.markBooked(initBookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(2)));
+    occupancyIndex.markFree(initBookingRoom(3, DEFAULT_BOOKING_DATE.plusDays(2)));
+    occupancyIndex.markFree(initBookingRoom(65, DEFAULT_BOOKING_DATE));
+
+    assertArrayEquals(new int[] {1, 0, 1}, occupancyIndex.countBookedRooms(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(3)));
+  }
+}
@@ -0,0 +1,71 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.dto.RoomCriteria;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRoomAttributeIndex {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 130;
+
+  private Set<Room> rooms;
+  private RoomOrdinals roomOrdinals;
+  private RoomAttributeIndex roomAttributeIndex;
+
+  @Before
+  public void setUp() {
+    rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder()
+          .withRoomNumber(i)
+          .withRoomType(RoomType.values()[i % RoomType.values().length])
+          .withCapacity(1 + i % 5)
+          .withFloor(i / 20)
+          .build());
+    }
+
+    roomOrdinals = new RoomOrdinals(rooms);
+    roomAttributeIndex = new RoomAttributeIndex(roomOrdinals);
+  }
+
+  @Test
+  public void shouldMatchEveryRoomWithoutAttributes() {
+    assertEquals(rooms, matchingRooms(RoomCriteria.NewBuilder().build()));
+  }
+
+  @Test
+  public void shouldMatchSameRoomsAsScanning() {
+    RoomCriteria[] criteria = {
+        RoomCriteria.NewBuilder().withRoomType(RoomType.SUITE).build(),
+        RoomCriteria.NewBuilder().withMinimumCapacity(3).build(),
+        RoomCriteria.NewBuilder().withRoomType(RoomType.SUITE).withMinimumCapacity(3).build(),
+        RoomCriteria.NewBuilder().withRoomType(RoomType.DELUXE).withMinimumCapacity(2).withFloor(4).build(),
+        RoomCriteria.NewBuilder().withMinimumCapacity(4).withFloor(6).build()
+    };
+
+    for (RoomCriteria roomCriteria : criteria) {
+      Set<Room> expectedRooms = rooms.stream().filter(roomCriteria::matches).collect(Collectors.toSet());
+      assertEquals(roomCriteria.toString(), expectedRooms, matchingRooms(roomCriteria));
+    }
+  }
+
+  @Test
+  public void shouldMatchNoRoomWithUnknownAttributes() {
+    assertTrue(matchingRooms(RoomCriteria.NewBuilder().withMinimumCapacity(6).build()).isEmpty());
+    assertTrue(matchingRooms(RoomCriteria.NewBuilder().withFloor(99).build()).isEmpty());
+  }
+
+  private Set<Room> matchingRooms(RoomCriteria roomCriteria) {
+    return new RoomSet(roomOrdinals, roomAttributeIndex.findMatchingRooms(roomCriteria));
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.Room;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestRoomOrdinals {
+
+  @Test
+  public void shouldOrderRoomsByRoomNumber() {
+    Set<Room> rooms =
+        Stream.of(30, 10, 20).map(number -> Room.NewBuilder().withRoomNumber(number).build()).collect(Collectors.toSet());
+
+    RoomOrdinals roomOrdinals = new RoomOrdinals(rooms);
+
+    assertEquals(3, roomOrdinals.size());
+    assertEquals(1, roomOrdinals.wordCount());
+    assertEquals(0, roomOrdinals.ordinalOf(10));
+    assertEquals(2, roomOrdinals.ordinalOf(Room.NewBuilder().withRoomNumber(30).build()));
+    assertEquals(20, roomOrdinals.roomAt(1).getRoomNumber());
+  }
+
+  @Test
+  public void shouldReturnNegativeOrdinalForUnknownRoom() {
+    Set<Room> rooms = Stream.of(Room.NewBuilder().withRoomNumber(1).build()).collect(Collectors.toSet());
+
+    RoomOrdinals roomOrdinals = new RoomOrdinals(rooms);
+
+    assertEquals(-1, roomOrdinals.ordinalOf(2));
+    assertEquals(-1, roomOrdinals.ordinalOf(null));
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.Room;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRoomSet {
+
+  @Test
+  public void shouldIterateOverSetBitsInOrdinalOrder() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= 100; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+    RoomOrdinals roomOrdinals = new RoomOrdinals(rooms);
+
+    RoomSet roomSet = new RoomSet(roomOrdinals, new long[]{1L | (1L << 63), 1L << 2});
+
+    List<Integer> roomNumbers = new ArrayList<>();
+    roomSet.forEach(room -> roomNumbers.add(room.getRoomNumber()));
+
+    assertEquals(3, roomSet.size());
+    assertEquals(3, roomNumbers.size());
+    assertEquals(Integer.valueOf(1), roomNumbers.get(0));
+    assertEquals(Integer.valueOf(64), roomNumbers.get(1));
+    assertEquals(Integer.valueOf(67), roomNumbers.get(2));
+    assertTrue(roomSet.contains(Room.NewBuilder().withRoomNumber(67).build()));
+    assertFalse(roomSet.contains(Room.NewBuilder().withRoomNumber(2).build()));
+  }
+
+  @Test
+  public void shouldBeEmptyWithoutSetBits() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).build());
+
+    RoomSet roomSet = new RoomSet(new RoomOrdinals(rooms), new long[]{0L});
+
+    assertTrue(roomSet.isEmpty());
+    assertFalse(roomSet.iterator().hasNext());
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.berry.hotelbooking.index;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestUserBookingIndex {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+
+  @Test
+  public void shouldFindOnlyBookingsOfGivenUser() {
+    User john = User.NewBuilder().withName("John Smith").build();
+    User jane = User.NewBuilder().withName("Jane Doe").build();
+    BookingRoom firstBookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    BookingRoom secondBookingRoom = initBookingRoom(2, DEFAULT_BOOKING_DATE);
+    BookingRoom thirdBookingRoom = initBookingRoom(3, DEFAULT_BOOKING_DATE);
+
+    UserBookingIndex index = new UserBookingIndex();
+    index.add(john, firstBookingRoom);
+    index.add(jane, secondBookingRoom);
+    index.add(john, thirdBookingRoom);
+
+    Set<BookingRoom> expectedBookings = Stream.of(firstBookingRoom, thirdBookingRoom).collect(Collectors.toSet());
+
+    assertEquals(expectedBookings, index.findBookings(john));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  public void shouldReturnEmptySetForUnknownUser() {
+    UserBookingIndex index = new UserBookingIndex();
+
+    assertTrue(index.findBookings(User.NewBuilder().withName("Anonymous").build()).isEmpty());
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  @Test
+  public void shouldRemoveBookingOfUser() {
+    User john = User.NewBuilder().withName("John Smith").build();
+    BookingRoom firstBookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    BookingRoom secondBookingRoom = initBookingRoom(2, DEFAULT_BOOKING_DATE);
+
+    UserBookingIndex index = new UserBookingIndex();
+    index.add(john, firstBookingRoom);
+    index.add(john, secondBookingRoom);
+
+    index.remove(john, firstBookingRoom);
+    assertEquals(Stream.of(secondBookingRoom).collect(Collectors.toSet()), index.findBookings(john));
+
+    index.remove(john, secondBookingRoom);
+    assertTrue(index.findBookings(john).isEmpty());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void shouldReplayChangesMadeWhileLoading() {
+    User john = User.NewBuilder().withName("John Smith").build();
+    User jane = User.NewBuilder().withName("Jane Doe").build();
+    BookingRoom firstBookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    BookingRoom secondBookingRoom = initBookingRoom(2, DEFAULT_BOOKING_DATE);
+    BookingRoom thirdBookingRoom = initBookingRoom(3, DEFAULT_BOOKING_DATE);
+    UserBookingIndex userBookingIndex = new UserBookingIndex(true);
+
+    assertFalse(userBookingIndex.isLoaded());
+    userBookingIndex.remove(john, secondBookingRoom);
+    userBookingIndex.add(jane, secondBookingRoom);
+    userBookingIndex.add(jane, thirdBookingRoom);
+
+    // The walk still sees the booking of John which was handed over to Jane meanwhile.
+    userBookingIndex.load(bookings -> {
+      bookings.accept(firstBookingRoom, john);
+      bookings.accept(secondBookingRoom, john);
+    });
+
+    assertTrue(userBookingIndex.isLoaded());
+    assertEquals(Stream.of(firstBookingRoom).collect(Collectors.toSet()), userBookingIndex.findBookings(john));
+    assertEquals(Stream.of(secondBookingRoom, thirdBookingRoom).collect(Collectors.toSet()), userBookingIndex.findBookings(jane));
+
+    userBookingIndex.remove(john, firstBookingRoom);
+    assertTrue(userBookingIndex.findBookings(john).isEmpty());
+  }
+
+  @Test
+  public void shouldCollectBookingsOfUserByPage() {
+    User john = User.NewBuilder().withName("John Smith").build();
+    UserBookingIndex index = new UserBookingIndex();
+    for (int room = 5; room >= 1; room--) {
+      index.add(john, initBookingRoom(room, DEFAULT_BOOKING_DATE.plusDays(1)));
+      index.add(john, initBookingRoom(room, DEFAULT_BOOKING_DATE));
+    }
+
+    List<BookingRoom> firstPage = new ArrayList<>();
+    assertTrue(index.collectBookings(john, null, 6, firstPage));
+    assertEquals(initBookingRoom(1, DEFAULT_BOOKING_DATE), firstPage.get(0));
+    assertEquals(initBookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1)), firstPage.get(5));
+
+    List<BookingRoom> secondPage = new ArrayList<>();
+    assertFalse(index.collectBookings(john, firstPage.get(5), 6, secondPage));
+    assertEquals(4, secondPage.size());
+    assertEquals(initBookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(1)), secondPage.get(0));
+  }
+}
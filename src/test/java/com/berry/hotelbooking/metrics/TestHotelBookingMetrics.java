@@ -0,0 +1,82 @@
+package com.berry.hotelbooking.metrics;
+
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+public class TestHotelBookingMetrics {
+
+  @Test
+  public void shouldCountOutcomesByErrorCode() {
+    HotelBookingMetrics metrics = new HotelBookingMetrics(() -> 7);
+    long startNanos = System.nanoTime();
+
+    metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, startNanos, GenericResponseUtils.generateFromSuccessfulData("data"));
+    metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, startNanos, HotelErrorCode.RESERVATION_LOST_RACE.getResponse());
+    metrics.record(HotelBookingMetrics.Operation.FIND_AVAILABLE_ROOMS, startNanos, HotelErrorCode.INVALID_BOOKING_DATE.getResponse());
+    metrics.record(HotelBookingMetrics.Operation.FIND_EXISTED_BOOKINGS, startNanos, GenericResponseUtils.generateFromErrorMessage("Unknown."));
+
+    assertEquals(1, metrics.getSuccessCount(HotelBookingMetrics.Operation.RESERVE_ROOM));
+    assertEquals(1, metrics.getLostRaceCount());
+    assertEquals(Long.valueOf(1), metrics.getFailureCounts().get(HotelErrorCode.INVALID_BOOKING_DATE.name()));
+    assertEquals(Long.valueOf(1), metrics.getFailureCounts().get("OTHER"));
+    assertEquals(2, metrics.getReserveRoomLatency().getCount());
+    assertEquals(7, metrics.getBookingCount());
+
+    metrics.reset();
+    assertEquals(0, metrics.getLostRaceCount());
+    assertEquals(0, metrics.getReserveRoomLatency().getCount());
+  }
+
+  @Test
+  public void shouldExposeMetricsOverJmx() throws Exception {
+    HotelBookingMetrics metrics = new HotelBookingMetrics(() -> 3);
+    metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, System.nanoTime(), HotelErrorCode.RESERVATION_LOST_RACE.getResponse());
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    ObjectName objectName = metrics.registerMBean("test-hotel");
+    try {
+      assertEquals(3, server.getAttribute(objectName, "BookingCount"));
+      assertEquals(1L, server.getAttribute(objectName, "LostRaceCount"));
+      assertEquals(1L, ((CompositeData) server.getAttribute(objectName, "ReserveRoomLatency")).get("count"));
+      assertNotNull(server.getAttribute(objectName, "FailureCounts"));
+    } finally {
+      metrics.unregisterMBean();
+    }
+
+    assertFalse(server.isRegistered(objectName));
+  }
+
+  @Test
+  public void shouldNotAllocateWhenRecording() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+    Assume.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+
+    HotelBookingMetrics metrics = new HotelBookingMetrics(() -> 0);
+    int iterations = 100_000;
+    for (int i = 0; i < iterations; i++) {
+      metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, System.nanoTime(), HotelErrorCode.ROOM_UNAVAILABLE.getResponse());
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      metrics.record(HotelBookingMetrics.Operation.RESERVE_ROOM, System.nanoTime(), HotelErrorCode.ROOM_UNAVAILABLE.getResponse());
+    }
+    long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    assertTrue("Allocated " + allocated + " bytes", allocated < iterations);
+  }
+
+}
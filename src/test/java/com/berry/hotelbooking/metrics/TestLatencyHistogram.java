@@ -0,0 +1,50 @@
+package com.berry.hotelbooking.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLatencyHistogram {
+
+  @Test
+  public void shouldMapEveryValueIntoItsBucket() {
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 1000, 123_456_789, Long.MAX_VALUE};
+
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(value + " is above its bucket", value <= LatencyHistogram.highestValueOf(bucket));
+      assertTrue(value + " is within 12.5%", LatencyHistogram.highestValueOf(bucket) - value <= value / 8);
+    }
+  }
+
+  @Test
+  public void shouldReportPercentilesWithinPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500_500, histogram.getMeanNanos());
+    assertEquals(1_000_000, histogram.getMaxNanos());
+    assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 / 8);
+    assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 / 8);
+    assertEquals(1_000_000, histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  public void shouldReportZeroWithoutRecords() {
+    LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getP99Nanos());
+    assertEquals(0, snapshot.getMaxNanos());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidPercentile() {
+    new LatencyHistogram().getPercentileNanos(101);
+  }
+
+}
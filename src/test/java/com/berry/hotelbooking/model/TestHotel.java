@@ -1,5 +1,6 @@
 package com.berry.hotelbooking.model;
 
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
 import org.junit.Test;
 
 import java.util.HashSet;
@@ -32,6 +33,50 @@ public class TestHotel {
     assertEquals(bookings, hotel.getBookings());
   }
 
+  @Test
+  public void createHotelSuccessfullyWithBookingStore() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).build());
+    PrimitiveBookingStore bookingStore = new PrimitiveBookingStore();
+
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(bookingStore).build();
+
+    assertNotNull(hotel);
+    assertEquals(bookingStore, hotel.getBookingStore());
+  }
+
+  @Test
+  public void shouldKeepRoomsItWasBuiltWith() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).build());
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).build();
+
+    rooms.add(Room.NewBuilder().withRoomNumber(2).build());
+
+    assertEquals(1, hotel.getRooms().size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldThrowExceptionWhenAddingRoomToBuiltHotel() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).build());
+
+    Hotel.NewBuilder().withRooms(rooms).build().getRooms().add(Room.NewBuilder().withRoomNumber(2).build());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldThrowExceptionWhenGettingBookingsOfAnotherStore() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).build());
+
+    Hotel.NewBuilder().withRooms(rooms).withBookingStore(new PrimitiveBookingStore()).build().getBookings();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithNullBookingStore() {
+    Hotel.NewBuilder().withBookingStore(null).build();
+  }
+
   @Test(expected = NullPointerException.class)
   public void shouldThrowExceptionWithNullRooms() {
     Hotel.NewBuilder().withRooms(null).build();
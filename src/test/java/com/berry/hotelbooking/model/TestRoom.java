@@ -22,4 +22,33 @@ public class TestRoom {
     Room.NewBuilder().withRoomNumber(0).build();
   }
 
+  @Test
+  public void createRoomWithAttributes() {
+    Room room = Room.NewBuilder()
+        .withRoomNumber(DEFAULT_ROOM_NUMBER)
+        .withRoomType(RoomType.SUITE)
+        .withCapacity(4)
+        .withFloor(3)
+        .build();
+
+    assertEquals(RoomType.SUITE, room.getRoomType());
+    assertEquals(4, room.getCapacity());
+    assertEquals(3, room.getFloor());
+    assertEquals(Room.NewBuilder().withRoomNumber(DEFAULT_ROOM_NUMBER).build(), room);
+  }
+
+  @Test
+  public void createRoomWithDefaultAttributes() {
+    Room room = Room.NewBuilder().withRoomNumber(DEFAULT_ROOM_NUMBER).build();
+
+    assertEquals(Room.DEFAULT_ROOM_TYPE, room.getRoomType());
+    assertEquals(Room.DEFAULT_CAPACITY, room.getCapacity());
+    assertEquals(Room.DEFAULT_FLOOR, room.getFloor());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowExceptionWithInvalidCapacity() {
+    Room.NewBuilder().withRoomNumber(DEFAULT_ROOM_NUMBER).withCapacity(0).build();
+  }
+
 }
@@ -0,0 +1,178 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.service.HotelBookingService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestHotelRecovery {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 100;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldReplayWholeLogWithoutSnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Path walPath = folder.newFile().toPath();
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      HotelBookingService service = initService(initHotel(directory, writeAheadLog), writeAheadLog);
+      service.reserveRoom(booking(1, DEFAULT_BOOKING_DATE));
+      service.reserveRoom(booking(2, DEFAULT_BOOKING_DATE));
+      service.reserveStay(booking(2, DEFAULT_BOOKING_DATE.minusDays(1)), DEFAULT_BOOKING_DATE.plusDays(1));
+    }
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+
+      assertEquals(2, hotel.getBookingStore().size());
+      assertEquals(DEFAULT_USER, hotel.getBookingStore().findOwner(bookingRoom(1, DEFAULT_BOOKING_DATE)));
+      assertNull(hotel.getBookingStore().findOwner(bookingRoom(2, DEFAULT_BOOKING_DATE.minusDays(1))));
+    }
+  }
+
+  @Test
+  public void shouldReplayLogTailAfterSnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Path walPath = folder.newFile().toPath();
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+      HotelBookingService service = initService(hotel, writeAheadLog);
+      service.reserveRoom(booking(1, DEFAULT_BOOKING_DATE));
+
+      try (HotelSnapshotter snapshotter = HotelSnapshotter.NewBuilder()
+          .withHotel(hotel)
+          .withWriteAheadLog(writeAheadLog)
+          .withDirectory(directory)
+          .build()) {
+        snapshotter.snapshot();
+      }
+      service.reserveRoom(booking(2, DEFAULT_BOOKING_DATE));
+    }
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+      HotelBookingService service = initService(hotel, writeAheadLog);
+
+      assertEquals(2, hotel.getBookingStore().size());
+      assertEquals(DEFAULT_NUMBER_OF_ROOMS - 2, service.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+      assertEquals(2, service.findExistedBookings(DEFAULT_USER).getData().size());
+    }
+  }
+
+  @Test
+  public void shouldRecoverSnapshotTakenDuringReservations() throws Exception {
+    Path directory = folder.newFolder().toPath();
+    Path walPath = folder.newFile().toPath();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+      HotelBookingService service = initService(hotel, writeAheadLog);
+      Future<?> reservations = executor.submit(() -> {
+        for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+          service.reserveRoom(booking(i, DEFAULT_BOOKING_DATE));
+        }
+      });
+
+      try (HotelSnapshotter snapshotter = HotelSnapshotter.NewBuilder()
+          .withHotel(hotel)
+          .withWriteAheadLog(writeAheadLog)
+          .withDirectory(directory)
+          .withRetainedSnapshots(1)
+          .build()) {
+        snapshotter.snapshot();
+        snapshotter.snapshot();
+      }
+      reservations.get();
+      assertEquals(1, HotelSnapshot.list(directory).size());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+
+      assertEquals(DEFAULT_NUMBER_OF_ROOMS, hotel.getBookingStore().size());
+      assertTrue(hotel.getBookingStore().isBooked(bookingRoom(DEFAULT_NUMBER_OF_ROOMS, DEFAULT_BOOKING_DATE)));
+    }
+  }
+
+  @Test
+  public void shouldNotRecoverHoldsSavedBySnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Path walPath = folder.newFile().toPath();
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+      HotelBookingService service = initService(hotel, writeAheadLog);
+      service.reserveRoom(booking(1, DEFAULT_BOOKING_DATE));
+      assertTrue(service.holdRoom(booking(2, DEFAULT_BOOKING_DATE), Duration.ofMinutes(10)).isSuccess());
+
+      try (HotelSnapshotter snapshotter = HotelSnapshotter.NewBuilder()
+          .withHotel(hotel)
+          .withWriteAheadLog(writeAheadLog)
+          .withDirectory(directory)
+          .withUnloggedBookings(service::isHeld)
+          .build()) {
+        snapshotter.snapshot();
+      }
+    }
+
+    assertEquals(1, HotelSnapshot.loadLatest(directory).getHotel().getBookingStore().size());
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(walPath).build()) {
+      Hotel hotel = initHotel(directory, writeAheadLog);
+
+      assertEquals(1, hotel.getBookingStore().size());
+      assertNull(hotel.getBookingStore().findOwner(bookingRoom(2, DEFAULT_BOOKING_DATE)));
+    }
+  }
+
+  private Hotel initHotel(Path directory, WriteAheadLog writeAheadLog) {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+
+    return HotelRecovery.recover(directory, writeAheadLog, rooms);
+  }
+
+  private HotelBookingService initService(Hotel hotel, WriteAheadLog writeAheadLog) {
+    return HotelBookingService.NewBuilder().withHotel(hotel).withWriteAheadLog(writeAheadLog).build();
+  }
+
+  private Booking booking(int roomNumber, LocalDate bookingDate) {
+    return Booking.NewBuilder().withUser(DEFAULT_USER).withBookingRoom(bookingRoom(roomNumber, bookingDate)).build();
+  }
+
+  private static BookingRoom bookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom.NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+}
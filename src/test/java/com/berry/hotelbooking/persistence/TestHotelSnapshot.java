@@ -0,0 +1,139 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.RoomType;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestHotelSnapshot {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 100;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.of(2030, 1, 15);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldLoadWrittenSnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Hotel hotel = initHotel(new PrimitiveBookingStore());
+    hotel.getBookingStore().reserve(bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    hotel.getBookingStore().reserve(bookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(1)), User.NewBuilder().withName("Anonymous").build(), null);
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build()) {
+      Path path = HotelSnapshot.write(directory, hotel, writeAheadLog);
+      HotelSnapshot snapshot = HotelSnapshot.load(path);
+
+      assertEquals(0L, snapshot.getWalPosition());
+      assertEquals(hotel.getRooms(), snapshot.getHotel().getRooms());
+      assertEquals(2, snapshot.getHotel().getBookingStore().size());
+      assertEquals(DEFAULT_USER, snapshot.getHotel().getBookingStore().findOwner(bookingRoom(1, DEFAULT_BOOKING_DATE)));
+      assertEquals("Anonymous",
+          snapshot.getHotel().getBookingStore().findOwner(bookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(1))).getName());
+    }
+  }
+
+  @Test
+  public void shouldKeepRoomAttributes() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).withCapacity(4).withFloor(7).build());
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(new PrimitiveBookingStore()).build();
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build()) {
+      Room room = HotelSnapshot.load(HotelSnapshot.write(directory, hotel, writeAheadLog)).getHotel().getRooms().iterator().next();
+
+      assertEquals(RoomType.SUITE, room.getRoomType());
+      assertEquals(4, room.getCapacity());
+      assertEquals(7, room.getFloor());
+    }
+  }
+
+  @Test
+  public void shouldWriteSnapshotOfMapBackedHotel() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Hotel hotel = Hotel.NewBuilder().withRooms(initRooms()).withBookings(new ConcurrentHashMap<>()).build();
+    hotel.getBookings().put(bookingRoom(3, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build()) {
+      HotelSnapshot snapshot = HotelSnapshot.load(HotelSnapshot.write(directory, hotel, writeAheadLog));
+
+      assertEquals(DEFAULT_USER, snapshot.getHotel().getBookingStore().findOwner(bookingRoom(3, DEFAULT_BOOKING_DATE)));
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void shouldRejectCorruptedSnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Hotel hotel = initHotel(new PrimitiveBookingStore());
+
+    Path path;
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build()) {
+      path = HotelSnapshot.write(directory, hotel, writeAheadLog);
+    }
+    corrupt(path);
+
+    HotelSnapshot.load(path);
+  }
+
+  @Test
+  public void shouldSkipCorruptedLatestSnapshot() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    Hotel hotel = initHotel(new PrimitiveBookingStore());
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build()) {
+      assertNull(HotelSnapshot.loadLatest(directory));
+
+      Path olderPath = HotelSnapshot.write(directory, hotel, writeAheadLog);
+      writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      corrupt(HotelSnapshot.write(directory, hotel, writeAheadLog));
+
+      assertEquals(olderPath, HotelSnapshot.loadLatest(directory).getPath());
+    }
+  }
+
+  private void corrupt(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xFF}), channel.size() - 2);
+    }
+  }
+
+  private Hotel initHotel(PrimitiveBookingStore bookingStore) {
+    return Hotel.NewBuilder().withRooms(initRooms()).withBookingStore(bookingStore).build();
+  }
+
+  private Set<Room> initRooms() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+    return rooms;
+  }
+
+  private static BookingRoom bookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom.NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+}
@@ -0,0 +1,184 @@
+package com.berry.hotelbooking.persistence;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestWriteAheadLog {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.of(2030, 1, 15);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldReplayDurableRecordsInOrder() throws IOException {
+    Path path = folder.newFile().toPath();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      writeAheadLog.append(WalRecordType.CANCEL, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      writeAheadLog.awaitDurable();
+      assertEquals(Files.size(path), writeAheadLog.getDurablePosition());
+    }
+
+    List<WalRecord> records = new ArrayList<>();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      writeAheadLog.replay(0L, records::add);
+    }
+
+    assertEquals(2, records.size());
+    assertEquals(WalRecordType.RESERVE, records.get(0).getType());
+    assertEquals(WalRecordType.CANCEL, records.get(1).getType());
+    assertEquals(bookingRoom(1, DEFAULT_BOOKING_DATE), records.get(0).toBookingRoom());
+    assertEquals(DEFAULT_USER, records.get(0).toUser());
+  }
+
+  @Test
+  public void shouldAppendHandOverAsCancellationThenReservation() throws IOException {
+    Path path = folder.newFile().toPath();
+    User successor = User.NewBuilder().withName("First Guest").build();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      assertEquals(0L, writeAheadLog.appendHandOver(bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER, successor));
+      writeAheadLog.awaitDurable();
+    }
+
+    List<WalRecord> records = new ArrayList<>();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      writeAheadLog.replay(0L, records::add);
+    }
+
+    assertEquals(2, records.size());
+    assertEquals(WalRecordType.CANCEL, records.get(0).getType());
+    assertEquals(DEFAULT_USER, records.get(0).toUser());
+    assertEquals(WalRecordType.RESERVE, records.get(1).getType());
+    assertEquals(successor, records.get(1).toUser());
+    assertEquals(bookingRoom(1, DEFAULT_BOOKING_DATE), records.get(1).toBookingRoom());
+  }
+
+  @Test
+  public void shouldTruncateTornRecordOnOpen() throws IOException {
+    Path path = folder.newFile().toPath();
+    long validEnd;
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      writeAheadLog.awaitDurable();
+      validEnd = writeAheadLog.getDurablePosition();
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 30, 1, 2, 3}));
+    }
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      assertEquals(validEnd, writeAheadLog.getDurablePosition());
+      assertEquals(validEnd, Files.size(path));
+
+      writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(2, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      writeAheadLog.awaitDurable();
+
+      List<WalRecord> records = new ArrayList<>();
+      writeAheadLog.replay(0L, records::add);
+      assertEquals(2, records.size());
+      assertEquals(2, records.get(1).getRoomNumber());
+    }
+  }
+
+  @Test
+  public void shouldMakeEveryRecordDurableWithPerOperationPolicy() throws IOException {
+    Path path = folder.newFile().toPath();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder()
+        .withPath(path)
+        .withFsyncPolicy(FsyncPolicy.PER_OPERATION)
+        .build()) {
+      for (int i = 1; i <= 3; i++) {
+        writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(i, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+        writeAheadLog.awaitDurable();
+        assertEquals(Files.size(path), writeAheadLog.getDurablePosition());
+      }
+    }
+  }
+
+  @Test
+  public void shouldSyncInBackgroundWithIntervalPolicy() throws IOException, InterruptedException {
+    Path path = folder.newFile().toPath();
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder()
+        .withPath(path)
+        .withFsyncPolicy(FsyncPolicy.INTERVAL)
+        .withFsyncInterval(1, TimeUnit.MILLISECONDS)
+        .build()) {
+      long position = writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+      writeAheadLog.awaitDurable();
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (writeAheadLog.getDurablePosition() <= position && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertTrue(writeAheadLog.getDurablePosition() > position);
+    }
+  }
+
+  @Test
+  public void shouldGroupConcurrentAppendsWithGroupPolicy() throws IOException, InterruptedException {
+    int numberOfThreads = 8;
+    int recordsPerThread = 50;
+    Path path = folder.newFile().toPath();
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    CountDownLatch done = new CountDownLatch(numberOfThreads);
+
+    try (WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(path).build()) {
+      for (int t = 0; t < numberOfThreads; t++) {
+        int roomOffset = t * recordsPerThread;
+        executor.submit(() -> {
+          for (int i = 1; i <= recordsPerThread; i++) {
+            writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(roomOffset + i, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+            writeAheadLog.awaitDurable();
+          }
+          done.countDown();
+        });
+      }
+
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      List<WalRecord> records = new ArrayList<>();
+      writeAheadLog.replay(0L, records::add);
+      assertEquals(numberOfThreads * recordsPerThread, records.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void shouldRejectAppendAfterClose() throws IOException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    writeAheadLog.close();
+    writeAheadLog.append(WalRecordType.RESERVE, bookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER);
+  }
+
+  private static BookingRoom bookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom.NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+}
@@ -0,0 +1,119 @@
+package com.berry.hotelbooking.registry;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Hotel;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestHotelRegistry {
+
+  private final int DEFAULT_NUMBER_OF_HOTELS = 20;
+  private final int DEFAULT_NUMBER_OF_ROOMS = 10;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  private HotelRegistry hotelRegistry;
+
+  @Before
+  public void setUp() {
+    HotelRegistry.Builder builder = HotelRegistry.NewBuilder().withForkJoinPool(new ForkJoinPool(4));
+    for (int i = 0; i < DEFAULT_NUMBER_OF_HOTELS; i++) {
+      builder.withHotel(hotelIdOf(i), initHotel());
+    }
+    hotelRegistry = builder.build();
+  }
+
+  @Test
+  public void shouldRouteReservationToOwningHotel() {
+    Booking booking = initBooking(1);
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), hotelRegistry.reserveRoom(hotelIdOf(3), booking));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, hotelRegistry.findAvailableRooms(hotelIdOf(3), DEFAULT_BOOKING_DATE).getData().size());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, hotelRegistry.findAvailableRooms(hotelIdOf(4), DEFAULT_BOOKING_DATE).getData().size());
+  }
+
+  @Test
+  public void shouldNotRouteToUnknownHotel() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Invalid hotel.");
+
+    assertEquals(expectedResponse, hotelRegistry.reserveRoom("unknown", initBooking(1)));
+    assertEquals(expectedResponse, hotelRegistry.findAvailableRooms("unknown", DEFAULT_BOOKING_DATE));
+  }
+
+  @Test
+  public void shouldMergeAvailableRoomsOfAllHotels() {
+    for (int room = 1; room <= DEFAULT_NUMBER_OF_ROOMS; room++) {
+      hotelRegistry.reserveRoom(hotelIdOf(7), initBooking(room));
+    }
+
+    GenericResponse<Map<String, Set<Room>>> actualResponse = hotelRegistry.findAvailableRooms(DEFAULT_BOOKING_DATE);
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(DEFAULT_NUMBER_OF_HOTELS - 1, actualResponse.getData().size());
+    assertFalse(actualResponse.getData().containsKey(hotelIdOf(7)));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, actualResponse.getData().get(hotelIdOf(19)).size());
+  }
+
+  @Test
+  public void shouldMergeExistedBookingsOfAllHotels() {
+    hotelRegistry.reserveRoom(hotelIdOf(0), initBooking(1));
+    hotelRegistry.reserveRoom(hotelIdOf(12), initBooking(2));
+    hotelRegistry.reserveRoom(hotelIdOf(12), initBooking(3));
+
+    GenericResponse<Map<String, Set<BookingRoom>>> actualResponse = hotelRegistry.findExistedBookings(DEFAULT_USER);
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(2, actualResponse.getData().size());
+    assertEquals(1, actualResponse.getData().get(hotelIdOf(0)).size());
+    assertEquals(2, actualResponse.getData().get(hotelIdOf(12)).size());
+  }
+
+  @Test
+  public void shouldRejectInvalidSearchOnce() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid user.");
+
+    assertEquals(expectedResponse, hotelRegistry.findExistedBookings(null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotRegisterDuplicatedHotelId() {
+    HotelRegistry.NewBuilder().withHotel(hotelIdOf(1), initHotel()).withHotel(hotelIdOf(1), initHotel());
+  }
+
+  private String hotelIdOf(int index) {
+    return "hotel-" + index;
+  }
+
+  private Hotel initHotel() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+    return Hotel.NewBuilder().withRooms(rooms).build();
+  }
+
+  private Booking initBooking(int roomNumber) {
+    return Booking.NewBuilder()
+        .withUser(DEFAULT_USER)
+        .withBookingRoom(BookingRoom.NewBuilder()
+            .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+            .withBookingDate(DEFAULT_BOOKING_DATE)
+            .build())
+        .build();
+  }
+}
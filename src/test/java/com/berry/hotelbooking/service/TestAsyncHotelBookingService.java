@@ -0,0 +1,114 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.utils.GenericResponseUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TestAsyncHotelBookingService {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 100;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  private AsyncHotelBookingService asyncService;
+
+  @Before
+  public void setUp() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).build());
+    asyncService = AsyncHotelBookingService.NewBuilder().withService(service).build();
+  }
+
+  @After
+  public void tearDown() {
+    asyncService.close();
+  }
+
+  @Test(timeout = 5000)
+  public void shouldReserveRoomAsynchronously() {
+    Booking booking = initBooking(5, DEFAULT_BOOKING_DATE);
+
+    GenericResponse<Booking> response = asyncService.reserveRoom(booking).join();
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), response);
+    assertFalse(asyncService.reserveRoom(booking).join().isSuccess());
+    assertEquals(1, asyncService.findExistedBookings(DEFAULT_USER).join().getData().size());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldComposeManyLookupsWithoutBlocking() {
+    asyncService.reserveRoom(initBooking(5, DEFAULT_BOOKING_DATE)).join();
+    List<LocalDate> dates = Arrays.asList(DEFAULT_BOOKING_DATE.plusDays(1), DEFAULT_BOOKING_DATE, LocalDate.now().minusDays(1));
+
+    Map<LocalDate, GenericResponse<Set<Room>>> responses = asyncService.findAvailableRooms(dates).join();
+
+    assertEquals(dates, Arrays.asList(responses.keySet().toArray()));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, responses.get(DEFAULT_BOOKING_DATE.plusDays(1)).getData().size());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, responses.get(DEFAULT_BOOKING_DATE).getData().size());
+    assertFalse(responses.get(LocalDate.now().minusDays(1)).isSuccess());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldAnswerBusyWhenExecutorIsFull() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+    executor.execute(() -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    started.await();
+
+    try (AsyncHotelBookingService busyService = AsyncHotelBookingService.NewBuilder()
+        .withService(asyncService.getService())
+        .withExecutor(executor)
+        .build()) {
+      GenericResponse<Booking> response = busyService.reserveRoom(initBooking(5, DEFAULT_BOOKING_DATE)).join();
+
+      assertEquals(GenericResponseUtils.generateFromErrorMessage("The service is busy. Please try again."), response);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldCreateDefaultExecutorForThisRuntime() {
+    ExecutorService executor = AsyncHotelBookingService.newDefaultExecutor();
+
+    assertNotNull(executor);
+    executor.shutdown();
+  }
+
+  private Booking initBooking(int roomNumber, LocalDate bookingDate) {
+    return Booking.NewBuilder()
+        .withUser(DEFAULT_USER)
+        .withBookingRoom(BookingRoom.NewBuilder()
+            .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+            .withBookingDate(bookingDate)
+            .build())
+        .build();
+  }
+
+}
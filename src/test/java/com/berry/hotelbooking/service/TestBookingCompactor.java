@@ -0,0 +1,125 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.CompactionReport;
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.store.BookingStore;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestBookingCompactor {
+
+  private final int DEFAULT_NUMBER_OF_ROOMS = 100;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  private BookingStore bookingStore;
+  private HotelBookingService hotelBookingService;
+
+  @Before
+  public void setUp() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+
+    bookingStore = new PrimitiveBookingStore(4);
+    for (int room = 1; room <= DEFAULT_NUMBER_OF_ROOMS; room++) {
+      for (int day = 1; day <= 10; day++) {
+        bookingStore.reserve(initBookingRoom(room, LocalDate.now().minusDays(day)), DEFAULT_USER, null);
+      }
+    }
+    bookingStore.reserve(initBookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(bookingStore).build();
+    hotelBookingService = new HotelBookingService(hotel);
+  }
+
+  @Test
+  public void shouldRemoveBookingsOlderThanRetention() {
+    BookingCompactor compactor = BookingCompactor.NewBuilder()
+        .withService(hotelBookingService)
+        .withRetentionDays(3)
+        .build();
+
+    CompactionReport report = compactor.compact();
+
+    assertEquals(LocalDate.now().minusDays(3), report.getBeforeDate());
+    assertEquals(7 * DEFAULT_NUMBER_OF_ROOMS, report.getRemovedBookings());
+    assertEquals(7, report.getRemovedDates());
+    assertTrue(report.getReclaimedBytes() > 0);
+    assertEquals(report, compactor.getLastReport());
+    assertEquals(3 * DEFAULT_NUMBER_OF_ROOMS + 1, bookingStore.size());
+    assertEquals(3 * DEFAULT_NUMBER_OF_ROOMS + 1, hotelBookingService.findExistedBookings(DEFAULT_USER).getData().size());
+  }
+
+  @Test
+  public void shouldKeepUpcomingBookingsReservable() {
+    CompactionReport report = hotelBookingService.compactBookings(LocalDate.now());
+
+    assertEquals(10 * DEFAULT_NUMBER_OF_ROOMS, report.getRemovedBookings());
+    assertEquals(1, bookingStore.size());
+    assertFalse(hotelBookingService.reserveRoom(initBooking(1, DEFAULT_BOOKING_DATE)).isSuccess());
+    assertTrue(hotelBookingService.reserveRoom(initBooking(2, DEFAULT_BOOKING_DATE)).isSuccess());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 2, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+  }
+
+  @Test
+  public void shouldLetStoreReclaimAfterCompaction() {
+    int[] reclaims = new int[1];
+    BookingStore reclaimingStore = new PrimitiveBookingStore(4) {
+      @Override
+      public int reclaim() {
+        return ++reclaims[0];
+      }
+    };
+    Hotel hotel = Hotel.NewBuilder()
+        .withRooms(Collections.singleton(Room.NewBuilder().withRoomNumber(1).build()))
+        .withBookingStore(reclaimingStore)
+        .build();
+
+    new HotelBookingService(hotel).compactBookings(LocalDate.now());
+
+    assertEquals(1, reclaims[0]);
+    assertEquals(0, bookingStore.reclaim());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotCompactUpcomingBookings() {
+    hotelBookingService.compactBookings(LocalDate.now().plusDays(1));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldCompactPeriodicallyUntilClosed() throws InterruptedException {
+    try (BookingCompactor compactor = BookingCompactor.NewBuilder().withService(hotelBookingService).build()) {
+      compactor.start(10, TimeUnit.MILLISECONDS);
+
+      while (compactor.getLastReport() == null) {
+        Thread.sleep(10);
+      }
+    }
+
+    assertEquals(1, bookingStore.size());
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  private Booking initBooking(int roomNumber, LocalDate bookingDate) {
+    return Booking.NewBuilder().withUser(DEFAULT_USER).withBookingRoom(initBookingRoom(roomNumber, bookingDate)).build();
+  }
+
+}
@@ -1,13 +1,40 @@
 package com.berry.hotelbooking.service;
 
+import com.berry.hotelbooking.audit.AuditEventType;
+import com.berry.hotelbooking.audit.AuditLog;
 import com.berry.hotelbooking.dto.GenericResponse;
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.dto.OccupancyCalendar;
+import com.berry.hotelbooking.dto.Page;
+import com.berry.hotelbooking.dto.RoomCriteria;
+import com.berry.hotelbooking.dto.RoomHold;
+import com.berry.hotelbooking.metrics.HotelBookingMetrics;
 import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.persistence.WalRecord;
+import com.berry.hotelbooking.persistence.WalRecordType;
+import com.berry.hotelbooking.persistence.WriteAheadLog;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import com.berry.hotelbooking.store.VersionedBookingStore;
+import com.berry.hotelbooking.timer.HashedTimingWheel;
 import com.berry.hotelbooking.utils.GenericResponseUtils;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,6 +51,9 @@ public class TestHotelBookingService {
 
   private HotelBookingService hotelBookingService;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Before
   public void setUp() {
     Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
@@ -97,6 +127,102 @@ public class TestHotelBookingService {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldReserveRoomWithPrimitiveBookingStore() {
+    Set<Room> rooms = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS).getRooms();
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(new PrimitiveBookingStore()).build();
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), service.reserveRoom(booking));
+    assertEquals(
+        GenericResponseUtils.generateFromErrorMessage("There's no available room at this time."),
+        service.reserveRoom(booking)
+    );
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, service.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertEquals(1, service.findExistedBookings(booking.getUser()).getData().size());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldIndexBookingsOfStoreItIsBuiltOn() {
+    Set<Room> rooms = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS).getRooms();
+    PrimitiveBookingStore bookingStore = new PrimitiveBookingStore();
+    Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE);
+    Booking secondBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE);
+    bookingStore.reserve(firstBooking.getBookingRoom(), firstBooking.getUser(), null);
+    bookingStore.reserve(secondBooking.getBookingRoom(), secondBooking.getUser(), null);
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).withBookingStore(bookingStore).build());
+
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 2, service.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(service.cancelBooking(firstBooking).isSuccess());
+    assertEquals(Collections.singleton(secondBooking.getBookingRoom()), service.findExistedBookings(secondBooking.getUser()).getData());
+  }
+
+  @Test
+  public void shouldPublishRejectionsToAuditLogOfService() {
+    List<AuditEventType> types = Collections.synchronizedList(new ArrayList<>());
+    AuditLog auditLog = AuditLog.NewBuilder().withSink(event -> types.add(event.getType())).build();
+    HotelBookingService service = new HotelBookingService(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS), auditLog);
+
+    assertFalse(service.findExistedBookings(null).isSuccess());
+    auditLog.close();
+
+    assertTrue(types.contains(AuditEventType.VALIDATION_FAILED));
+  }
+
+  @Test
+  public void shouldAnswerSearchesFromOneVersionInView() {
+    Set<Room> rooms = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS).getRooms();
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(new VersionedBookingStore()).build();
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking secondBooking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER + 1, DEFAULT_BOOKING_DATE);
+    service.reserveRoom(firstBooking);
+
+    try (HotelBookingView view = service.openView()) {
+      service.reserveRoom(secondBooking);
+      service.cancelBooking(firstBooking);
+
+      assertEquals(1L, view.getVersion());
+      assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, view.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+      assertFalse(view.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().contains(firstBooking.getBookingRoom().getRoom()));
+      assertEquals(
+          Collections.singleton(firstBooking.getBookingRoom()),
+          view.findExistedBookings(firstBooking.getUser()).getData()
+      );
+      assertFalse(view.findExistedBookings(null).isSuccess());
+    }
+
+    assertEquals(
+        Collections.singleton(secondBooking.getBookingRoom()),
+        service.findExistedBookings(firstBooking.getUser()).getData()
+    );
+  }
+
+  @Test
+  public void shouldLeavePendingHoldsOutOfBookingsInView() {
+    Set<Room> rooms = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS).getRooms();
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(new VersionedBookingStore()).build();
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    service.holdRoom(booking, Duration.ofMinutes(10));
+
+    try (HotelBookingView view = service.openView()) {
+      assertTrue(view.findExistedBookings(booking.getUser()).getData().isEmpty());
+      assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, view.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    }
+
+    service.confirmHold(booking);
+    try (HotelBookingView view = service.openView()) {
+      assertEquals(Collections.singleton(booking.getBookingRoom()), view.findExistedBookings(booking.getUser()).getData());
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldThrowExceptionWhenOpeningViewOfUnversionedBookings() {
+    new HotelBookingService(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS)).openView();
+  }
+
   @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
   public void shouldFindAvailableRoomsWithBookingDate_SerialCall() {
     Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE);
@@ -117,6 +243,13 @@ public class TestHotelBookingService {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotLetCallersModifyAvailableRooms() {
+    Set<Room> availableRooms = hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData();
+
+    availableRooms.remove(availableRooms.iterator().next());
+  }
+
   @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
   public void shouldFindAvailableRoomsWithNoRoomWithBookingDate() {
     Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE);
@@ -168,6 +301,23 @@ public class TestHotelBookingService {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldFindExistedBookingsMadeThroughReserveRoom() {
+    User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+    Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE);
+    Booking secondBooking = initBookingWithValues("Anonymous", 3, DEFAULT_BOOKING_DATE);
+
+    hotelBookingService.reserveRoom(firstBooking);
+    hotelBookingService.reserveRoom(secondBooking);
+
+    Set<BookingRoom> existedBookings = Stream.of(firstBooking.getBookingRoom()).collect(Collectors.toSet());
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromSuccessfulData(existedBookings);
+    GenericResponse actualResponse = hotelBookingService.findExistedBookings(user);
+
+    assertNotNull(actualResponse);
+    assertEquals(expectedResponse, actualResponse);
+  }
+
   @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
   public void shouldFindExistedBookingWithNoBookingWithNewUser() {
     User user = User.NewBuilder().withName("Anonymous").build();
@@ -198,4 +348,661 @@ public class TestHotelBookingService {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldReserveEveryNightOfStay() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    GenericResponse<List<BookingRoom>> actualResponse =
+        hotelBookingService.reserveStay(booking, DEFAULT_BOOKING_DATE.plusDays(5));
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(5, actualResponse.getData().size());
+    assertEquals(DEFAULT_BOOKING_DATE.plusDays(4), actualResponse.getData().get(4).getBookingDate());
+    for (BookingRoom night : actualResponse.getData()) {
+      assertFalse(hotelBookingService.findAvailableRooms(night.getBookingDate()).getData().contains(night.getRoom()));
+    }
+    assertEquals(5, hotelBookingService.findExistedBookings(booking.getUser()).getData().size());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldRollBackStayWhenOneNightIsTaken() {
+    Booking takenNight = initBookingWithValues("Anonymous", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE.plusDays(3));
+    hotelBookingService.reserveRoom(takenNight);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("There's no available room at this time.");
+    GenericResponse actualResponse = hotelBookingService.reserveStay(booking, DEFAULT_BOOKING_DATE.plusDays(5));
+
+    assertEquals(expectedResponse, actualResponse);
+    assertTrue(hotelBookingService.findExistedBookings(booking.getUser()).getData().isEmpty());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(hotelBookingService.reserveRoom(booking).isSuccess());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldNotReserveStayWithInvalidCheckOutDate() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid check-out date.");
+    GenericResponse actualResponse = hotelBookingService.reserveStay(booking, DEFAULT_BOOKING_DATE);
+
+    assertEquals(expectedResponse, actualResponse);
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldReserveBatchWithOneResultPerBooking() {
+    Booking takenBooking = initBookingWithValues("Anonymous", 1, DEFAULT_BOOKING_DATE);
+    hotelBookingService.reserveRoom(takenBooking);
+
+    Booking firstBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 3, DEFAULT_BOOKING_DATE);
+    Booking duplicatedBooking = initBookingWithValues("Anonymous", 3, DEFAULT_BOOKING_DATE);
+    Booking conflictedBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE);
+    Booking invalidBooking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_NUMBER_OF_ROOMS + 1, DEFAULT_BOOKING_DATE);
+    Booking secondBooking = initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE);
+    List<Booking> bookings =
+        Stream.of(duplicatedBooking, firstBooking, conflictedBooking, invalidBooking, null, secondBooking)
+            .collect(Collectors.toList());
+
+    GenericResponse<List<GenericResponse<Booking>>> actualResponse = hotelBookingService.reserveRooms(bookings);
+    GenericResponse noAvailableRoom = GenericResponseUtils.generateFromErrorMessage("There's no available room at this time.");
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(duplicatedBooking), actualResponse.getData().get(0));
+    assertEquals(noAvailableRoom, actualResponse.getData().get(1));
+    assertEquals(noAvailableRoom, actualResponse.getData().get(2));
+    assertEquals(GenericResponseUtils.generateFromErrorMessage("Please give a valid room."), actualResponse.getData().get(3));
+    assertEquals(GenericResponseUtils.generateFromErrorMessage("Booking info is required."), actualResponse.getData().get(4));
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(secondBooking), actualResponse.getData().get(5));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 3, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldNotReserveBatchWithoutBookings() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Booking info is required.");
+
+    assertEquals(expectedResponse, hotelBookingService.reserveRooms(null));
+  }
+
+  @Test
+  public void shouldLogReservationsAndRollbacksToWriteAheadLog() throws IOException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    HotelBookingService durableService = HotelBookingService
+        .NewBuilder()
+        .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+        .withWriteAheadLog(writeAheadLog)
+        .build();
+
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    durableService.reserveRoom(booking);
+    durableService.reserveRoom(initBookingWithValues("Anonymous", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE.plusDays(1)));
+    GenericResponse stayResponse = durableService.reserveStay(booking, DEFAULT_BOOKING_DATE.plusDays(2));
+    writeAheadLog.close();
+
+    List<WalRecord> records = new ArrayList<>();
+    writeAheadLog.replay(0L, records::add);
+
+    assertFalse(stayResponse.isSuccess());
+    assertEquals(2, records.size());
+    assertEquals(WalRecordType.RESERVE, records.get(0).getType());
+    assertEquals(booking.getBookingRoom(), records.get(0).toBookingRoom());
+    assertEquals(booking.getUser(), records.get(0).toUser());
+    assertEquals(WalRecordType.RESERVE, records.get(1).getType());
+    assertEquals("Anonymous", records.get(1).getUserName());
+  }
+
+  @Test
+  public void shouldNotReserveRoomWhenWriteAheadLogFails() throws IOException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    HotelBookingService durableService = HotelBookingService
+        .NewBuilder()
+        .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+        .withWriteAheadLog(writeAheadLog)
+        .build();
+    writeAheadLog.close();
+
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Unable to save the booking. Please try again.");
+
+    assertEquals(expectedResponse, durableService.reserveRoom(booking));
+    assertEquals(expectedResponse, durableService.reserveStay(booking, DEFAULT_BOOKING_DATE.plusDays(2)));
+    assertEquals(expectedResponse, durableService.reserveRooms(Stream.of(booking).collect(Collectors.toList())));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, durableService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(durableService.findExistedBookings(booking.getUser()).getData().isEmpty());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldFindRoomsAvailableForEveryNightOfRange() {
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE));
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE.plusDays(13)));
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 3, DEFAULT_BOOKING_DATE.plusDays(14)));
+
+    GenericResponse<Set<Room>> actualResponse =
+        hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(14));
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 2, actualResponse.getData().size());
+    assertTrue(actualResponse.getData().contains(Room.NewBuilder().withRoomNumber(3).build()));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldNotFindAvailableRoomsForInvalidRange() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid check-out date.");
+
+    assertEquals(expectedResponse, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldFindOccupancyCalendarOfYear() {
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE));
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 2, DEFAULT_BOOKING_DATE));
+    hotelBookingService.reserveStay(initBookingWithValues(DEFAULT_GUEST_NAME, 3, DEFAULT_BOOKING_DATE.plusDays(1)), DEFAULT_BOOKING_DATE.plusDays(4));
+
+    GenericResponse<OccupancyCalendar> actualResponse =
+        hotelBookingService.findOccupancyCalendar(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(365));
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(365, actualResponse.getData().size());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, actualResponse.getData().getTotalRooms());
+    assertEquals(2, actualResponse.getData().getBookedRooms(0));
+    assertEquals(1, actualResponse.getData().getBookedRooms(3));
+    assertEquals(0, actualResponse.getData().getBookedRooms(4));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldFindOccupancyCalendarOfPastDays() {
+    GenericResponse<OccupancyCalendar> actualResponse =
+        hotelBookingService.findOccupancyCalendar(LocalDate.now().minusDays(30), LocalDate.now().plusDays(1));
+
+    assertTrue(actualResponse.isSuccess());
+    assertEquals(31, actualResponse.getData().size());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldRejectInvalidOccupancyCalendarRange() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid calendar range.");
+
+    assertEquals(expectedResponse, hotelBookingService.findOccupancyCalendar(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE));
+    assertEquals(expectedResponse, hotelBookingService.findOccupancyCalendar(null, DEFAULT_BOOKING_DATE));
+    assertEquals(expectedResponse, hotelBookingService.findOccupancyCalendar(
+        DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_DAYS_OF_CALENDAR + 1)));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldCancelBookingAndFreeRoom() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    hotelBookingService.reserveRoom(booking);
+
+    GenericResponse<Booking> actualResponse = hotelBookingService.cancelBooking(booking);
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), actualResponse);
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(hotelBookingService.findExistedBookings(booking.getUser()).getData().isEmpty());
+    assertEquals(0, hotelBookingService.findOccupancyCalendar(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(1)).getData().getBookedRooms(0));
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), hotelBookingService.reserveRoom(booking));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldNotCancelBookingOfAnotherUser() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    hotelBookingService.reserveRoom(booking);
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("There's no such booking.");
+
+    assertEquals(expectedResponse,
+        hotelBookingService.cancelBooking(initBookingWithValues("Anonymous", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE)));
+    assertEquals(expectedResponse,
+        hotelBookingService.cancelBooking(initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER + 1, DEFAULT_BOOKING_DATE)));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertEquals(1, hotelBookingService.findExistedBookings(booking.getUser()).getData().size());
+  }
+
+  @Test
+  public void shouldLogCancellationToWriteAheadLog() throws IOException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    HotelBookingService durableService = HotelBookingService
+        .NewBuilder()
+        .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+        .withWriteAheadLog(writeAheadLog)
+        .build();
+
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    durableService.reserveRoom(booking);
+    assertTrue(durableService.cancelBooking(booking).isSuccess());
+    writeAheadLog.close();
+
+    List<WalRecord> records = new ArrayList<>();
+    writeAheadLog.replay(0L, records::add);
+
+    assertEquals(2, records.size());
+    assertEquals(WalRecordType.CANCEL, records.get(1).getType());
+    assertEquals(booking.getBookingRoom(), records.get(1).toBookingRoom());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldHoldRoomUntilConfirmed() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    GenericResponse<RoomHold> holdResponse = hotelBookingService.holdRoom(booking, Duration.ofMinutes(10));
+
+    assertTrue(holdResponse.isSuccess());
+    assertEquals(booking, holdResponse.getData().getBooking());
+    assertEquals(1, hotelBookingService.getHoldCount());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertFalse(hotelBookingService.reserveRoom(initBookingWithValues("Anonymous", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE)).isSuccess());
+    assertTrue(hotelBookingService.findExistedBookings(booking.getUser()).getData().isEmpty());
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), hotelBookingService.confirmHold(booking));
+    assertEquals(0, hotelBookingService.getHoldCount());
+    assertEquals(1, hotelBookingService.findExistedBookings(booking.getUser()).getData().size());
+    assertEquals(GenericResponseUtils.generateFromErrorMessage("There's no such hold, it may have expired."),
+        hotelBookingService.releaseHold(booking));
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldReleaseHoldOnlyForItsUser() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    hotelBookingService.holdRoom(booking, Duration.ofMinutes(10));
+
+    assertFalse(hotelBookingService.confirmHold(initBookingWithValues("Anonymous", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE)).isSuccess());
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(booking), hotelBookingService.releaseHold(booking));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(hotelBookingService.findExistedBookings(booking.getUser()).getData().isEmpty());
+    assertFalse(hotelBookingService.confirmHold(booking).isSuccess());
+  }
+
+  @Test
+  public void shouldRejectInvalidHoldDuration() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid hold duration.");
+
+    assertEquals(expectedResponse, hotelBookingService.holdRoom(booking, null));
+    assertEquals(expectedResponse, hotelBookingService.holdRoom(booking, Duration.ZERO));
+    assertEquals(expectedResponse, hotelBookingService.holdRoom(booking, HotelBookingValidation.MAX_HOLD_DURATION.plusSeconds(1)));
+    assertEquals(0, hotelBookingService.getHoldCount());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldReleaseHoldOnExpiry() throws IOException, InterruptedException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    try (HashedTimingWheel timingWheel = HashedTimingWheel.NewBuilder().withTick(5, TimeUnit.MILLISECONDS).build()) {
+      HotelBookingService durableService = HotelBookingService
+          .NewBuilder()
+          .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+          .withWriteAheadLog(writeAheadLog)
+          .withTimingWheel(timingWheel)
+          .withExpiryExecutor(Runnable::run)
+          .build();
+
+      Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+      assertTrue(durableService.holdRoom(booking, Duration.ofMillis(20)).isSuccess());
+      // The hold is taken off before its room is released, so the room is what tells the expiry is over.
+      while (durableService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size() < DEFAULT_NUMBER_OF_ROOMS) {
+        Thread.sleep(5);
+      }
+
+      assertEquals(0, durableService.getHoldCount());
+      assertEquals(0, timingWheel.getPendingTimeouts());
+      assertFalse(durableService.confirmHold(booking).isSuccess());
+      assertTrue(durableService.reserveRoom(booking).isSuccess());
+    }
+    writeAheadLog.close();
+
+    List<WalRecord> records = new ArrayList<>();
+    writeAheadLog.replay(0L, records::add);
+
+    assertEquals(2, records.size());
+    assertEquals(WalRecordType.CANCEL, records.get(0).getType());
+    assertEquals(WalRecordType.RESERVE, records.get(1).getType());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldPageThroughAvailableRooms() {
+    hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE));
+    Set<Room> pagedRooms = new HashSet<>();
+
+    String pageToken = null;
+    do {
+      Page<Room> page = hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE, pageToken, 300).getData();
+      pagedRooms.addAll(page.getItems());
+      pageToken = page.getNextPageToken();
+    } while (pageToken != null);
+
+    assertEquals(hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData(), pagedRooms);
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, pagedRooms.size());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldPageThroughExistedBookings() {
+    for (int i = 1; i <= 5; i++) {
+      hotelBookingService.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, i, DEFAULT_BOOKING_DATE));
+    }
+    User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+
+    Page<BookingRoom> firstPage = hotelBookingService.findExistedBookings(user, null, 3).getData();
+    Page<BookingRoom> secondPage = hotelBookingService.findExistedBookings(user, firstPage.getNextPageToken(), 3).getData();
+
+    assertEquals(3, firstPage.getItems().size());
+    assertTrue(firstPage.hasNextPage());
+    assertEquals(2, secondPage.getItems().size());
+    assertFalse(secondPage.hasNextPage());
+    assertEquals(4, secondPage.getItems().get(0).getRoom().getRoomNumber());
+  }
+
+  @Test
+  public void shouldRejectInvalidPage() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid page size and page token.");
+    User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+
+    assertEquals(expectedResponse, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE, null, 0));
+    assertEquals(expectedResponse, hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE, "not a token", 10));
+    assertEquals(expectedResponse, hotelBookingService.findExistedBookings(user, null, HotelBookingValidation.MAX_PAGE_SIZE + 1));
+    assertEquals(expectedResponse, hotelBookingService.findExistedBookings(user, "not a token", 10));
+  }
+
+  @Test
+  public void shouldRecordMetricsOfHotPath() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    hotelBookingService.reserveRoom(booking);
+    hotelBookingService.reserveRoom(booking);
+    hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE);
+    hotelBookingService.findExistedBookings(null);
+
+    HotelBookingMetrics metrics = hotelBookingService.getMetrics();
+    assertEquals(1, metrics.getSuccessCount(HotelBookingMetrics.Operation.RESERVE_ROOM));
+    assertEquals(1, metrics.getFailureCount(HotelErrorCode.ROOM_UNAVAILABLE));
+    assertEquals(1, metrics.getFailureCount(HotelErrorCode.INVALID_USER));
+    assertEquals(2, metrics.getReserveRoomLatency().getCount());
+    assertEquals(1, metrics.getFindAvailableRoomsLatency().getCount());
+    assertEquals(1, metrics.getBookingCount());
+  }
+
+  @Test
+  public void shouldNotFindCachedRoomAfterReservingIt() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Room room = booking.getBookingRoom().getRoom();
+    assertTrue(hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().contains(room));
+    assertTrue(hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().contains(room));
+
+    hotelBookingService.reserveRoom(booking);
+    assertFalse(hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().contains(room));
+
+    hotelBookingService.cancelBooking(booking);
+    assertTrue(hotelBookingService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().contains(room));
+    assertEquals(1, hotelBookingService.getAvailabilityCache().getHitCount());
+    assertEquals(3, hotelBookingService.getAvailabilityCache().getMissCount());
+  }
+
+  @Test
+  public void shouldFindAvailableRoomsMatchingCriteria() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).withCapacity(4).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(2).withRoomType(RoomType.SUITE).withCapacity(2).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(3).withRoomType(RoomType.SUITE).withCapacity(3).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(4).withRoomType(RoomType.STANDARD).withCapacity(4).build());
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).withBookings(new ConcurrentHashMap<>()).build());
+    service.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 3, DEFAULT_BOOKING_DATE));
+
+    RoomCriteria roomCriteria = RoomCriteria.NewBuilder().withRoomType(RoomType.SUITE).withMinimumCapacity(3).build();
+    Set<Room> availableRooms = service.findAvailableRooms(DEFAULT_BOOKING_DATE, roomCriteria).getData();
+
+    assertEquals(Collections.singleton(Room.NewBuilder().withRoomNumber(1).build()), availableRooms);
+    assertEquals(2, service.findAvailableRooms(DEFAULT_BOOKING_DATE.plusDays(1), roomCriteria).getData().size());
+    assertEquals(HotelErrorCode.INVALID_ROOM_CRITERIA.getResponse(), service.findAvailableRooms(DEFAULT_BOOKING_DATE, (RoomCriteria) null));
+  }
+
+  @Test
+  public void shouldReserveAnyRoomOfType() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(2).withRoomType(RoomType.STANDARD).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(3).withRoomType(RoomType.SUITE).build());
+    Hotel hotel = Hotel.NewBuilder().withRooms(rooms).withBookings(new ConcurrentHashMap<>()).build();
+    HotelBookingService service = new HotelBookingService(hotel);
+    User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+    service.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE));
+
+    GenericResponse<Booking> response = service.reserveRoomOfType(user, DEFAULT_BOOKING_DATE, RoomType.SUITE);
+
+    assertTrue(response.isSuccess());
+    assertEquals(3, response.getData().getBookingRoom().getRoom().getRoomNumber());
+    assertEquals(user, hotel.getBookings().get(response.getData().getBookingRoom()));
+    assertEquals(HotelErrorCode.ROOM_UNAVAILABLE.getResponse(), service.reserveRoomOfType(user, DEFAULT_BOOKING_DATE, RoomType.SUITE));
+    assertEquals(HotelErrorCode.ROOM_UNAVAILABLE.getResponse(), service.reserveRoomOfType(user, DEFAULT_BOOKING_DATE, RoomType.DELUXE));
+    assertTrue(service.reserveRoomOfType(user, DEFAULT_BOOKING_DATE.plusDays(1), RoomType.SUITE).isSuccess());
+  }
+
+  @Test(timeout = 10000)
+  public void shouldReserveEveryRoomOfTypeUnderContention() throws InterruptedException {
+    int numberOfThreads = 8;
+    int attemptsPerThread = 50;
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= 100; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).withRoomType(i % 4 == 0 ? RoomType.SUITE : RoomType.STANDARD).build());
+    }
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).withBookings(new ConcurrentHashMap<>()).build());
+    ConcurrentHashMap<GenericResponse<Booking>, Boolean> failures = new ConcurrentHashMap<>();
+    AtomicInteger reserved = new AtomicInteger();
+    ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+    CountDownLatch done = new CountDownLatch(numberOfThreads);
+
+    for (int t = 0; t < numberOfThreads; t++) {
+      int roomOffset = t * 12;
+      executorService.submit(() -> {
+        User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+        for (int i = 0; i < attemptsPerThread; i++) {
+          // Exact bookings of suites race with the type reservations.
+          if (service.reserveRoom(initBookingWithValues(DEFAULT_GUEST_NAME, roomOffset + 4, DEFAULT_BOOKING_DATE)).isSuccess()) {
+            reserved.incrementAndGet();
+          }
+          GenericResponse<Booking> response = service.reserveRoomOfType(user, DEFAULT_BOOKING_DATE, RoomType.SUITE);
+          if (response.isSuccess()) {
+            reserved.incrementAndGet();
+          } else {
+            failures.put(response, Boolean.TRUE);
+          }
+        }
+        done.countDown();
+      });
+    }
+    done.await();
+    executorService.shutdown();
+
+    assertEquals(Collections.singleton(HotelErrorCode.ROOM_UNAVAILABLE.getResponse()), failures.keySet());
+    assertEquals(0, service.findAvailableRooms(DEFAULT_BOOKING_DATE, RoomCriteria.NewBuilder().withRoomType(RoomType.SUITE).build()).getData().size());
+    assertEquals(25, reserved.get());
+  }
+
+  @Test
+  public void shouldNotReserveRoomOfTypeWithInvalidArguments() {
+    User user = User.NewBuilder().withName(DEFAULT_GUEST_NAME).build();
+
+    assertEquals(HotelErrorCode.INVALID_USER.getResponse(), hotelBookingService.reserveRoomOfType(null, DEFAULT_BOOKING_DATE, RoomType.STANDARD));
+    assertEquals(HotelErrorCode.INVALID_BOOKING_DATE.getResponse(), hotelBookingService.reserveRoomOfType(user, null, RoomType.STANDARD));
+    assertEquals(HotelErrorCode.INVALID_ROOM_CRITERIA.getResponse(), hotelBookingService.reserveRoomOfType(user, DEFAULT_BOOKING_DATE, null));
+  }
+
+  @Test
+  public void shouldReserveNearestRoomWhenRequestedRoomIsTaken() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= 6; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).withRoomType(i == 4 ? RoomType.SUITE : RoomType.STANDARD).build());
+    }
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).withBookings(new ConcurrentHashMap<>()).build());
+    service.reserveRoom(initBookingWithValues("Anonymous", 3, DEFAULT_BOOKING_DATE));
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, 3, DEFAULT_BOOKING_DATE);
+
+    assertEquals(HotelErrorCode.ROOM_UNAVAILABLE.getResponse(), service.reserveRoom(booking));
+
+    GenericResponse<Booking> response = service.reserveRoom(booking, ReservationPolicy.NEAREST_AVAILABLE);
+    assertTrue(response.isSuccess());
+    assertEquals(2, response.getData().getBookingRoom().getRoom().getRoomNumber());
+    assertEquals(booking.getUser(), response.getData().getUser());
+    assertEquals(1, service.reserveRoom(booking, ReservationPolicy.NEAREST_AVAILABLE).getData().getBookingRoom().getRoom().getRoomNumber());
+    assertEquals(5, service.reserveRoom(booking, ReservationPolicy.NEAREST_AVAILABLE).getData().getBookingRoom().getRoom().getRoomNumber());
+  }
+
+  @Test
+  public void shouldNotReserveNearestRoomOfAnotherType() {
+    Set<Room> rooms = new HashSet<>();
+    rooms.add(Room.NewBuilder().withRoomNumber(1).withRoomType(RoomType.SUITE).build());
+    rooms.add(Room.NewBuilder().withRoomNumber(2).withRoomType(RoomType.STANDARD).build());
+    HotelBookingService service = new HotelBookingService(Hotel.NewBuilder().withRooms(rooms).withBookings(new ConcurrentHashMap<>()).build());
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, 1, DEFAULT_BOOKING_DATE);
+    service.reserveRoom(booking);
+
+    assertEquals(HotelErrorCode.ROOM_UNAVAILABLE.getResponse(), service.reserveRoom(booking, ReservationPolicy.NEAREST_AVAILABLE));
+  }
+
+  @Test
+  public void shouldPromoteFirstWaiterOnCancellation() {
+    Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking firstWaiter = initBookingWithValues("First Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking secondWaiter = initBookingWithValues("Second Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    service.reserveRoom(booking);
+
+    assertEquals(Integer.valueOf(1), service.joinWaitlist(firstWaiter).getData());
+    assertEquals(Integer.valueOf(2), service.joinWaitlist(secondWaiter).getData());
+
+    service.cancelBooking(booking);
+
+    assertEquals(firstWaiter.getUser(), hotel.getBookingStore().findOwner(booking.getBookingRoom()));
+    assertTrue(service.findExistedBookings(firstWaiter.getUser()).getData().contains(booking.getBookingRoom()));
+    assertEquals(1, service.getWaitlistSize(booking.getBookingRoom()));
+
+    service.cancelBooking(firstWaiter);
+    assertEquals(secondWaiter.getUser(), hotel.getBookingStore().findOwner(booking.getBookingRoom()));
+    assertEquals(0, service.getWaitlistSize(booking.getBookingRoom()));
+  }
+
+  @Test
+  public void shouldReserveFreeRoomWhenJoiningWaitlist() {
+    Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    assertEquals(Integer.valueOf(0), service.joinWaitlist(booking).getData());
+    assertEquals(booking.getUser(), hotel.getBookingStore().findOwner(booking.getBookingRoom()));
+    assertEquals(0, service.getWaitlistSize(booking.getBookingRoom()));
+  }
+
+  @Test
+  public void shouldLeaveWaitlist() {
+    Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
+    HotelBookingService service = new HotelBookingService(hotel);
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking waiter = initBookingWithValues("First Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    service.reserveRoom(booking);
+    service.joinWaitlist(waiter);
+
+    assertEquals(GenericResponseUtils.generateFromSuccessfulData(waiter), service.leaveWaitlist(waiter));
+    assertEquals(HotelErrorCode.NOT_WAITLISTED.getResponse(), service.leaveWaitlist(waiter));
+
+    service.cancelBooking(booking);
+    assertNull(hotel.getBookingStore().findOwner(booking.getBookingRoom()));
+  }
+
+  @Test
+  public void shouldRejectWaiterBeyondBound() {
+    Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
+    HotelBookingService service = HotelBookingService.NewBuilder().withHotel(hotel).withMaximumWaiters(1).build();
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    service.reserveRoom(booking);
+    service.joinWaitlist(initBookingWithValues("First Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE));
+
+    assertEquals(HotelErrorCode.WAITLIST_FULL.getResponse(),
+        service.joinWaitlist(initBookingWithValues("Second Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE)));
+  }
+
+  @Test
+  public void shouldHandOverCancelledRoomToWaiterInOneLoggedStep() throws IOException {
+    WriteAheadLog writeAheadLog = WriteAheadLog.NewBuilder().withPath(folder.newFile().toPath()).build();
+    Hotel hotel = initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS);
+    HotelBookingService durableService = HotelBookingService
+        .NewBuilder()
+        .withHotel(hotel)
+        .withWriteAheadLog(writeAheadLog)
+        .build();
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking waiter = initBookingWithValues("First Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    durableService.reserveRoom(booking);
+    durableService.joinWaitlist(waiter);
+
+    assertTrue(durableService.cancelBooking(booking).isSuccess());
+    assertEquals(waiter.getUser(), hotel.getBookingStore().findOwner(booking.getBookingRoom()));
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS - 1, durableService.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+    assertTrue(durableService.findExistedBookings(booking.getUser()).getData().isEmpty());
+    writeAheadLog.close();
+
+    List<WalRecord> records = new ArrayList<>();
+    writeAheadLog.replay(0L, records::add);
+
+    assertEquals(3, records.size());
+    assertEquals(WalRecordType.CANCEL, records.get(1).getType());
+    assertEquals(booking.getUser(), records.get(1).toUser());
+    assertEquals(WalRecordType.RESERVE, records.get(2).getType());
+    assertEquals(waiter.getUser(), records.get(2).toUser());
+  }
+
+  @Test(timeout = DEFAULT_ACCEPTABLE_LATENCY_FOR_SERIAL_CALL)
+  public void shouldHandOverReleasedHoldToWaiter() {
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    Booking waiter = initBookingWithValues("First Guest", DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+    hotelBookingService.holdRoom(booking, Duration.ofMinutes(10));
+    hotelBookingService.joinWaitlist(waiter);
+
+    assertTrue(hotelBookingService.releaseHold(booking).isSuccess());
+    assertEquals(Collections.singleton(waiter.getBookingRoom()),
+        hotelBookingService.findExistedBookings(waiter.getUser()).getData());
+    assertEquals(0, hotelBookingService.getWaitlistSize(booking.getBookingRoom()));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldExpireHoldOnExpiryExecutor() throws InterruptedException {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    AtomicInteger submittedExpiries = new AtomicInteger();
+    Executor expiryExecutor = task -> {
+      submittedExpiries.incrementAndGet();
+      executorService.execute(task);
+    };
+
+    try (HashedTimingWheel timingWheel = HashedTimingWheel.NewBuilder().withTick(5, TimeUnit.MILLISECONDS).build()) {
+      HotelBookingService service = HotelBookingService
+          .NewBuilder()
+          .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+          .withTimingWheel(timingWheel)
+          .withExpiryExecutor(expiryExecutor)
+          .build();
+
+      Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+      assertTrue(service.holdRoom(booking, Duration.ofMillis(20)).isSuccess());
+      while (service.getHoldCount() > 0) {
+        Thread.sleep(5);
+      }
+      executorService.shutdown();
+      executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+      assertEquals(1, submittedExpiries.get());
+      assertTrue(service.findExistedBookings(booking.getUser()).getData().isEmpty());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldNotHoldRoomOnceTimingWheelIsClosed() {
+    HashedTimingWheel timingWheel = HashedTimingWheel.NewBuilder().build();
+    HotelBookingService service = HotelBookingService
+        .NewBuilder()
+        .withHotel(initHotelBookingServiceWithNumberOfRooms(DEFAULT_NUMBER_OF_ROOMS))
+        .withTimingWheel(timingWheel)
+        .build();
+    timingWheel.close();
+
+    Booking booking = initBookingWithValues(DEFAULT_GUEST_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    assertEquals(HotelErrorCode.SERVICE_BUSY.getResponse(), service.holdRoom(booking, Duration.ofMinutes(10)));
+    assertEquals(0, service.getHoldCount());
+    assertEquals(DEFAULT_NUMBER_OF_ROOMS, service.findAvailableRooms(DEFAULT_BOOKING_DATE).getData().size());
+  }
 }
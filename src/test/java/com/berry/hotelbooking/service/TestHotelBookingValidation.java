@@ -2,6 +2,7 @@ package com.berry.hotelbooking.service;
 
 import com.berry.hotelbooking.dto.GenericResponse;
 import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
 import com.berry.hotelbooking.utils.GenericResponseUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -287,4 +288,50 @@ public class TestHotelBookingValidation {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test
+  public void shouldShowFailValidationWithExistedBooking_searchForExistedBookingInStore() {
+    Booking testableBooking = initValidBooking(DEFAULT_USER_NAME, DEFAULT_BOOKING_ROOM_NUMBER, DEFAULT_BOOKING_DATE);
+
+    PrimitiveBookingStore bookingStore = new PrimitiveBookingStore();
+    assertNull(HotelBookingValidation.searchForExistedBookingInStore(DEFAULT_LOGGER, bookingStore, testableBooking));
+
+    bookingStore.reserve(testableBooking.getBookingRoom(), testableBooking.getUser(), null);
+
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("There's no available room at this time.");
+    GenericResponse actualResponse =
+        HotelBookingValidation.searchForExistedBookingInStore(DEFAULT_LOGGER, bookingStore, testableBooking);
+
+    assertNotNull(actualResponse);
+    assertEquals(expectedResponse, actualResponse);
+  }
+
+  @Test
+  public void shouldShowSuccessfulValidationWithValidArgument_validateStayDates() {
+    GenericResponse actualResponse =
+        HotelBookingValidation.validateStayDates(DEFAULT_LOGGER, DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(5));
+
+    assertNull(actualResponse);
+  }
+
+  @Test
+  public void shouldShowFailValidationWithInvalidCheckOutDate_validateStayDates() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid check-out date.");
+
+    assertEquals(expectedResponse, HotelBookingValidation.validateStayDates(DEFAULT_LOGGER, DEFAULT_BOOKING_DATE, null));
+    assertEquals(expectedResponse,
+        HotelBookingValidation.validateStayDates(DEFAULT_LOGGER, DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE));
+    assertEquals(expectedResponse,
+        HotelBookingValidation.validateStayDates(
+            DEFAULT_LOGGER, DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_NIGHTS_OF_STAY + 1)
+        ));
+  }
+
+  @Test
+  public void shouldShowFailValidationWithInvalidCheckInDate_validateStayDates() {
+    GenericResponse expectedResponse = GenericResponseUtils.generateFromErrorMessage("Please give a valid booking date.");
+    GenericResponse actualResponse = HotelBookingValidation.validateStayDates(DEFAULT_LOGGER, null, DEFAULT_BOOKING_DATE);
+
+    assertNotNull(actualResponse);
+    assertEquals(expectedResponse, actualResponse);
+  }
 }
@@ -0,0 +1,100 @@
+package com.berry.hotelbooking.service;
+
+import com.berry.hotelbooking.dto.HotelErrorCode;
+import com.berry.hotelbooking.model.*;
+import com.berry.hotelbooking.store.PrimitiveBookingStore;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestValidationEngine {
+
+  private static final Logger DEFAULT_LOGGER = Logger.getLogger(TestValidationEngine.class.getName());
+  private final int DEFAULT_NUMBER_OF_ROOMS = 10;
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  private Hotel hotel;
+
+  @Before
+  public void setUp() {
+    Set<Room> rooms = new HashSet<>();
+    for (int i = 1; i <= DEFAULT_NUMBER_OF_ROOMS; i++) {
+      rooms.add(Room.NewBuilder().withRoomNumber(i).build());
+    }
+    hotel = Hotel.NewBuilder().withRooms(rooms).withBookingStore(new PrimitiveBookingStore()).build();
+  }
+
+  @Test
+  public void shouldReturnErrorCodes() {
+    Booking booking = initBooking(1, DEFAULT_BOOKING_DATE);
+
+    assertNull(ValidationEngine.checkBookingInfo(hotel, booking));
+    assertEquals(HotelErrorCode.INVALID_HOTEL, ValidationEngine.checkBookingInfo(null, booking));
+    assertEquals(HotelErrorCode.BOOKING_REQUIRED, ValidationEngine.checkBookingInfo(hotel, null));
+    assertEquals(HotelErrorCode.INVALID_ROOM, ValidationEngine.checkBookingInfo(hotel, initBooking(DEFAULT_NUMBER_OF_ROOMS + 1, DEFAULT_BOOKING_DATE)));
+    assertEquals(HotelErrorCode.INVALID_BOOKING_DATE, ValidationEngine.checkBookingInfo(hotel, initBooking(1, LocalDate.now().minusDays(1))));
+    assertNull(ValidationEngine.checkBookingDate(LocalDate.now()));
+    assertEquals(HotelErrorCode.INVALID_USER, ValidationEngine.checkUserInfo(null));
+    assertEquals(HotelErrorCode.INVALID_CHECK_OUT_DATE, ValidationEngine.checkStayDates(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE));
+    assertNull(ValidationEngine.checkHoldDuration(Duration.ofMinutes(10)));
+    assertEquals(HotelErrorCode.INVALID_HOLD_DURATION, ValidationEngine.checkHoldDuration(Duration.ofSeconds(-1)));
+    assertEquals(HotelErrorCode.INVALID_CHECK_OUT_DATE,
+        ValidationEngine.checkStayDates(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_NIGHTS_OF_STAY + 1)));
+    assertNull(ValidationEngine.checkStayDates(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_NIGHTS_OF_STAY)));
+    assertNull(ValidationEngine.checkCalendarRange(LocalDate.now().minusYears(1), LocalDate.now()));
+    assertEquals(HotelErrorCode.INVALID_CALENDAR_RANGE, ValidationEngine.checkCalendarRange(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE));
+    assertEquals(HotelErrorCode.INVALID_CALENDAR_RANGE,
+        ValidationEngine.checkCalendarRange(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_DAYS_OF_CALENDAR + 1)));
+    assertNull(ValidationEngine.checkCalendarRange(DEFAULT_BOOKING_DATE, DEFAULT_BOOKING_DATE.plusDays(HotelBookingValidation.MAX_DAYS_OF_CALENDAR)));
+
+    hotel.getBookingStore().reserve(booking.getBookingRoom(), DEFAULT_USER, null);
+    assertEquals(HotelErrorCode.ROOM_UNAVAILABLE, ValidationEngine.checkBookingInfo(hotel, booking));
+  }
+
+  @Test
+  public void shouldNotAllocateWhenRejecting() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+    Assume.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+
+    Booking booking = initBooking(1, DEFAULT_BOOKING_DATE);
+    hotel.getBookingStore().reserve(booking.getBookingRoom(), DEFAULT_USER, null);
+    int iterations = 100_000;
+    for (int i = 0; i < iterations; i++) {
+      HotelBookingValidation.validateBookingInfo(DEFAULT_LOGGER, hotel, booking);
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      HotelBookingValidation.validateBookingInfo(DEFAULT_LOGGER, hotel, booking);
+    }
+    long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    assertTrue("Allocated " + allocated + " bytes", allocated < iterations);
+  }
+
+  private Booking initBooking(int roomNumber, LocalDate bookingDate) {
+    return Booking.NewBuilder()
+        .withUser(DEFAULT_USER)
+        .withBookingRoom(BookingRoom.NewBuilder()
+            .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+            .withBookingDate(bookingDate)
+            .build())
+        .build();
+  }
+}
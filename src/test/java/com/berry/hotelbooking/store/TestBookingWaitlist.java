@@ -0,0 +1,145 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestBookingWaitlist {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.of(2030, 1, 15);
+  private final BookingRoom DEFAULT_BOOKING_ROOM = bookingRoom(1, DEFAULT_BOOKING_DATE);
+
+  @Test
+  public void shouldPromoteUsersInArrivalOrder() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().build();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i + 1, waitlist.join(DEFAULT_BOOKING_ROOM, user(i)));
+    }
+    assertEquals(3, waitlist.join(DEFAULT_BOOKING_ROOM, user(2)));
+
+    List<User> promotedUsers = new ArrayList<>();
+    User promotedUser;
+    while ((promotedUser = waitlist.promote(DEFAULT_BOOKING_ROOM, user -> true)) != null) {
+      promotedUsers.add(promotedUser);
+    }
+
+    assertEquals(100, promotedUsers.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(user(i), promotedUsers.get(i));
+    }
+    assertEquals(0, waitlist.size(DEFAULT_BOOKING_ROOM));
+  }
+
+  @Test
+  public void shouldKeepFirstUserWhenClaimFails() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().build();
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(0));
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(1));
+
+    assertNull(waitlist.promote(DEFAULT_BOOKING_ROOM, user -> false));
+    assertEquals(user(0), waitlist.promote(DEFAULT_BOOKING_ROOM, user -> true));
+    assertEquals(1, waitlist.size(DEFAULT_BOOKING_ROOM));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldClaimWithoutHoldingLine() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().build();
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(0));
+
+    User promotedUser = waitlist.promote(DEFAULT_BOOKING_ROOM, user -> {
+      CompletableFuture<Integer> position = CompletableFuture.supplyAsync(() -> waitlist.join(DEFAULT_BOOKING_ROOM, user(1)));
+      return position.join() == 1;
+    });
+
+    assertEquals(user(0), promotedUser);
+    assertEquals(1, waitlist.size(DEFAULT_BOOKING_ROOM));
+  }
+
+  @Test
+  public void shouldRequeueUserAtFront() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().withMaximumWaiters(2).build();
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(0));
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(1));
+
+    User firstUser = waitlist.poll(DEFAULT_BOOKING_ROOM);
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(2));
+    waitlist.requeue(DEFAULT_BOOKING_ROOM, firstUser);
+
+    assertEquals(user(0), firstUser);
+    assertEquals(3, waitlist.size(DEFAULT_BOOKING_ROOM));
+    assertEquals(user(0), waitlist.poll(DEFAULT_BOOKING_ROOM));
+    assertEquals(user(1), waitlist.poll(DEFAULT_BOOKING_ROOM));
+    assertEquals(user(2), waitlist.poll(DEFAULT_BOOKING_ROOM));
+    assertNull(waitlist.poll(DEFAULT_BOOKING_ROOM));
+
+    waitlist.requeue(DEFAULT_BOOKING_ROOM, firstUser);
+    assertEquals(1, waitlist.size(DEFAULT_BOOKING_ROOM));
+  }
+
+  @Test
+  public void shouldLeaveLineAnywhere() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().build();
+    for (int i = 0; i < 10; i++) {
+      waitlist.join(DEFAULT_BOOKING_ROOM, user(i));
+    }
+
+    assertTrue(waitlist.leave(DEFAULT_BOOKING_ROOM, user(5)));
+    assertTrue(waitlist.leave(DEFAULT_BOOKING_ROOM, user(0)));
+    assertFalse(waitlist.leave(DEFAULT_BOOKING_ROOM, user(5)));
+    assertFalse(waitlist.leave(bookingRoom(2, DEFAULT_BOOKING_DATE), user(1)));
+
+    assertEquals(8, waitlist.size(DEFAULT_BOOKING_ROOM));
+    assertEquals(user(1), waitlist.promote(DEFAULT_BOOKING_ROOM, user -> true));
+    assertEquals(4, waitlist.join(DEFAULT_BOOKING_ROOM, user(6)));
+  }
+
+  @Test
+  public void shouldRejectUsersBeyondBound() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().withMaximumWaiters(2).build();
+
+    assertEquals(1, waitlist.join(DEFAULT_BOOKING_ROOM, user(0)));
+    assertEquals(2, waitlist.join(DEFAULT_BOOKING_ROOM, user(1)));
+    assertEquals(-1, waitlist.join(DEFAULT_BOOKING_ROOM, user(2)));
+    assertEquals(1, waitlist.join(bookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1)), user(2)));
+  }
+
+  @Test
+  public void shouldDropLinesBeforeDate() {
+    BookingWaitlist waitlist = BookingWaitlist.NewBuilder().build();
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(0));
+    waitlist.join(DEFAULT_BOOKING_ROOM, user(1));
+    waitlist.join(bookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1)), user(0));
+
+    assertEquals(2, waitlist.removeBefore(DEFAULT_BOOKING_DATE.plusDays(1)));
+    assertEquals(0, waitlist.size(DEFAULT_BOOKING_ROOM));
+    assertEquals(1, waitlist.size(bookingRoom(1, DEFAULT_BOOKING_DATE.plusDays(1))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidMaximumWaiters() {
+    BookingWaitlist.NewBuilder().withMaximumWaiters(0);
+  }
+
+  private User user(int index) {
+    return User.NewBuilder().withName("Guest " + index).build();
+  }
+
+  private BookingRoom bookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom.NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+}
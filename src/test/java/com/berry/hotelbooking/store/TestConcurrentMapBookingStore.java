@@ -0,0 +1,84 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class TestConcurrentMapBookingStore {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  @Test
+  public void shouldReserveIntoBackingMap() {
+    ConcurrentHashMap<BookingRoom, User> bookings = new ConcurrentHashMap<>();
+    ConcurrentMapBookingStore store = new ConcurrentMapBookingStore(bookings);
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+
+    assertTrue(store.reserve(bookingRoom, DEFAULT_USER, null));
+    assertFalse(store.reserve(bookingRoom, User.NewBuilder().withName("Anonymous").build(), null));
+
+    assertEquals(DEFAULT_USER, bookings.get(bookingRoom));
+    assertEquals(DEFAULT_USER, store.findOwner(bookingRoom));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void shouldNotifyListenerBeforeBookingIsVisible() {
+    ConcurrentHashMap<BookingRoom, User> bookings = new ConcurrentHashMap<>();
+    ConcurrentMapBookingStore store = new ConcurrentMapBookingStore(bookings);
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    boolean[] visibleWhenNotified = new boolean[1];
+
+    store.reserve(bookingRoom, DEFAULT_USER, (room, user) -> visibleWhenNotified[0] = bookings.containsKey(room));
+
+    assertFalse(visibleWhenNotified[0]);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowExceptionWithNullBookings() {
+    new ConcurrentMapBookingStore(null);
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  @Test
+  public void shouldReleaseOnlyBookingsOfOwner() {
+    ConcurrentHashMap<BookingRoom, User> bookings = new ConcurrentHashMap<>();
+    ConcurrentMapBookingStore store = new ConcurrentMapBookingStore(bookings);
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    assertFalse(store.release(bookingRoom, User.NewBuilder().withName("Anonymous").build(), null));
+    assertTrue(bookings.containsKey(bookingRoom));
+
+    assertTrue(store.release(bookingRoom, DEFAULT_USER, null));
+    assertFalse(bookings.containsKey(bookingRoom));
+  }
+
+  @Test
+  public void shouldRemoveBookingsBeforeDate() {
+    ConcurrentHashMap<BookingRoom, User> bookings = new ConcurrentHashMap<>();
+    ConcurrentMapBookingStore store = new ConcurrentMapBookingStore(bookings);
+    BookingRoom pastBookingRoom = initBookingRoom(5, LocalDate.now().minusDays(1));
+    store.reserve(pastBookingRoom, DEFAULT_USER, null);
+    store.reserve(initBookingRoom(5, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+
+    assertEquals(1, store.removeBefore(LocalDate.now(), null));
+    assertFalse(bookings.containsKey(pastBookingRoom));
+    assertEquals(1, store.size());
+    assertEquals(ConcurrentMapBookingStore.ESTIMATED_BYTES_PER_BOOKING, store.footprintBytes());
+  }
+}
@@ -0,0 +1,291 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.Booking;
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TestPrimitiveBookingStore {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+
+  @Test
+  public void shouldPackAndUnpackKey() {
+    long key = PrimitiveBookingStore.packKey(Integer.MAX_VALUE, DEFAULT_BOOKING_DATE);
+
+    assertEquals(Integer.MAX_VALUE, PrimitiveBookingStore.roomNumberOf(key));
+    assertEquals(DEFAULT_BOOKING_DATE, PrimitiveBookingStore.bookingDateOf(key));
+    assertEquals(LocalDate.of(1960, 1, 1),
+        PrimitiveBookingStore.bookingDateOf(PrimitiveBookingStore.packKey(1, LocalDate.of(1960, 1, 1))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowExceptionWithUnsupportedDate() {
+    PrimitiveBookingStore.packKey(1, LocalDate.MAX);
+  }
+
+  @Test
+  public void shouldReserveOnlyOnce() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    List<BookingRoom> notified = new ArrayList<>();
+
+    assertTrue(store.reserve(bookingRoom, DEFAULT_USER, (room, user) -> notified.add(room)));
+    assertFalse(store.reserve(bookingRoom, User.NewBuilder().withName("Anonymous").build(), (room, user) -> notified.add(room)));
+
+    assertEquals(1, notified.size());
+    assertEquals(1, store.size());
+    assertEquals(DEFAULT_USER, store.findOwner(bookingRoom));
+    assertTrue(store.isBooked(bookingRoom));
+    assertFalse(store.isBooked(initBookingRoom(5, DEFAULT_BOOKING_DATE.plusDays(1))));
+  }
+
+  @Test
+  public void shouldKeepAllBookingsAcrossResizes() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(4);
+    Map<BookingRoom, User> expectedBookings = new HashMap<>();
+
+    for (int room = 1; room <= 500; room++) {
+      for (int day = 0; day < 4; day++) {
+        BookingRoom bookingRoom = initBookingRoom(room, DEFAULT_BOOKING_DATE.plusDays(day));
+        User user = User.NewBuilder().withName("Guest " + (room % 7)).build();
+        assertTrue(store.reserve(bookingRoom, user, null));
+        expectedBookings.put(bookingRoom, user);
+      }
+    }
+
+    Map<BookingRoom, User> actualBookings = new HashMap<>();
+    store.forEach(actualBookings::put);
+
+    assertEquals(2000, store.size());
+    assertEquals(expectedBookings, actualBookings);
+  }
+
+  @Test
+  public void shouldLetOnlyOneConcurrentReservationWin() throws InterruptedException, ExecutionException {
+    PrimitiveBookingStore store = new PrimitiveBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    List<Callable<Boolean>> tasks = new ArrayList<>();
+
+    for (int i = 0; i < 100; i++) {
+      User user = User.NewBuilder().withName("Guest " + i).build();
+      tasks.add(() -> store.reserve(bookingRoom, user, null));
+    }
+
+    int successes = 0;
+    for (Future<Boolean> future : executorService.invokeAll(tasks)) {
+      successes += future.get() ? 1 : 0;
+    }
+    executorService.shutdown();
+
+    assertEquals(1, successes);
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void shouldRemoveBookingsBeforeDateAndShrinkTables() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(4);
+    LocalDate pastDate = LocalDate.now().minusDays(30);
+
+    for (int room = 1; room <= 500; room++) {
+      for (int day = 0; day < 4; day++) {
+        assertTrue(store.reserve(initBookingRoom(room, pastDate.plusDays(day)), DEFAULT_USER, null));
+      }
+    }
+    BookingRoom keptBookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    assertTrue(store.reserve(keptBookingRoom, DEFAULT_USER, null));
+    long footprint = store.footprintBytes();
+
+    List<BookingRoom> notified = new ArrayList<>();
+    BookingListener listener = new BookingListener() {
+      @Override
+      public void onReserved(BookingRoom bookingRoom, User user) {
+        fail("Nothing is reserved by a removal.");
+      }
+
+      @Override
+      public void onReleased(BookingRoom bookingRoom, User user) {
+        notified.add(bookingRoom);
+      }
+    };
+    assertEquals(2000, store.removeBefore(LocalDate.now(), listener));
+
+    assertEquals(2000, notified.size());
+    assertEquals(1, store.size());
+    assertTrue(store.isBooked(keptBookingRoom));
+    assertFalse(store.isBooked(initBookingRoom(1, pastDate)));
+    assertTrue(store.footprintBytes() < footprint);
+    assertEquals(0, store.removeBefore(LocalDate.now(), null));
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  @Test
+  public void shouldReleaseOnlyBookingsOfOwner() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    assertFalse(store.release(bookingRoom, User.NewBuilder().withName("Anonymous").build(), null));
+    assertTrue(store.isBooked(bookingRoom));
+
+    assertTrue(store.release(bookingRoom, DEFAULT_USER, null));
+    assertFalse(store.isBooked(bookingRoom));
+    assertFalse(store.release(bookingRoom, DEFAULT_USER, null));
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void shouldKeepCollidingKeysReachableAfterRelease() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(1);
+
+    for (int room = 1; room <= 1000; room++) {
+      store.reserve(initBookingRoom(room, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    }
+    for (int room = 1; room <= 1000; room += 2) {
+      assertTrue(store.release(initBookingRoom(room, DEFAULT_BOOKING_DATE), DEFAULT_USER, null));
+    }
+
+    for (int room = 1; room <= 1000; room++) {
+      assertEquals(room % 2 == 0, store.isBooked(initBookingRoom(room, DEFAULT_BOOKING_DATE)));
+    }
+    assertEquals(500, store.size());
+  }
+
+  @Test
+  public void shouldReserveAllFreeRoomsOfBatch() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(8);
+    store.reserve(initBookingRoom(3, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+
+    List<Booking> bookings = new ArrayList<>();
+    for (int room = 1; room <= 100; room++) {
+      bookings.add(Booking.NewBuilder().withUser(DEFAULT_USER).withBookingRoom(initBookingRoom(room, DEFAULT_BOOKING_DATE)).build());
+    }
+    List<BookingRoom> notified = new ArrayList<>();
+
+    boolean[] reserved = store.reserveAll(bookings, (room, user) -> notified.add(room));
+
+    for (int i = 0; i < reserved.length; i++) {
+      assertEquals(i != 2, reserved[i]);
+    }
+    assertEquals(99, notified.size());
+    assertEquals(100, store.size());
+  }
+
+  @Test
+  public void shouldRestorePackedKeysAndWalkThem() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(4, 1000);
+    for (int room = 1; room <= 1000; room++) {
+      assertTrue(store.restore(PrimitiveBookingStore.packKey(room, DEFAULT_BOOKING_DATE), DEFAULT_USER));
+    }
+    assertFalse(store.restore(PrimitiveBookingStore.packKey(1, DEFAULT_BOOKING_DATE), DEFAULT_USER));
+
+    Map<Long, User> walked = new HashMap<>();
+    store.forEachKey((user, key) -> walked.put(key, user));
+
+    assertEquals(1000, store.size());
+    assertEquals(1000, walked.size());
+    assertEquals(DEFAULT_USER, walked.get(PrimitiveBookingStore.packKey(1000, DEFAULT_BOOKING_DATE)));
+    assertTrue(store.isBooked(initBookingRoom(500, DEFAULT_BOOKING_DATE)));
+  }
+
+  @Test
+  public void shouldOnlyKeepIdsOfUsersOwningBookings() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    for (int i = 0; i < 100; i++) {
+      User user = User.NewBuilder().withName("Guest " + i).build();
+      assertFalse(store.reserve(bookingRoom, user, null));
+      assertFalse(store.release(bookingRoom, user, null));
+    }
+    assertEquals(1, store.userCount());
+
+    store.reserve(initBookingRoom(6, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    store.release(bookingRoom, DEFAULT_USER, null);
+    assertEquals(1, store.userCount());
+    assertEquals(DEFAULT_USER, store.findOwner(initBookingRoom(6, DEFAULT_BOOKING_DATE)));
+
+    store.removeBefore(DEFAULT_BOOKING_DATE.plusDays(1), null);
+    assertEquals(0, store.userCount());
+  }
+
+  @Test
+  public void shouldCompareStoresByBookings() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore(4);
+    PrimitiveBookingStore otherStore = new PrimitiveBookingStore(16);
+    User otherUser = User.NewBuilder().withName("Anonymous").build();
+
+    // The same owners get different ids in both stores.
+    otherStore.reserve(initBookingRoom(9, DEFAULT_BOOKING_DATE), otherUser, null);
+    for (int room = 1; room <= 100; room++) {
+      store.reserve(initBookingRoom(room, DEFAULT_BOOKING_DATE), room % 2 == 0 ? DEFAULT_USER : otherUser, null);
+    }
+    for (int room = 100; room >= 1; room--) {
+      if (room != 9) {
+        otherStore.reserve(initBookingRoom(room, DEFAULT_BOOKING_DATE), room % 2 == 0 ? DEFAULT_USER : otherUser, null);
+      }
+    }
+
+    assertEquals(store, otherStore);
+    assertEquals(store.hashCode(), otherStore.hashCode());
+
+    otherStore.release(initBookingRoom(2, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    otherStore.reserve(initBookingRoom(2, DEFAULT_BOOKING_DATE), otherUser, null);
+    assertNotEquals(store, otherStore);
+  }
+
+  @Test
+  public void shouldHandOverBookingToSuccessor() {
+    PrimitiveBookingStore store = new PrimitiveBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    User successor = User.NewBuilder().withName("First Guest").build();
+    List<String> notified = new ArrayList<>();
+    BookingListener listener = new BookingListener() {
+      @Override
+      public void onReserved(BookingRoom room, User user) {
+        notified.add("reserved");
+      }
+
+      @Override
+      public void onHandedOver(BookingRoom room, User user, User next) {
+        notified.add(user.getName() + " > " + next.getName());
+      }
+    };
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    assertFalse(store.handOver(bookingRoom, successor, () -> {
+      throw new AssertionError("Successor of another owner.");
+    }, listener));
+    assertTrue(store.handOver(bookingRoom, DEFAULT_USER, () -> successor, listener));
+
+    assertEquals(Collections.singletonList("John Smith > First Guest"), notified);
+    assertEquals(successor, store.findOwner(bookingRoom));
+    assertEquals(1, store.size());
+    assertEquals(1, store.userCount());
+
+    assertTrue(store.handOver(bookingRoom, successor, () -> null, null));
+    assertNull(store.findOwner(bookingRoom));
+    assertEquals(0, store.size());
+  }
+}
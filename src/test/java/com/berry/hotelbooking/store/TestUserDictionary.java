@@ -0,0 +1,45 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestUserDictionary {
+
+  @Test
+  public void shouldGiveStableIdsToUsers() {
+    UserDictionary dictionary = new UserDictionary();
+
+    int firstId = dictionary.acquire(User.NewBuilder().withName("John Smith").build());
+    for (int i = 0; i < 100; i++) {
+      dictionary.acquire(User.NewBuilder().withName("Guest " + i).build());
+    }
+
+    assertEquals(firstId, dictionary.acquire(User.NewBuilder().withName("John Smith").build()));
+    assertNotEquals(firstId, dictionary.acquire(User.NewBuilder().withName("Guest 1").build()));
+    assertEquals("Guest 99", dictionary.userOf(dictionary.acquire(User.NewBuilder().withName("Guest 99").build())).getName());
+    assertEquals(101, dictionary.size());
+  }
+
+  @Test
+  public void shouldReuseIdOnceLastReferenceIsReleased() {
+    UserDictionary dictionary = new UserDictionary();
+    User user = User.NewBuilder().withName("John Smith").build();
+
+    int id = dictionary.acquire(user);
+    dictionary.acquire(user);
+    dictionary.release(id);
+    assertEquals(user, dictionary.userOf(id));
+
+    dictionary.release(id);
+    assertNull(dictionary.userOf(id));
+    assertEquals(0, dictionary.size());
+
+    assertEquals(id, dictionary.acquire(User.NewBuilder().withName("Guest 1").build()));
+    assertEquals(1, dictionary.size());
+  }
+
+}
@@ -0,0 +1,267 @@
+package com.berry.hotelbooking.store;
+
+import com.berry.hotelbooking.model.BookingRoom;
+import com.berry.hotelbooking.model.Room;
+import com.berry.hotelbooking.model.User;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestVersionedBookingStore {
+
+  private final LocalDate DEFAULT_BOOKING_DATE = LocalDate.now().plusDays(10);
+  private final User DEFAULT_USER = User.NewBuilder().withName("John Smith").build();
+  private final User OTHER_USER = User.NewBuilder().withName("Anonymous").build();
+
+  @Test
+  public void shouldReserveAndReleaseWithOwnerCheck() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    List<BookingRoom> notified = new ArrayList<>();
+
+    assertTrue(store.reserve(bookingRoom, DEFAULT_USER, (room, user) -> notified.add(room)));
+    assertFalse(store.reserve(bookingRoom, OTHER_USER, (room, user) -> notified.add(room)));
+    assertFalse(store.release(bookingRoom, OTHER_USER, (room, user) -> notified.add(room)));
+
+    assertEquals(1, notified.size());
+    assertEquals(1, store.size());
+    assertEquals(1L, store.getVersion());
+    assertEquals(DEFAULT_USER, store.findOwner(bookingRoom));
+
+    assertTrue(store.release(bookingRoom, DEFAULT_USER, new BookingListener() {
+      @Override
+      public void onReserved(BookingRoom room, User user) {
+      }
+
+      @Override
+      public void onReleased(BookingRoom room, User user) {
+        notified.add(room);
+      }
+    }));
+
+    assertEquals(2, notified.size());
+    assertEquals(0, store.size());
+    assertEquals(2L, store.getVersion());
+    assertNull(store.findOwner(bookingRoom));
+    assertTrue(store.reserve(bookingRoom, OTHER_USER, null));
+  }
+
+  @Test
+  public void shouldNotTakeVersionWhenListenerFails() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+
+    try {
+      store.reserve(bookingRoom, DEFAULT_USER, (room, user) -> {
+        throw new IllegalStateException("Unavailable.");
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals(0L, store.getVersion());
+    }
+
+    assertTrue(store.reserve(bookingRoom, DEFAULT_USER, null));
+    assertEquals(1L, store.getVersion());
+  }
+
+  @Test
+  public void shouldReadSameStateThroughSnapshot() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom firstBookingRoom = initBookingRoom(1, DEFAULT_BOOKING_DATE);
+    BookingRoom secondBookingRoom = initBookingRoom(2, DEFAULT_BOOKING_DATE);
+    store.reserve(firstBookingRoom, DEFAULT_USER, null);
+
+    try (BookingSnapshot snapshot = store.openSnapshot()) {
+      store.release(firstBookingRoom, DEFAULT_USER, null);
+      store.reserve(secondBookingRoom, OTHER_USER, null);
+      store.reserve(firstBookingRoom, OTHER_USER, null);
+
+      assertEquals(1L, snapshot.getVersion());
+      assertEquals(DEFAULT_USER, snapshot.findOwner(firstBookingRoom));
+      assertFalse(snapshot.isBooked(secondBookingRoom));
+
+      Map<BookingRoom, User> bookings = new HashMap<>();
+      snapshot.forEach(bookings::put);
+      assertEquals(1, bookings.size());
+      assertEquals(DEFAULT_USER, bookings.get(firstBookingRoom));
+    }
+
+    assertEquals(OTHER_USER, store.findOwner(firstBookingRoom));
+    assertEquals(OTHER_USER, store.findOwner(secondBookingRoom));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void shouldReclaimVersionsOnceSnapshotIsClosed() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    BookingSnapshot snapshot = store.openSnapshot();
+    store.release(bookingRoom, DEFAULT_USER, null);
+    store.reserve(bookingRoom, OTHER_USER, null);
+    store.release(bookingRoom, OTHER_USER, null);
+
+    assertEquals(0, store.reclaim());
+    assertEquals(DEFAULT_USER, snapshot.findOwner(bookingRoom));
+    assertEquals(4, store.countVersions(bookingRoom));
+
+    snapshot.close();
+    snapshot.close();
+
+    assertEquals(1, store.reclaim());
+    assertEquals(0, store.countVersions(bookingRoom));
+    assertEquals(0L, store.footprintBytes());
+  }
+
+  @Test
+  public void shouldTrimVersionsWhileWritingWithoutSnapshot() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+
+    for (int i = 0; i < 100; i++) {
+      store.reserve(bookingRoom, DEFAULT_USER, null);
+      store.release(bookingRoom, DEFAULT_USER, null);
+    }
+
+    assertTrue(store.countVersions(bookingRoom) <= 2);
+  }
+
+  @Test
+  public void shouldReadBookedRoomsOfDateAsOfSnapshot() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    store.reserve(initBookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    store.reserve(initBookingRoom(130, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+    store.reserve(initBookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(1)), DEFAULT_USER, null);
+
+    try (BookingSnapshot snapshot = store.openSnapshot()) {
+      store.release(initBookingRoom(1, DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+      store.reserve(initBookingRoom(64, DEFAULT_BOOKING_DATE), OTHER_USER, null);
+      store.handOver(initBookingRoom(130, DEFAULT_BOOKING_DATE), DEFAULT_USER, () -> OTHER_USER, null);
+
+      assertEquals(new HashSet<>(Arrays.asList(1, 130)), bookedRooms(snapshot, DEFAULT_BOOKING_DATE));
+    }
+
+    try (BookingSnapshot snapshot = store.openSnapshot()) {
+      assertEquals(new HashSet<>(Arrays.asList(64, 130)), bookedRooms(snapshot, DEFAULT_BOOKING_DATE));
+      assertEquals(Collections.singleton(2), bookedRooms(snapshot, DEFAULT_BOOKING_DATE.plusDays(1)));
+      assertTrue(bookedRooms(snapshot, DEFAULT_BOOKING_DATE.plusDays(2)).isEmpty());
+    }
+
+    store.release(initBookingRoom(64, DEFAULT_BOOKING_DATE), OTHER_USER, null);
+    store.release(initBookingRoom(130, DEFAULT_BOOKING_DATE), OTHER_USER, null);
+    store.release(initBookingRoom(2, DEFAULT_BOOKING_DATE.plusDays(1)), DEFAULT_USER, null);
+    store.reclaim();
+
+    assertEquals(0L, store.footprintBytes());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldThrowExceptionWhenStoreIsNotVersioned() {
+    new ConcurrentMapBookingStore(new ConcurrentHashMap<>()).openSnapshot();
+  }
+
+  @Test
+  public void shouldKeepSnapshotsConsistentWithConcurrentWriters() throws InterruptedException, ExecutionException {
+    VersionedBookingStore store = new VersionedBookingStore();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    AtomicBoolean writing = new AtomicBoolean(true);
+    AtomicInteger nextRoomNumber = new AtomicInteger();
+    List<Future<?>> writers = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++) {
+      writers.add(executorService.submit(() -> {
+        for (int j = 0; j < 2000; j++) {
+          store.reserve(initBookingRoom(nextRoomNumber.incrementAndGet(), DEFAULT_BOOKING_DATE), DEFAULT_USER, null);
+        }
+      }));
+    }
+    Future<Integer> reader = executorService.submit(() -> {
+      int inconsistentReads = 0;
+      while (writing.get()) {
+        try (BookingSnapshot snapshot = store.openSnapshot()) {
+          // Every write is a new reservation, so a version holds exactly as many bookings as its number.
+          AtomicInteger firstCount = new AtomicInteger();
+          AtomicInteger secondCount = new AtomicInteger();
+          snapshot.forEach((bookingRoom, user) -> firstCount.incrementAndGet());
+          snapshot.forEach((bookingRoom, user) -> secondCount.incrementAndGet());
+          if (firstCount.get() != snapshot.getVersion() || secondCount.get() != snapshot.getVersion()) {
+            inconsistentReads++;
+          }
+        }
+      }
+      return inconsistentReads;
+    });
+
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    writing.set(false);
+
+    assertEquals(0, (int) reader.get());
+    assertEquals(6000, store.size());
+    assertEquals(6000L, store.getVersion());
+    executorService.shutdown();
+  }
+
+  private Set<Integer> bookedRooms(BookingSnapshot snapshot, LocalDate bookingDate) {
+    Set<Integer> roomNumbers = new HashSet<>();
+    snapshot.forEachBookedRoom(bookingDate, roomNumbers::add);
+    return roomNumbers;
+  }
+
+  private BookingRoom initBookingRoom(int roomNumber, LocalDate bookingDate) {
+    return BookingRoom
+        .NewBuilder()
+        .withRoom(Room.NewBuilder().withRoomNumber(roomNumber).build())
+        .withBookingDate(bookingDate)
+        .build();
+  }
+
+  @Test
+  public void shouldHandOverBookingToSuccessor() {
+    VersionedBookingStore store = new VersionedBookingStore();
+    BookingRoom bookingRoom = initBookingRoom(5, DEFAULT_BOOKING_DATE);
+    User successor = User.NewBuilder().withName("First Guest").build();
+    List<String> notified = new ArrayList<>();
+    BookingListener listener = new BookingListener() {
+      @Override
+      public void onReserved(BookingRoom room, User user) {
+        notified.add("reserved");
+      }
+
+      @Override
+      public void onHandedOver(BookingRoom room, User user, User next) {
+        notified.add(user.getName() + " > " + next.getName());
+      }
+    };
+    store.reserve(bookingRoom, DEFAULT_USER, null);
+
+    assertFalse(store.handOver(bookingRoom, successor, () -> {
+      throw new AssertionError("Successor of another owner.");
+    }, listener));
+    assertTrue(store.handOver(bookingRoom, DEFAULT_USER, () -> successor, listener));
+
+    assertEquals(Collections.singletonList("John Smith > First Guest"), notified);
+    assertEquals(successor, store.findOwner(bookingRoom));
+    assertEquals(1, store.size());
+    assertEquals(2L, store.getVersion());
+
+    assertTrue(store.handOver(bookingRoom, successor, () -> null, null));
+    assertNull(store.findOwner(bookingRoom));
+    assertEquals(0, store.size());
+  }
+}
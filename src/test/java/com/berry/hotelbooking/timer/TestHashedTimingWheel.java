@@ -0,0 +1,82 @@
+package com.berry.hotelbooking.timer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestHashedTimingWheel {
+
+  private HashedTimingWheel timingWheel;
+
+  @Before
+  public void setUp() {
+    timingWheel = HashedTimingWheel.NewBuilder()
+        .withTick(5, TimeUnit.MILLISECONDS)
+        .withTicksPerWheel(8)
+        .withThreadName("test-timing-wheel")
+        .build();
+  }
+
+  @After
+  public void tearDown() {
+    timingWheel.close();
+  }
+
+  @Test(timeout = 5000)
+  public void shouldRunTaskAfterDelay() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    long startNanos = System.nanoTime();
+
+    HashedTimingWheel.Timeout timeout = timingWheel.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+    latch.await();
+
+    assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertTrue(timeout.isExpired());
+    assertFalse(timeout.cancel());
+    assertEquals(0, timingWheel.getPendingTimeouts());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldNotRunCancelledTask() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(1);
+
+    HashedTimingWheel.Timeout timeout = timingWheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    timingWheel.schedule(latch::countDown, 40, TimeUnit.MILLISECONDS);
+    latch.await();
+
+    assertEquals(0, runs.get());
+    assertEquals(0, timingWheel.getPendingTimeouts());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldRunTasksBeyondOneTurnOfTheWheel() throws InterruptedException {
+    int numberOfTasks = 1000;
+    CountDownLatch latch = new CountDownLatch(numberOfTasks);
+
+    for (int i = 0; i < numberOfTasks; i++) {
+      // 8 ticks of 5ms per turn, so most tasks wait for several rounds.
+      timingWheel.schedule(latch::countDown, i % 200, TimeUnit.MILLISECONDS);
+    }
+    latch.await();
+
+    assertEquals(0, timingWheel.getPendingTimeouts());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRejectTaskOnceClosed() {
+    timingWheel.schedule(() -> {}, 1, TimeUnit.SECONDS);
+    timingWheel.close();
+
+    timingWheel.schedule(() -> {}, 1, TimeUnit.SECONDS);
+  }
+
+}